@@ -0,0 +1,213 @@
+package com.mathnerd28.jsonj.benchmark;
+
+import java.util.Random;
+
+/*
+ * Synthetic stand-ins for the usual JSON benchmark files. Each one is generated
+ * from a fixed seed, so every run (and every release) parses identical bytes.
+ */
+public enum Corpus {
+  // Search API results: many medium objects, short strings, ids, nested users
+  TWITTER {
+    @Override
+    void generate(StringBuilder out, Random random) {
+      out.append("{\"statuses\":[");
+      for (int i = 0; i < 100; i++) {
+        if (i > 0) {
+          out.append(',');
+        }
+        long id = 505874924095815681L + random.nextInt(1 << 30);
+        out.append("{\"created_at\":\"Sun Aug 31 00:29:15 +0000 2014\",\"id\":").append(id);
+        out.append(",\"id_str\":\"").append(id).append("\",\"text\":");
+        string(out, random, 40 + random.nextInt(100), true);
+        out.append(",\"truncated\":false,\"in_reply_to_status_id\":null,\"user\":{\"id\":");
+        out.append(random.nextInt(Integer.MAX_VALUE)).append(",\"name\":");
+        string(out, random, 5 + random.nextInt(15), true);
+        out.append(",\"screen_name\":");
+        string(out, random, 5 + random.nextInt(10), false);
+        out.append(",\"description\":");
+        string(out, random, random.nextInt(160), true);
+        out.append(",\"followers_count\":").append(random.nextInt(100000));
+        out.append(",\"friends_count\":").append(random.nextInt(5000));
+        out.append(",\"verified\":").append(random.nextBoolean());
+        out.append(",\"lang\":\"ja\",\"profile_background_color\":\"C0DEED\"}");
+        out.append(",\"entities\":{\"hashtags\":[],\"symbols\":[],\"urls\":[],");
+        out.append("\"user_mentions\":[{\"screen_name\":");
+        string(out, random, 8, false);
+        out.append(",\"indices\":[").append(random.nextInt(10)).append(',');
+        out.append(10 + random.nextInt(10)).append("]}]}");
+        out.append(",\"retweet_count\":").append(random.nextInt(1000));
+        out.append(",\"favorite_count\":").append(random.nextInt(1000));
+        out.append(",\"favorited\":false,\"retweeted\":false,\"lang\":\"ja\"}");
+      }
+      out.append("],\"search_metadata\":{\"completed_in\":0.087,\"max_id\":505874924095815681,");
+      out.append("\"query\":\"%E4%B8%80\",\"count\":100,\"since_id\":0}}");
+    }
+  },
+  // Event catalog: wide objects keyed by numeric ids, many small integer arrays
+  CITM_CATALOG {
+    @Override
+    void generate(StringBuilder out, Random random) {
+      out.append("{\"areaNames\":{");
+      for (int i = 0; i < 200; i++) {
+        if (i > 0) {
+          out.append(',');
+        }
+        out.append('"').append(205705993 + i).append("\":");
+        string(out, random, 10 + random.nextInt(20), false);
+      }
+      out.append("},\"events\":{");
+      for (int i = 0; i < 1000; i++) {
+        if (i > 0) {
+          out.append(',');
+        }
+        int id = 138586341 + i;
+        out.append('"').append(id).append("\":{\"description\":null,\"id\":").append(id);
+        out.append(",\"logo\":null,\"name\":");
+        string(out, random, 10 + random.nextInt(30), false);
+        out.append(",\"subTopicIds\":[");
+        for (int j = 0, n = 1 + random.nextInt(5); j < n; j++) {
+          if (j > 0) {
+            out.append(',');
+          }
+          out.append(337184262 + random.nextInt(1000));
+        }
+        out.append("],\"subjectCode\":null,\"subtitle\":null,\"topicIds\":[");
+        out.append(324846099 + random.nextInt(1000)).append(',');
+        out.append(107888604 + random.nextInt(1000)).append("]}");
+      }
+      out.append("},\"performances\":[");
+      for (int i = 0; i < 1000; i++) {
+        if (i > 0) {
+          out.append(',');
+        }
+        out.append("{\"eventId\":").append(138586341 + random.nextInt(1000));
+        out.append(",\"id\":").append(339887544 + i);
+        out.append(",\"logo\":\"/images/UE0AAAAACEKo6QAAAAZDSVRN\",\"name\":null,\"prices\":[");
+        for (int j = 0, n = 1 + random.nextInt(4); j < n; j++) {
+          if (j > 0) {
+            out.append(',');
+          }
+          out.append("{\"amount\":").append(10000 + random.nextInt(90000));
+          out.append(",\"audienceSubCategoryId\":337100890,\"seatCategoryId\":");
+          out.append(338937295 + random.nextInt(100)).append('}');
+        }
+        out.append("],\"seatCategories\":[],\"seatMapImage\":null,\"start\":");
+        out.append(1372701600000L + random.nextInt(1 << 30) * 1000L);
+        out.append(",\"venueCode\":\"PLEYEL_PLEYEL\"}");
+      }
+      out.append("]}");
+    }
+  },
+  // GeoJSON polygons: deep arrays of coordinate pairs, almost entirely doubles
+  CANADA {
+    @Override
+    void generate(StringBuilder out, Random random) {
+      out.append("{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",");
+      out.append("\"properties\":{\"name\":\"Canada\"},\"geometry\":{\"type\":\"Polygon\",");
+      out.append("\"coordinates\":[");
+      for (int i = 0; i < 50; i++) {
+        if (i > 0) {
+          out.append(',');
+        }
+        out.append('[');
+        for (int j = 0; j < 1000; j++) {
+          if (j > 0) {
+            out.append(',');
+          }
+          out.append('[').append(-141 + random.nextDouble() * 88).append(',');
+          out.append(41 + random.nextDouble() * 42).append(']');
+        }
+        out.append(']');
+      }
+      out.append("]}}]}");
+    }
+  },
+  // Pathological nesting: alternating objects and arrays, a few hundred levels
+  DEEP {
+    @Override
+    void generate(StringBuilder out, Random random) {
+      for (int r = 0; r < 50; r++) {
+        out.append(r == 0 ? "[" : ",");
+        int depth = 200 + random.nextInt(200);
+        for (int i = 0; i < depth; i++) {
+          out.append((i & 1) == 0 ? "{\"k\":" : "[").append(random.nextInt(100));
+          out.append((i & 1) == 0 ? ",\"v\":" : ",");
+        }
+        out.append("null");
+        for (int i = depth - 1; i >= 0; i--) {
+          out.append((i & 1) == 0 ? '}' : ']');
+        }
+      }
+      out.append(']');
+    }
+  },
+  // Log documents: few keys, long text values with occasional escapes
+  STRINGS {
+    @Override
+    void generate(StringBuilder out, Random random) {
+      out.append('[');
+      for (int i = 0; i < 500; i++) {
+        if (i > 0) {
+          out.append(',');
+        }
+        out.append("{\"level\":\"INFO\",\"logger\":\"com.example.ingest.Pipeline\",\"message\":");
+        string(out, random, 500 + random.nextInt(2000), random.nextInt(4) == 0);
+        out.append(",\"stack\":");
+        string(out, random, random.nextInt(3000), false);
+        out.append('}');
+      }
+      out.append(']');
+    }
+  };
+
+  private static final String ASCII =
+    "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789     .,;:-_/()";
+  private static final String SPECIAL = "\u00e9\u00fc\u4e00\u30c6\u30b9\u30c8\"\\\n\t";
+
+  private String json;
+
+  abstract void generate(StringBuilder out, Random random);
+
+  public synchronized String json() {
+    if (json == null) {
+      StringBuilder builder = new StringBuilder(1 << 20);
+      generate(builder, new Random(0x5EED + ordinal()));
+      json = builder.toString();
+    }
+    return json;
+  }
+
+  static void string(StringBuilder out, Random random, int length, boolean special) {
+    out.append('"');
+    for (int i = 0; i < length; i++) {
+      char c;
+      if (special && random.nextInt(16) == 0) {
+        c = SPECIAL.charAt(random.nextInt(SPECIAL.length()));
+      } else {
+        c = ASCII.charAt(random.nextInt(ASCII.length()));
+      }
+      switch (c) {
+        case '"':
+          out.append("\\\"");
+          break;
+        case '\\':
+          out.append("\\\\");
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        case '\t':
+          out.append("\\t");
+          break;
+        default:
+          if (c > 0x7f && random.nextBoolean()) {
+            out.append("\\u").append(String.format("%04x", (int) c));
+          } else {
+            out.append(c);
+          }
+      }
+    }
+    out.append('"');
+  }
+}
@@ -0,0 +1,145 @@
+package com.mathnerd28.jsonj.benchmark;
+
+import com.mathnerd28.jsonj.JSONElement;
+import com.mathnerd28.jsonj.JSONParseException;
+import com.mathnerd28.jsonj.JSONParser;
+import com.mathnerd28.jsonj.JSONParserFactory;
+import com.mathnerd28.jsonj.JSONPath;
+import com.mathnerd28.jsonj.JSONTape;
+import com.mathnerd28.jsonj.JSONView;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+
+  @Param
+  Corpus corpus;
+
+  JSONParserFactory factory = new JSONParserFactory();
+  // Matches in TWITTER and CITM_CATALOG; elsewhere, measures skipping alone
+  JSONPath ids = JSONPath.compile("$..id");
+
+  String json;
+  byte[] bytes;
+  byte[] binary;
+  File file;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    json = corpus.json();
+    bytes = json.getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      new JSONParser().parse(json).writeBinary(out);
+    } catch (JSONParseException e) {
+      throw new IOException(e);
+    }
+    binary = out.toByteArray();
+    file = File.createTempFile("jsonj-" + corpus.name().toLowerCase(), ".json");
+    file.deleteOnExit();
+    Files.write(file.toPath(), bytes);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Benchmark
+  public JSONElement parseString(Throughput t) throws JSONParseException {
+    t.add(bytes.length);
+    return new JSONParser().parse(json);
+  }
+
+  // Same, with the buffers kept from the previous call
+  @Benchmark
+  public JSONElement parseStringReused(Throughput t) throws JSONParseException {
+    t.add(bytes.length);
+    return factory.get().parse(json);
+  }
+
+  // Numeric arrays kept as long[] or double[]
+  @Benchmark
+  public JSONElement parseStringCompact(Throughput t) throws JSONParseException {
+    t.add(bytes.length);
+    return new JSONParser().compactingNumbers().parse(json);
+  }
+
+  // Objects kept as key and value arrays
+  @Benchmark
+  public JSONElement parseStringCompactObjects(Throughput t) throws JSONParseException {
+    t.add(bytes.length);
+    return new JSONParser().compactingObjects().parse(json);
+  }
+
+  @Benchmark
+  public JSONElement parseReader(Throughput t) throws IOException, JSONParseException {
+    t.add(bytes.length);
+    return new JSONParser().parse(new StringReader(json));
+  }
+
+  @Benchmark
+  public JSONElement parseInputStream(Throughput t) throws IOException, JSONParseException {
+    t.add(bytes.length);
+    return new JSONParser().parse(new ByteArrayInputStream(bytes));
+  }
+
+  @Benchmark
+  public JSONElement parseFile(Throughput t) throws IOException, JSONParseException {
+    t.add(bytes.length);
+    return new JSONParser().parse(file);
+  }
+
+  // Only the structural index; no values are decoded
+  @Benchmark
+  public JSONView parseLazy(Throughput t) throws JSONParseException {
+    t.add(bytes.length);
+    return new JSONParser().parseLazy(bytes);
+  }
+
+  // Into direct memory, off the heap
+  @Benchmark
+  public JSONTape parseTape(Throughput t) throws JSONParseException {
+    t.add(bytes.length);
+    return new JSONParser().parseTape(bytes);
+  }
+
+  // What writeBinary() wrote, counted against the text for comparison
+  @Benchmark
+  public JSONElement parseBinary(Throughput t) throws JSONParseException {
+    t.add(bytes.length);
+    return new JSONParser().parseBinary(binary);
+  }
+
+  @Benchmark
+  public List<JSONElement> select(Throughput t) throws JSONParseException {
+    t.add(bytes.length);
+    return new JSONParser().select(bytes, ids);
+  }
+}
@@ -0,0 +1,95 @@
+package com.mathnerd28.jsonj.benchmark;
+
+import com.mathnerd28.jsonj.JSONArray;
+import com.mathnerd28.jsonj.JSONElement;
+import com.mathnerd28.jsonj.JSONObject;
+import com.mathnerd28.jsonj.JSONParseException;
+import com.mathnerd28.jsonj.JSONParser;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SerializeBenchmark {
+
+  private static final OutputStream DISCARD = new OutputStream() {
+    @Override
+    public void write(int b) {}
+
+    @Override
+    public void write(byte[] b, int off, int len) {}
+  };
+
+  @Param
+  Corpus corpus;
+
+  JSONElement element;
+  int compactBytes;
+  int spacedBytes;
+  int formattedBytes;
+
+  @Setup(Level.Trial)
+  public void setup() throws JSONParseException {
+    element = new JSONParser().parse(corpus.json());
+    compactBytes = element.toJSON(true).getBytes(StandardCharsets.UTF_8).length;
+    spacedBytes = element.toJSON(false).getBytes(StandardCharsets.UTF_8).length;
+    formattedBytes = toJSONFormatted().getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  @Benchmark
+  public String toJSONCompact(Throughput t) {
+    t.add(compactBytes);
+    return element.toJSON(true);
+  }
+
+  @Benchmark
+  public String toJSON(Throughput t) {
+    t.add(spacedBytes);
+    return element.toJSON(false);
+  }
+
+  @Benchmark
+  public String toJSONFormatted(Throughput t) {
+    t.add(formattedBytes);
+    return toJSONFormatted();
+  }
+
+  @Benchmark
+  public void writeToOutputStream(Throughput t) throws IOException {
+    t.add(compactBytes);
+    element.writeUtf8To(DISCARD, true);
+  }
+
+  // Counted against the compact text, for comparison
+  @Benchmark
+  public void writeBinary(Throughput t) throws IOException {
+    t.add(compactBytes);
+    element.writeBinary(DISCARD);
+  }
+
+  private String toJSONFormatted() {
+    if (element instanceof JSONObject) {
+      return ((JSONObject) element).toJSONFormatted();
+    } else {
+      return ((JSONArray) element).toJSONFormatted();
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.mathnerd28.jsonj.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Reported next to ops/s; with the throughput mode this reads as MB/s
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+
+  public double megabytes;
+
+  @Setup(Level.Iteration)
+  public void reset() {
+    megabytes = 0;
+  }
+
+  void add(int bytes) {
+    megabytes += bytes / 1_000_000.0;
+  }
+}
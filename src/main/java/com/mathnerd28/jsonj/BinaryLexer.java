@@ -0,0 +1,299 @@
+package com.mathnerd28.jsonj;
+
+import static com.mathnerd28.jsonj.BinaryWriter.ARRAY;
+import static com.mathnerd28.jsonj.BinaryWriter.FALSE;
+import static com.mathnerd28.jsonj.BinaryWriter.FLOAT;
+import static com.mathnerd28.jsonj.BinaryWriter.HEADER;
+import static com.mathnerd28.jsonj.BinaryWriter.INTEGER;
+import static com.mathnerd28.jsonj.BinaryWriter.MAX_REFERENCED_LENGTH;
+import static com.mathnerd28.jsonj.BinaryWriter.MAX_REFERENCES;
+import static com.mathnerd28.jsonj.BinaryWriter.NULL;
+import static com.mathnerd28.jsonj.BinaryWriter.OBJECT;
+import static com.mathnerd28.jsonj.BinaryWriter.REFERENCE;
+import static com.mathnerd28.jsonj.BinaryWriter.SMALL;
+import static com.mathnerd28.jsonj.BinaryWriter.SMALL_ZERO;
+import static com.mathnerd28.jsonj.BinaryWriter.STRING;
+import static com.mathnerd28.jsonj.BinaryWriter.TRUE;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Reads the format written by BinaryWriter, and replays it as the tokens of the equivalent JSON
+// text, so the parser handles both alike. Columns are byte offsets, on line 1. A stream is read no
+// further than the end of the document, so another may follow it.
+final class BinaryLexer extends JSONLexer {
+
+  // What comes next in a container
+  private static final byte ITEM = 0;
+  private static final byte COLON = 1;
+  private static final byte VALUE = 2;
+  private static final byte AFTER = 3;
+
+  private final InputStream stream;
+  private byte[] buf;
+  private int pos;
+  private int limit;
+  // Absolute offset of buf[0]
+  private long base;
+
+  private boolean started;
+
+  // Open containers, innermost last
+  private int[] remaining = new int[16];
+  private boolean[] objects = new boolean[16];
+  private byte[] phases = new byte[16];
+  private int depth;
+
+  // Earlier short strings, by index
+  private final List<String> references = new ArrayList<>();
+  // The current STRING token, already decoded
+  private String string;
+
+  // Reads a byte at a time (except for strings), so a stream should be buffered
+  BinaryLexer(InputStream stream) {
+    this.stream = stream;
+    buf = new byte[1];
+  }
+
+  BinaryLexer(byte[] bytes, int offset, int length) {
+    stream = null;
+    buf = bytes;
+    pos = offset;
+    limit = offset + length;
+    base = -offset;
+  }
+
+  @Override
+  TokenType nextToken() throws IOException, JSONParseException {
+    tokenLine = 1;
+    tokenCol = col();
+    if (!started) {
+      for (byte b : HEADER) {
+        if (!more() || buf[pos++] != b) {
+          throw tokenError("Not binary JSON");
+        }
+      }
+      started = true;
+      tokenCol = col();
+    }
+    if (depth == 0) {
+      return value();
+    }
+    int top = depth - 1;
+    switch (phases[top]) {
+      case ITEM:
+        remaining[top]--;
+        if (objects[top]) {
+          phases[top] = COLON;
+          if (!more() || (buf[pos] != STRING && buf[pos] != REFERENCE)) {
+            throw error("Expected " + TokenType.STRING + " key");
+          }
+          return value();
+        }
+        phases[top] = AFTER;
+        return value();
+      case COLON:
+        phases[top] = VALUE;
+        return TokenType.COLON;
+      case VALUE:
+        phases[top] = AFTER;
+        return value();
+      default:
+        if (remaining[top] > 0) {
+          phases[top] = ITEM;
+          return TokenType.COMMA;
+        }
+        depth--;
+        return objects[top] ? TokenType.RIGHT_BRACE : TokenType.RIGHT_BRACKET;
+    }
+  }
+
+  private TokenType value() throws IOException, JSONParseException {
+    tokenCol = col();
+    if (!more()) {
+      throw error("Unexpected termination");
+    }
+    int tag = buf[pos++] & 0xFF;
+    if (tag >= SMALL) {
+      longValue = tag - SMALL_ZERO;
+      return TokenType.INTEGER;
+    }
+    switch (tag) {
+      case NULL:
+        return TokenType.NULL;
+      case FALSE:
+        return TokenType.FALSE;
+      case TRUE:
+        return TokenType.TRUE;
+      case INTEGER:
+        long zigzag = varint();
+        longValue = (zigzag >>> 1) ^ -(zigzag & 1);
+        return TokenType.INTEGER;
+      case FLOAT:
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+          bits = (bits << 8) | (next() & 0xFF);
+        }
+        doubleValue = Double.longBitsToDouble(bits);
+        if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+          throw tokenError("Invalid number '" + doubleValue + "'");
+        }
+        return TokenType.FLOAT;
+      case STRING:
+        literal(length());
+        return TokenType.STRING;
+      case REFERENCE:
+        long index = varint();
+        if (index >= references.size()) {
+          throw tokenError("Unknown string reference " + index);
+        }
+        string = references.get((int) index);
+        if (text.length < string.length()) {
+          text = new char[string.length()];
+        }
+        string.getChars(0, string.length(), text, 0);
+        textLen = string.length();
+        return TokenType.STRING;
+      case OBJECT:
+      case ARRAY:
+        push(tag == OBJECT, length());
+        return (tag == OBJECT) ? TokenType.LEFT_BRACE : TokenType.LEFT_BRACKET;
+      default:
+        throw tokenError("Unknown tag " + tag);
+    }
+  }
+
+  @Override
+  String stringValue() {
+    return string;
+  }
+
+  // References already share one instance per string
+  @Override
+  String keyValue(KeyCache keys) {
+    return string;
+  }
+
+  @Override
+  void release() {}
+
+  @Override
+  boolean atEnd() throws IOException {
+    return depth == 0 && started && !more();
+  }
+
+  @Override
+  char nextChar() throws JSONParseException {
+    throw error("Not text");
+  }
+
+  @Override
+  int line() {
+    return 1;
+  }
+
+  @Override
+  int col() {
+    return (int) Math.min(base + pos + 1, Integer.MAX_VALUE);
+  }
+
+  private void push(boolean object, int count) {
+    if (depth == phases.length) {
+      remaining = Arrays.copyOf(remaining, depth << 1);
+      objects = Arrays.copyOf(objects, depth << 1);
+      phases = Arrays.copyOf(phases, depth << 1);
+    }
+    remaining[depth] = count;
+    objects[depth] = object;
+    phases[depth] = (count == 0) ? AFTER : ITEM;
+    depth++;
+  }
+
+  private void literal(int length) throws IOException, JSONParseException {
+    String s;
+    if (length <= limit - pos) {
+      s = new String(buf, pos, length, StandardCharsets.UTF_8);
+      pos += length;
+    } else if (stream == null) {
+      // The length can't be trusted, so nothing is allocated for it
+      pos = limit;
+      throw error("Unexpected termination");
+    } else {
+      s = new String(read(length), StandardCharsets.UTF_8);
+    }
+    if (text.length < s.length()) {
+      text = new char[s.length()];
+    }
+    s.getChars(0, s.length(), text, 0);
+    textLen = s.length();
+    if (length <= MAX_REFERENCED_LENGTH && references.size() < MAX_REFERENCES) {
+      references.add(s);
+    }
+    string = s;
+  }
+
+  // The next length bytes of the stream, in an array that only grows as they arrive, so a corrupt
+  // length fails at the end of the input rather than by running out of memory
+  private byte[] read(int length) throws IOException, JSONParseException {
+    byte[] bytes = new byte[Math.min(length, 8192)];
+    int i = limit - pos;
+    System.arraycopy(buf, pos, bytes, 0, i);
+    pos = limit;
+    while (i < length) {
+      if (i == bytes.length) {
+        bytes = Arrays.copyOf(bytes, (int) Math.min(length, (long) i << 1));
+      }
+      int n = stream.read(bytes, i, bytes.length - i);
+      if (n < 0) {
+        throw error("Unexpected termination");
+      }
+      i += n;
+      base += n;
+    }
+    return bytes;
+  }
+
+  private int length() throws IOException, JSONParseException {
+    long length = varint();
+    if (length > Integer.MAX_VALUE - 8) {
+      throw tokenError("Length " + length + " is too large");
+    }
+    return (int) length;
+  }
+
+  private long varint() throws IOException, JSONParseException {
+    long v = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = next();
+      v |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return v;
+      }
+    }
+    throw tokenError("Invalid varint");
+  }
+
+  private byte next() throws IOException, JSONParseException {
+    if (!more()) {
+      throw error("Unexpected termination");
+    }
+    return buf[pos++];
+  }
+
+  private boolean more() throws IOException {
+    if (pos < limit) {
+      return true;
+    } else if (stream == null) {
+      return false;
+    }
+    base += limit;
+    int n = stream.read(buf, 0, buf.length);
+    pos = 0;
+    limit = Math.max(n, 0);
+    return n > 0;
+  }
+}
@@ -0,0 +1,206 @@
+package com.mathnerd28.jsonj;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Binary form of a JSONElement, read back by BinaryLexer. After the header "JB" and a version
+ * byte, each value starts with a tag byte:
+ *
+ *   0x00-0x02   null, false, true
+ *   0x03        integer, as a zigzag varint
+ *   0x04        float, as 8 big-endian bytes
+ *   0x05        string: varint byte count, then UTF-8
+ *   0x06        string: varint index of an earlier short string
+ *   0x07        object: varint member count, then a string and a value for each
+ *   0x08        array: varint element count, then the elements
+ *   0x80-0xFF   integer from -16 to 111, as the tag minus 0x90
+ *
+ * Strings of up to 64 bytes are numbered in order of first appearance (up to 65536 of them), and
+ * written as references after that.
+ */
+final class BinaryWriter {
+
+  static final byte[] HEADER = { 'J', 'B', 1 };
+
+  static final int NULL = 0x00;
+  static final int FALSE = 0x01;
+  static final int TRUE = 0x02;
+  static final int INTEGER = 0x03;
+  static final int FLOAT = 0x04;
+  static final int STRING = 0x05;
+  static final int REFERENCE = 0x06;
+  static final int OBJECT = 0x07;
+  static final int ARRAY = 0x08;
+  static final int SMALL = 0x80;
+  static final int SMALL_ZERO = 0x90;
+
+  static final int MAX_REFERENCED_LENGTH = 64;
+  static final int MAX_REFERENCES = 1 << 16;
+
+  private final OutputStream out;
+  private final byte[] buf = new byte[8192];
+  private int pos;
+
+  private final Map<String, Integer> references = new HashMap<>();
+
+  BinaryWriter(OutputStream out) {
+    this.out = out;
+  }
+
+  // Writes the header and the element, and flushes
+  void write(JSONElement element) throws IOException {
+    for (byte b : HEADER) {
+      put(b);
+    }
+    value(element);
+    out.write(buf, 0, pos);
+    pos = 0;
+    out.flush();
+  }
+
+  private void value(JSONElement value) throws IOException {
+    if (value instanceof Map) {
+      @SuppressWarnings("unchecked")
+      Map<String, JSONElement> obj = (Map<String, JSONElement>) value;
+      put(OBJECT);
+      varint(obj.size());
+      for (Map.Entry<String, JSONElement> entry : obj.entrySet()) {
+        string(entry.getKey());
+        value(entry.getValue());
+      }
+    } else if (value instanceof JSONLongArray) {
+      JSONLongArray array = (JSONLongArray) value;
+      put(ARRAY);
+      varint(array.size());
+      for (int i = 0; i < array.size(); i++) {
+        integer(array.getLong(i));
+      }
+    } else if (value instanceof JSONDoubleArray) {
+      JSONDoubleArray array = (JSONDoubleArray) value;
+      put(ARRAY);
+      varint(array.size());
+      for (int i = 0; i < array.size(); i++) {
+        if (array.isInteger(i)) {
+          integer((long) array.getDouble(i));
+        } else {
+          floating(array.getDouble(i));
+        }
+      }
+    } else if (value instanceof List) {
+      @SuppressWarnings("unchecked")
+      List<JSONElement> array = (List<JSONElement>) value;
+      put(ARRAY);
+      varint(array.size());
+      for (JSONElement element : array) {
+        value(element);
+      }
+    } else if (value instanceof JSONString) {
+      string(((JSONString) value).get());
+    } else if (value instanceof JSONInteger) {
+      integer(((JSONInteger) value).getAsLong());
+    } else if (value instanceof JSONFloat) {
+      floating(((JSONFloat) value).getAsDouble());
+    } else if (value instanceof JSONBoolean) {
+      put(((JSONBoolean) value).getAsBoolean() ? TRUE : FALSE);
+    } else if (value == JSONElement.NULL) {
+      put(NULL);
+    } else {
+      throw new IllegalArgumentException("Can't write " + value.getClass().getName());
+    }
+  }
+
+  private void integer(long l) throws IOException {
+    if (l >= -16 && l < 112) {
+      put((int) l + SMALL_ZERO);
+    } else {
+      put(INTEGER);
+      varint((l << 1) ^ (l >> 63));
+    }
+  }
+
+  private void floating(double d) throws IOException {
+    put(FLOAT);
+    long bits = Double.doubleToLongBits(d);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      put((int) (bits >>> shift));
+    }
+  }
+
+  private void string(String s) throws IOException {
+    Integer index = references.get(s);
+    if (index != null) {
+      put(REFERENCE);
+      varint(index);
+      return;
+    }
+    int length = utf8Length(s);
+    if (length <= MAX_REFERENCED_LENGTH && references.size() < MAX_REFERENCES) {
+      references.put(s, references.size());
+    }
+    put(STRING);
+    varint(length);
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        put(c);
+      } else if (c < 0x800) {
+        put(0xC0 | (c >> 6));
+        put(0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && isPaired(s, i)) {
+        int cp = Character.toCodePoint(c, s.charAt(++i));
+        put(0xF0 | (cp >> 18));
+        put(0x80 | ((cp >> 12) & 0x3F));
+        put(0x80 | ((cp >> 6) & 0x3F));
+        put(0x80 | (cp & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        // Unpaired, which UTF-8 can't hold; same as String.getBytes()
+        put('?');
+      } else {
+        put(0xE0 | (c >> 12));
+        put(0x80 | ((c >> 6) & 0x3F));
+        put(0x80 | (c & 0x3F));
+      }
+    }
+  }
+
+  private static int utf8Length(String s) {
+    int length = s.length();
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c >= 0x800 && Character.isHighSurrogate(c) && isPaired(s, i)) {
+        // 4 bytes for the pair
+        length += 2;
+        i++;
+      } else if (c >= 0x800 && !Character.isSurrogate(c)) {
+        length += 2;
+      } else if (c >= 0x80 && c < 0x800) {
+        length += 1;
+      }
+    }
+    return length;
+  }
+
+  private static boolean isPaired(String s, int i) {
+    return i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1));
+  }
+
+  private void varint(long v) throws IOException {
+    while ((v & ~0x7FL) != 0) {
+      put((int) (v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    put((int) v);
+  }
+
+  private void put(int b) throws IOException {
+    if (pos == buf.length) {
+      out.write(buf, 0, pos);
+      pos = 0;
+    }
+    buf[pos++] = (byte) b;
+  }
+}
@@ -0,0 +1,880 @@
+package com.mathnerd28.jsonj;
+
+import com.mathnerd28.jsonj.JSONLexer.TokenType;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+// Reads one value straight from the lexer into a Java type, without building JSONElements.
+// Binders are cached per class, and fields are set through MethodHandles resolved on first use.
+abstract class Binder {
+
+  private static final ClassValue<Binder> CACHE = new ClassValue<Binder>() {
+    @Override
+    protected Binder computeValue(Class<?> type) {
+      return create(type);
+    }
+  };
+
+  private static final Binder STRING = new StringBinder();
+  private static final Binder BOOLEAN = new BooleanBinder();
+
+  // JSON null becomes Java null, except for JSONElement (and Object), where it's JSONElement.NULL.
+  // The value is inside depth containers, which count towards the parser's maxDepth.
+  abstract Object read(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+    throws IOException, JSONParseException;
+
+  static Binder of(Class<?> type) {
+    return CACHE.get(type);
+  }
+
+  // Parameterized types aren't cached themselves, but their type arguments are
+  static Binder of(Type type) {
+    if (type instanceof Class) {
+      return of((Class<?>) type);
+    } else if (type instanceof ParameterizedType) {
+      ParameterizedType parameterized = (ParameterizedType) type;
+      Class<?> raw = (Class<?>) parameterized.getRawType();
+      Type[] args = parameterized.getActualTypeArguments();
+      if (Collection.class.isAssignableFrom(raw) || raw == Iterable.class) {
+        return collection(raw, args[0]);
+      } else if (Map.class.isAssignableFrom(raw)) {
+        return map(raw, args[0], args[1]);
+      }
+      return of(raw);
+    } else if (type instanceof GenericArrayType) {
+      Type component = ((GenericArrayType) type).getGenericComponentType();
+      return new ArrayBinder(raw(component), of(component));
+    } else if (type instanceof WildcardType) {
+      return of(((WildcardType) type).getUpperBounds()[0]);
+    }
+    throw new IllegalArgumentException("Cannot bind to type variable " + type);
+  }
+
+  private static Binder create(Class<?> type) {
+    if (type == String.class) {
+      return STRING;
+    } else if (type == long.class || type == Long.class) {
+      return new IntegralBinder(Long.MIN_VALUE, Long.MAX_VALUE);
+    } else if (type == int.class || type == Integer.class) {
+      return new IntegralBinder(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    } else if (type == short.class || type == Short.class) {
+      return new IntegralBinder(Short.MIN_VALUE, Short.MAX_VALUE);
+    } else if (type == byte.class || type == Byte.class) {
+      return new IntegralBinder(Byte.MIN_VALUE, Byte.MAX_VALUE);
+    } else if (type == double.class || type == Double.class) {
+      return new FloatingBinder(false);
+    } else if (type == float.class || type == Float.class) {
+      return new FloatingBinder(true);
+    } else if (type == boolean.class || type == Boolean.class) {
+      return BOOLEAN;
+    } else if (type == Object.class || JSONElement.class.isAssignableFrom(type)) {
+      return new ElementBinder(type);
+    } else if (type.isEnum()) {
+      return new EnumBinder(type);
+    } else if (type.isArray()) {
+      Class<?> component = type.getComponentType();
+      Binder element = of(component);
+      return component.isPrimitive()
+        ? primitiveArray(component)
+        : new ArrayBinder(component, element);
+    } else if (Collection.class.isAssignableFrom(type) || type == Iterable.class) {
+      return collection(type, Object.class);
+    } else if (Map.class.isAssignableFrom(type)) {
+      return map(type, String.class, Object.class);
+    } else if (type.isPrimitive() || type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+      throw new IllegalArgumentException("Cannot bind to " + type);
+    }
+    return new ObjectBinder(type);
+  }
+
+  private static Binder collection(Class<?> raw, Type element) {
+    if (raw.isAssignableFrom(ArrayList.class)) {
+      return new CollectionBinder(false, of(element));
+    } else if (raw.isAssignableFrom(LinkedHashSet.class)) {
+      return new CollectionBinder(true, of(element));
+    }
+    throw new IllegalArgumentException("Cannot bind to " + raw + ", only to List or Set");
+  }
+
+  private static Binder map(Class<?> raw, Type key, Type value) {
+    if (!raw.isAssignableFrom(LinkedHashMap.class)) {
+      throw new IllegalArgumentException("Cannot bind to " + raw + ", only to Map");
+    } else if (key != String.class && key != Object.class) {
+      throw new IllegalArgumentException("Cannot bind to map keys of " + key);
+    }
+    return new MapBinder(of(value));
+  }
+
+  private static Class<?> raw(Type type) {
+    if (type instanceof Class) {
+      return (Class<?>) type;
+    } else if (type instanceof ParameterizedType) {
+      return (Class<?>) ((ParameterizedType) type).getRawType();
+    } else if (type instanceof GenericArrayType) {
+      Type component = ((GenericArrayType) type).getGenericComponentType();
+      return Array.newInstance(raw(component), 0).getClass();
+    } else if (type instanceof WildcardType) {
+      return raw(((WildcardType) type).getUpperBounds()[0]);
+    }
+    throw new IllegalArgumentException("Cannot bind to type variable " + type);
+  }
+
+  static void expect(JSONLexer lexer, TokenType t, TokenType type) throws JSONParseException {
+    if (t != type) {
+      throw lexer.tokenError("Expected " + type + " instead of " + t);
+    }
+  }
+
+  static long integral(JSONLexer lexer, TokenType t, long min, long max)
+    throws JSONParseException {
+    expect(lexer, t, TokenType.INTEGER);
+    long value = lexer.longValue;
+    if (value < min || value > max) {
+      throw lexer.tokenError("Integer " + value + " out of range");
+    }
+    return value;
+  }
+
+  static double floating(JSONLexer lexer, TokenType t) throws JSONParseException {
+    if (t == TokenType.INTEGER) {
+      return lexer.longValue;
+    }
+    expect(lexer, t, TokenType.FLOAT);
+    return lexer.doubleValue;
+  }
+
+  static boolean bool(JSONLexer lexer, TokenType t) throws JSONParseException {
+    if (t != TokenType.TRUE && t != TokenType.FALSE) {
+      throw lexer.tokenError("Expected TRUE or FALSE instead of " + t);
+    }
+    return t == TokenType.TRUE;
+  }
+
+  // Checks the value that starts with t (inside depth containers), without building anything
+  static void skip(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+    throws IOException, JSONParseException {
+    // Whether each open container is an object, innermost last
+    boolean[] objects = null;
+    int open = 0;
+    for (;;) {
+      // t starts a value
+      switch (t) {
+        case STRING:
+        case INTEGER:
+        case FLOAT:
+        case TRUE:
+        case FALSE:
+        case NULL:
+          break;
+        case LEFT_BRACE:
+        case LEFT_BRACKET:
+          parser.checkDepth(lexer, depth + open);
+          boolean object = t == TokenType.LEFT_BRACE;
+          t = lexer.nextToken();
+          if (t == (object ? TokenType.RIGHT_BRACE : TokenType.RIGHT_BRACKET)) {
+            break;
+          }
+          if (objects == null) {
+            objects = new boolean[16];
+          } else if (open == objects.length) {
+            objects = Arrays.copyOf(objects, open << 1);
+          }
+          objects[open++] = object;
+          if (object) {
+            expect(lexer, t, TokenType.STRING);
+            expect(lexer, lexer.nextToken(), TokenType.COLON);
+            t = lexer.nextToken();
+          }
+          continue;
+        default:
+          throw lexer.tokenError("Unexpected " + t + " token");
+      }
+
+      // Close each container that ends after the value
+      for (;;) {
+        if (open == 0) {
+          return;
+        }
+        t = lexer.nextToken();
+        if (t == TokenType.COMMA) {
+          t = lexer.nextToken();
+          if (objects[open - 1]) {
+            expect(lexer, t, TokenType.STRING);
+            expect(lexer, lexer.nextToken(), TokenType.COLON);
+            t = lexer.nextToken();
+          }
+          break;
+        }
+        open--;
+        expect(lexer, t, objects[open] ? TokenType.RIGHT_BRACE : TokenType.RIGHT_BRACKET);
+      }
+    }
+  }
+
+  // Reads the elements (inside depth containers) of an array whose LEFT_BRACKET was already
+  // consumed
+  static void elements(
+    JSONParser parser,
+    JSONLexer lexer,
+    Binder binder,
+    Collection<Object> c,
+    int depth
+  ) throws IOException, JSONParseException {
+    TokenType t = lexer.nextToken();
+    if (t == TokenType.RIGHT_BRACKET) {
+      return;
+    }
+    for (;;) {
+      c.add(binder.read(parser, lexer, t, depth));
+      t = lexer.nextToken();
+      if (t != TokenType.COMMA) {
+        expect(lexer, t, TokenType.RIGHT_BRACKET);
+        return;
+      }
+      t = lexer.nextToken();
+    }
+  }
+
+  private static RuntimeException rethrow(Throwable e) {
+    if (e instanceof RuntimeException) {
+      return (RuntimeException) e;
+    } else if (e instanceof Error) {
+      throw (Error) e;
+    }
+    return new IllegalStateException(e);
+  }
+
+  private static final class StringBinder extends Binder {
+
+    @Override
+    Object read(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+      throws JSONParseException {
+      if (t == TokenType.NULL) {
+        return null;
+      }
+      expect(lexer, t, TokenType.STRING);
+      return lexer.stringValue();
+    }
+  }
+
+  private static final class IntegralBinder extends Binder {
+
+    private final long min;
+    private final long max;
+
+    IntegralBinder(long min, long max) {
+      this.min = min;
+      this.max = max;
+    }
+
+    @Override
+    Object read(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+      throws JSONParseException {
+      if (t == TokenType.NULL) {
+        return null;
+      }
+      long value = integral(lexer, t, min, max);
+      if (max == Long.MAX_VALUE) {
+        return value;
+      } else if (max == Integer.MAX_VALUE) {
+        return (int) value;
+      } else if (max == Short.MAX_VALUE) {
+        return (short) value;
+      }
+      return (byte) value;
+    }
+  }
+
+  private static final class FloatingBinder extends Binder {
+
+    private final boolean single;
+
+    FloatingBinder(boolean single) {
+      this.single = single;
+    }
+
+    @Override
+    Object read(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+      throws JSONParseException {
+      if (t == TokenType.NULL) {
+        return null;
+      }
+      double value = floating(lexer, t);
+      return single ? (Object) (float) value : (Object) value;
+    }
+  }
+
+  private static final class BooleanBinder extends Binder {
+
+    @Override
+    Object read(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+      throws JSONParseException {
+      return (t == TokenType.NULL) ? null : bool(lexer, t);
+    }
+  }
+
+  private static final class EnumBinder extends Binder {
+
+    private final Class<?> type;
+    private final Map<String, Object> constants;
+
+    EnumBinder(Class<?> type) {
+      this.type = type;
+      constants = new HashMap<>();
+      for (Object constant : type.getEnumConstants()) {
+        constants.put(((Enum<?>) constant).name(), constant);
+      }
+    }
+
+    @Override
+    Object read(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+      throws JSONParseException {
+      if (t == TokenType.NULL) {
+        return null;
+      }
+      expect(lexer, t, TokenType.STRING);
+      Object constant = constants.get(lexer.stringValue());
+      if (constant == null) {
+        String name = lexer.stringValue();
+        throw lexer.tokenError("Unknown constant '" + name + "' of " + type.getName());
+      }
+      return constant;
+    }
+  }
+
+  private static final class ElementBinder extends Binder {
+
+    private final Class<?> type;
+
+    ElementBinder(Class<?> type) {
+      this.type = type;
+    }
+
+    @Override
+    Object read(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+      throws IOException, JSONParseException {
+      if (t == TokenType.NULL && type != Object.class && type != JSONElement.class) {
+        return null;
+      }
+      // The token's position is gone once the value is read
+      int line = lexer.tokenLine;
+      int col = lexer.tokenCol;
+      JSONElement element = parser.getData(lexer, t, depth);
+      if (!type.isInstance(element)) {
+        String msg = "Expected " + type.getSimpleName() + " instead of " + t;
+        throw new JSONParseException(msg, line, col);
+      }
+      return element;
+    }
+  }
+
+  private static final class CollectionBinder extends Binder {
+
+    private final boolean set;
+    private final Binder element;
+
+    CollectionBinder(boolean set, Binder element) {
+      this.set = set;
+      this.element = element;
+    }
+
+    @Override
+    Object read(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+      throws IOException, JSONParseException {
+      if (t == TokenType.NULL) {
+        return null;
+      }
+      expect(lexer, t, TokenType.LEFT_BRACKET);
+      parser.checkDepth(lexer, depth);
+      Collection<Object> c = set ? new LinkedHashSet<>() : new ArrayList<>();
+      elements(parser, lexer, element, c, depth + 1);
+      return c;
+    }
+  }
+
+  private static Binder primitiveArray(Class<?> component) {
+    if (component == long.class) {
+      return new PrimitiveArrayBinder(component) {
+        @Override
+        Object newArray(int length) {
+          return new long[length];
+        }
+
+        @Override
+        void set(JSONLexer lexer, TokenType t, Object array, int i) throws JSONParseException {
+          ((long[]) array)[i] = integral(lexer, t, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+      };
+    } else if (component == int.class) {
+      return new PrimitiveArrayBinder(component) {
+        @Override
+        Object newArray(int length) {
+          return new int[length];
+        }
+
+        @Override
+        void set(JSONLexer lexer, TokenType t, Object array, int i) throws JSONParseException {
+          ((int[]) array)[i] = (int) integral(lexer, t, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+      };
+    } else if (component == short.class) {
+      return new PrimitiveArrayBinder(component) {
+        @Override
+        Object newArray(int length) {
+          return new short[length];
+        }
+
+        @Override
+        void set(JSONLexer lexer, TokenType t, Object array, int i) throws JSONParseException {
+          ((short[]) array)[i] = (short) integral(lexer, t, Short.MIN_VALUE, Short.MAX_VALUE);
+        }
+      };
+    } else if (component == byte.class) {
+      return new PrimitiveArrayBinder(component) {
+        @Override
+        Object newArray(int length) {
+          return new byte[length];
+        }
+
+        @Override
+        void set(JSONLexer lexer, TokenType t, Object array, int i) throws JSONParseException {
+          ((byte[]) array)[i] = (byte) integral(lexer, t, Byte.MIN_VALUE, Byte.MAX_VALUE);
+        }
+      };
+    } else if (component == double.class) {
+      return new PrimitiveArrayBinder(component) {
+        @Override
+        Object newArray(int length) {
+          return new double[length];
+        }
+
+        @Override
+        void set(JSONLexer lexer, TokenType t, Object array, int i) throws JSONParseException {
+          ((double[]) array)[i] = floating(lexer, t);
+        }
+      };
+    } else if (component == float.class) {
+      return new PrimitiveArrayBinder(component) {
+        @Override
+        Object newArray(int length) {
+          return new float[length];
+        }
+
+        @Override
+        void set(JSONLexer lexer, TokenType t, Object array, int i) throws JSONParseException {
+          ((float[]) array)[i] = (float) floating(lexer, t);
+        }
+      };
+    }
+    return new PrimitiveArrayBinder(component) {
+      @Override
+      Object newArray(int length) {
+        return new boolean[length];
+      }
+
+      @Override
+      void set(JSONLexer lexer, TokenType t, Object array, int i) throws JSONParseException {
+        ((boolean[]) array)[i] = bool(lexer, t);
+      }
+    };
+  }
+
+  // Arrays of a primitive type, filled in place so that no element is boxed
+  private abstract static class PrimitiveArrayBinder extends Binder {
+
+    private final Class<?> component;
+
+    PrimitiveArrayBinder(Class<?> component) {
+      this.component = component;
+    }
+
+    abstract Object newArray(int length);
+
+    abstract void set(JSONLexer lexer, TokenType t, Object array, int i)
+      throws JSONParseException;
+
+    @Override
+    Object read(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+      throws IOException, JSONParseException {
+      if (t == TokenType.NULL) {
+        return null;
+      }
+      expect(lexer, t, TokenType.LEFT_BRACKET);
+      parser.checkDepth(lexer, depth);
+      Object array = newArray(8);
+      int capacity = 8;
+      int size = 0;
+      t = lexer.nextToken();
+      if (t != TokenType.RIGHT_BRACKET) {
+        for (;;) {
+          if (t == TokenType.NULL) {
+            throw lexer.tokenError("Null element in array of " + component);
+          } else if (size == capacity) {
+            array = copy(array, size, capacity <<= 1);
+          }
+          set(lexer, t, array, size++);
+          t = lexer.nextToken();
+          if (t != TokenType.COMMA) {
+            expect(lexer, t, TokenType.RIGHT_BRACKET);
+            break;
+          }
+          t = lexer.nextToken();
+        }
+      }
+      return size == capacity ? array : copy(array, size, size);
+    }
+
+    private Object copy(Object array, int size, int length) {
+      Object copy = newArray(length);
+      System.arraycopy(array, 0, copy, 0, size);
+      return copy;
+    }
+  }
+
+  private static final class ArrayBinder extends Binder {
+
+    private final Class<?> type;
+    private final Binder element;
+
+    ArrayBinder(Class<?> component, Binder element) {
+      this.type = Array.newInstance(component, 0).getClass();
+      this.element = element;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Object read(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+      throws IOException, JSONParseException {
+      if (t == TokenType.NULL) {
+        return null;
+      }
+      expect(lexer, t, TokenType.LEFT_BRACKET);
+      parser.checkDepth(lexer, depth);
+      Object[] array = new Object[8];
+      int size = 0;
+      t = lexer.nextToken();
+      if (t != TokenType.RIGHT_BRACKET) {
+        for (;;) {
+          if (size == array.length) {
+            array = Arrays.copyOf(array, size << 1);
+          }
+          array[size++] = element.read(parser, lexer, t, depth + 1);
+          t = lexer.nextToken();
+          if (t != TokenType.COMMA) {
+            expect(lexer, t, TokenType.RIGHT_BRACKET);
+            break;
+          }
+          t = lexer.nextToken();
+        }
+      }
+      // One typed copy instead of a reflective store per element
+      return Arrays.copyOf(array, size, (Class<? extends Object[]>) type);
+    }
+  }
+
+  private static final class MapBinder extends Binder {
+
+    private final Binder value;
+
+    MapBinder(Binder value) {
+      this.value = value;
+    }
+
+    @Override
+    Object read(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+      throws IOException, JSONParseException {
+      if (t == TokenType.NULL) {
+        return null;
+      }
+      expect(lexer, t, TokenType.LEFT_BRACE);
+      parser.checkDepth(lexer, depth);
+      Map<String, Object> map = new LinkedHashMap<>();
+      t = lexer.nextToken();
+      if (t == TokenType.RIGHT_BRACE) {
+        return map;
+      }
+      for (;;) {
+        expect(lexer, t, TokenType.STRING);
+        String key = lexer.keyValue(parser.keys);
+        if (map.containsKey(key)) {
+          if (parser.allowDuplicateKeys) {
+            map.remove(key);
+          } else {
+            throw lexer.tokenError("Duplicate key '" + key + "'");
+          }
+        }
+        expect(lexer, lexer.nextToken(), TokenType.COLON);
+
+        map.put(key, value.read(parser, lexer, lexer.nextToken(), depth + 1));
+
+        t = lexer.nextToken();
+        if (t != TokenType.COMMA) {
+          expect(lexer, t, TokenType.RIGHT_BRACE);
+          return map;
+        }
+        t = lexer.nextToken();
+      }
+    }
+  }
+
+  // A class with a no-argument constructor. Every non-static, non-transient, non-final field
+  // (including inherited ones) is bound to the member of the same name; other members are skipped.
+  private static final class ObjectBinder extends Binder {
+
+    private final Class<?> type;
+    private final MethodHandle constructor;
+
+    // Open-addressed by key hash. Built on first read, since fields may refer back to this class.
+    private volatile Property[] table;
+    private int count;
+
+    ObjectBinder(Class<?> type) {
+      this.type = type;
+      try {
+        Constructor<?> c = type.getDeclaredConstructor();
+        c.setAccessible(true);
+        constructor = MethodHandles
+          .lookup()
+          .unreflectConstructor(c)
+          .asType(MethodType.methodType(Object.class));
+      } catch (NoSuchMethodException e) {
+        throw new IllegalArgumentException(type + " has no no-argument constructor", e);
+      } catch (IllegalAccessException | RuntimeException e) {
+        throw new IllegalArgumentException("Cannot access the constructor of " + type, e);
+      }
+    }
+
+    @Override
+    Object read(JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+      throws IOException, JSONParseException {
+      if (t == TokenType.NULL) {
+        return null;
+      }
+      expect(lexer, t, TokenType.LEFT_BRACE);
+      parser.checkDepth(lexer, depth);
+      Property[] table = table();
+      Object target;
+      try {
+        target = constructor.invokeExact();
+      } catch (Throwable e) {
+        throw rethrow(e);
+      }
+      boolean[] seen = parser.allowDuplicateKeys ? null : new boolean[count];
+
+      t = lexer.nextToken();
+      if (t == TokenType.RIGHT_BRACE) {
+        return target;
+      }
+      for (;;) {
+        expect(lexer, t, TokenType.STRING);
+        Property property = find(table, lexer.text, lexer.textLen);
+        if (property != null && seen != null) {
+          if (seen[property.index]) {
+            throw lexer.tokenError("Duplicate key '" + property.name + "'");
+          }
+          seen[property.index] = true;
+        }
+        expect(lexer, lexer.nextToken(), TokenType.COLON);
+
+        t = lexer.nextToken();
+        if (property == null) {
+          skip(parser, lexer, t, depth + 1);
+        } else {
+          property.read(target, parser, lexer, t, depth + 1);
+        }
+
+        t = lexer.nextToken();
+        if (t != TokenType.COMMA) {
+          expect(lexer, t, TokenType.RIGHT_BRACE);
+          return target;
+        }
+        t = lexer.nextToken();
+      }
+    }
+
+    private Property[] table() {
+      Property[] table = this.table;
+      if (table != null) {
+        return table;
+      }
+      List<Property> properties = new ArrayList<>();
+      for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          int modifiers = field.getModifiers();
+          if ((modifiers & (Modifier.STATIC | Modifier.TRANSIENT | Modifier.FINAL)) == 0) {
+            // A subclass's field hides the one it shadows
+            if (find(properties, field.getName()) == null) {
+              properties.add(new Property(field, properties.size()));
+            }
+          }
+        }
+      }
+      int size = 2;
+      while (size < properties.size() * 2) {
+        size <<= 1;
+      }
+      table = new Property[size];
+      for (Property property : properties) {
+        int i = property.hash & (size - 1);
+        while (table[i] != null) {
+          i = (i + 1) & (size - 1);
+        }
+        table[i] = property;
+      }
+      // Published by the volatile write
+      count = properties.size();
+      return this.table = table;
+    }
+
+    private static Property find(List<Property> properties, String name) {
+      for (Property property : properties) {
+        if (property.name.equals(name)) {
+          return property;
+        }
+      }
+      return null;
+    }
+
+    // Looks up the current key without creating a String for it
+    private static Property find(Property[] table, char[] chars, int length) {
+      // Same hash as String.hashCode()
+      int h = 0;
+      for (int i = 0; i < length; i++) {
+        h = 31 * h + chars[i];
+      }
+      int mask = table.length - 1;
+      for (int i = h & mask;; i = (i + 1) & mask) {
+        Property property = table[i];
+        if (property == null) {
+          return null;
+        } else if (property.hash == h && property.matches(chars, length)) {
+          return property;
+        }
+      }
+    }
+  }
+
+  private static final class Property {
+
+    // Primitive fields are set without boxing, through a setter of one of these types
+    private static final MethodType INTEGRAL = MethodType.methodType(
+      void.class,
+      Object.class,
+      long.class
+    );
+    private static final MethodType FLOATING = MethodType.methodType(
+      void.class,
+      Object.class,
+      double.class
+    );
+    private static final MethodType BOOLEAN = MethodType.methodType(
+      void.class,
+      Object.class,
+      boolean.class
+    );
+    private static final MethodType REFERENCE = MethodType.methodType(
+      void.class,
+      Object.class,
+      Object.class
+    );
+
+    final String name;
+    final int hash;
+    final int index;
+
+    private final Class<?> type;
+    private final MethodHandle setter;
+    private final Binder binder;
+    private final long min;
+    private final long max;
+
+    Property(Field field, int index) {
+      name = field.getName();
+      hash = name.hashCode();
+      this.index = index;
+      type = field.getType();
+      MethodHandle setter;
+      try {
+        field.setAccessible(true);
+        setter = MethodHandles.lookup().unreflectSetter(field);
+      } catch (IllegalAccessException | RuntimeException e) {
+        throw new IllegalArgumentException("Cannot access " + field, e);
+      }
+      if (type == long.class || type == int.class || type == short.class || type == byte.class) {
+        // Narrowing is safe, since values are range checked first
+        this.setter = MethodHandles.explicitCastArguments(setter, INTEGRAL);
+        binder = null;
+        IntegralBinder integral = (IntegralBinder) Binder.of(type);
+        min = integral.min;
+        max = integral.max;
+      } else if (type == double.class || type == float.class) {
+        this.setter = MethodHandles.explicitCastArguments(setter, FLOATING);
+        binder = null;
+        min = max = 0;
+      } else if (type == boolean.class) {
+        this.setter = setter.asType(BOOLEAN);
+        binder = null;
+        min = max = 0;
+      } else if (type.isPrimitive()) {
+        throw new IllegalArgumentException("Cannot bind to " + field);
+      } else {
+        this.setter = setter.asType(REFERENCE);
+        binder = Binder.of(field.getGenericType());
+        min = max = 0;
+      }
+    }
+
+    boolean matches(char[] chars, int length) {
+      if (name.length() != length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if (name.charAt(i) != chars[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    void read(Object target, JSONParser parser, JSONLexer lexer, TokenType t, int depth)
+      throws IOException, JSONParseException {
+      try {
+        if (binder != null) {
+          Object value = binder.read(parser, lexer, t, depth);
+          setter.invokeExact(target, value);
+        } else if (type == boolean.class) {
+          boolean value = bool(lexer, t);
+          setter.invokeExact(target, value);
+        } else if (type == double.class || type == float.class) {
+          double value = floating(lexer, t);
+          setter.invokeExact(target, value);
+        } else {
+          long value = integral(lexer, t, min, max);
+          setter.invokeExact(target, value);
+        }
+      } catch (IOException | JSONParseException e) {
+        throw e;
+      } catch (Throwable e) {
+        throw rethrow(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,349 @@
+package com.mathnerd28.jsonj;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+// Works on raw UTF-8; only string literals are decoded to chars
+final class ByteLexer extends JSONLexer {
+
+  private static final char REPLACEMENT = '\uFFFD';
+
+  private static final long QUOTES = Swar.broadcast('"');
+  private static final long BACKSLASHES = Swar.broadcast('\\');
+
+  private byte[] buf;
+  // The same array, for reading 8 bytes at a time
+  private ByteBuffer words;
+  private int pos;
+  private int limit;
+
+  // Owned buffer for streamed sources, kept across resets; buf may be the caller's array instead
+  private byte[] scratch;
+
+  // At most one of these is the source; neither means buf holds everything
+  private InputStream stream;
+  private ByteBuffer buffer;
+  private MappedFile file;
+
+  // Absolute offset of buf[0], used for columns
+  private long base;
+  private long lineStart;
+  private int line;
+
+  ByteLexer(InputStream stream) {
+    reset(stream);
+  }
+
+  ByteLexer(ByteBuffer buffer) {
+    reset(buffer);
+  }
+
+  ByteLexer(MappedFile file) throws IOException {
+    reset(file);
+  }
+
+  ByteLexer(byte[] bytes, int offset, int length) {
+    reset(bytes, offset, length);
+  }
+
+  // Part of a larger document, with columns counted from bytes[lineStart]
+  ByteLexer(byte[] bytes, int offset, int length, int line, int lineStart) {
+    reset(bytes, offset, length, line, lineStart);
+  }
+
+  // Unused until reset
+  ByteLexer() {}
+
+  // Starts over on a new source, keeping the buffers
+  ByteLexer reset(InputStream stream) {
+    clear(scratch(8192), 0, 0);
+    this.stream = stream;
+    return this;
+  }
+
+  ByteLexer reset(ByteBuffer buffer) {
+    if (buffer.hasArray()) {
+      int offset = buffer.arrayOffset() + buffer.position();
+      clear(buffer.array(), offset, offset + buffer.remaining());
+    } else {
+      clear(scratch(Math.min(buffer.remaining(), 8192)), 0, 0);
+      this.buffer = buffer.duplicate();
+    }
+    return this;
+  }
+
+  ByteLexer reset(MappedFile file) throws IOException {
+    clear(scratch((int) Math.min(Math.max(file.size(), 1), 1 << 16)), 0, 0);
+    this.file = file;
+    this.buffer = file.next();
+    return this;
+  }
+
+  ByteLexer reset(byte[] bytes, int offset, int length) {
+    clear(bytes, offset, offset + length);
+    return this;
+  }
+
+  ByteLexer reset(byte[] bytes, int offset, int length, int line, int lineStart) {
+    clear(bytes, offset, offset + length);
+    this.base = 0;
+    this.lineStart = lineStart;
+    this.line = line;
+    return this;
+  }
+
+  private void clear(byte[] buf, int pos, int limit) {
+    if (buf != this.buf) {
+      words = Swar.words(buf);
+    }
+    this.buf = buf;
+    this.pos = pos;
+    this.limit = limit;
+    stream = null;
+    buffer = null;
+    file = null;
+    base = -pos;
+    lineStart = 0;
+    line = 1;
+  }
+
+  private byte[] scratch(int capacity) {
+    if (scratch == null || scratch.length < capacity) {
+      scratch = new byte[capacity];
+    }
+    return scratch;
+  }
+
+  @Override
+  void release() {
+    buf = null;
+    words = null;
+    stream = null;
+    buffer = null;
+    file = null;
+  }
+
+  private boolean fill() throws IOException {
+    if (stream == null && buffer == null) {
+      // A byte[] is all there is; leave the position where it is
+      return false;
+    }
+    base += limit;
+    pos = 0;
+    limit = 0;
+    if (stream != null) {
+      int n;
+      do {
+        n = stream.read(buf, 0, buf.length);
+      } while (n == 0);
+      if (n > 0) {
+        limit = n;
+      }
+    } else if (buffer != null) {
+      if (!buffer.hasRemaining() && file != null && (buffer = file.next()) == null) {
+        return false;
+      }
+      int n = Math.min(buf.length, buffer.remaining());
+      buffer.get(buf, 0, n);
+      limit = n;
+    }
+    return limit > 0;
+  }
+
+  private int nextByte() throws IOException, JSONParseException {
+    if (pos == limit && !fill()) {
+      throw error("Unexpected termination");
+    }
+    return buf[pos++];
+  }
+
+  // Offset into the array, for lexers over a byte[]
+  int position() {
+    return pos;
+  }
+
+  @Override
+  boolean atEnd() throws IOException {
+    for (;;) {
+      if (pos == limit && !fill()) {
+        return true;
+      }
+      int c = buf[pos];
+      if (c == '\n') {
+        line++;
+        lineStart = base + ++pos;
+      } else if (c == ' ' || c == '\t' || c == '\r') {
+        pos++;
+      } else {
+        return false;
+      }
+    }
+  }
+
+  @Override
+  char nextChar() throws IOException, JSONParseException {
+    return (char) (nextByte() & 0xFF);
+  }
+
+  @Override
+  int line() {
+    return line;
+  }
+
+  @Override
+  int col() {
+    return (int) (base + pos - lineStart);
+  }
+
+  // Index of the first byte from i that a string can't copy as is: a quote, a backslash, a
+  // control character or a non-ASCII byte (or limit, if none is buffered)
+  private int plainRun(int i) {
+    for (; i <= limit - 8; i += 8) {
+      long word = words.getLong(i);
+      long mask =
+        // prettier-ignore
+        Swar.eq(word, QUOTES) |
+        Swar.eq(word, BACKSLASHES) |
+        Swar.below(word, 0x20) |
+        Swar.nonAscii(word);
+      if (mask != 0) {
+        return i + Swar.first(mask);
+      }
+    }
+    byte[] buf = this.buf;
+    for (; i < limit; i++) {
+      byte b = buf[i];
+      if (b == '"' || b == '\\' || b < 0x20) {
+        // Negative for non-ASCII
+        return i;
+      }
+    }
+    return i;
+  }
+
+  // Reads one continuation byte, or leaves it unread and returns -1 if it isn't one
+  private int continuation() throws IOException, JSONParseException {
+    int b = nextByte();
+    if ((b & 0xC0) != 0x80) {
+      pos--;
+      return -1;
+    }
+    return b & 0x3F;
+  }
+
+  private void decode(int b) throws IOException, JSONParseException {
+    int c1;
+    int c2;
+    int c3;
+    if ((b & 0xE0) == 0xC0) {
+      if ((c1 = continuation()) >= 0) {
+        int cp = ((b & 0x1F) << 6) | c1;
+        append(cp >= 0x80 ? (char) cp : REPLACEMENT);
+        return;
+      }
+    } else if ((b & 0xF0) == 0xE0) {
+      if ((c1 = continuation()) >= 0 && (c2 = continuation()) >= 0) {
+        int cp = ((b & 0x0F) << 12) | (c1 << 6) | c2;
+        append(cp >= 0x800 && !Character.isSurrogate((char) cp) ? (char) cp : REPLACEMENT);
+        return;
+      }
+    } else if ((b & 0xF8) == 0xF0) {
+      if (
+        // prettier-ignore
+        (c1 = continuation()) >= 0 &&
+        (c2 = continuation()) >= 0 &&
+        (c3 = continuation()) >= 0
+      ) {
+        int cp = ((b & 0x07) << 18) | (c1 << 12) | (c2 << 6) | c3;
+        if (cp >= Character.MIN_SUPPLEMENTARY_CODE_POINT && cp <= Character.MAX_CODE_POINT) {
+          append(Character.highSurrogate(cp));
+          append(Character.lowSurrogate(cp));
+        } else {
+          append(REPLACEMENT);
+        }
+        return;
+      }
+    }
+    append(REPLACEMENT);
+  }
+
+  @Override
+  TokenType nextToken() throws IOException, JSONParseException {
+    int c;
+    for (;;) {
+      c = nextByte();
+      if (c == '\n') {
+        line++;
+        lineStart = base + pos;
+      } else if (c != ' ' && c != '\t' && c != '\r') {
+        break;
+      }
+    }
+
+    tokenLine = line;
+    tokenCol = col();
+
+    switch (c) {
+      case ',':
+        return TokenType.COMMA;
+      case ':':
+        return TokenType.COLON;
+      case '{':
+        return TokenType.LEFT_BRACE;
+      case '[':
+        return TokenType.LEFT_BRACKET;
+      case '}':
+        return TokenType.RIGHT_BRACE;
+      case ']':
+        return TokenType.RIGHT_BRACKET;
+      case 't':
+        if (nextByte() == 'r' && nextByte() == 'u' && nextByte() == 'e') {
+          return TokenType.TRUE;
+        }
+        throw keywordError("true");
+      case 'f':
+        if (nextByte() == 'a' && nextByte() == 'l' && nextByte() == 's' && nextByte() == 'e') {
+          return TokenType.FALSE;
+        }
+        throw keywordError("false");
+      case 'n':
+        if (nextByte() == 'u' && nextByte() == 'l' && nextByte() == 'l') {
+          return TokenType.NULL;
+        }
+        throw keywordError("null");
+      case '"':
+        textLen = 0;
+        for (;;) {
+          int start = pos;
+          pos = plainRun(pos);
+          if (pos > start) {
+            appendAscii(buf, start, pos);
+          }
+          c = nextByte();
+          if (c < 0) {
+            decode(c);
+          } else if (c == '"') {
+            return TokenType.STRING;
+          } else if (c == '\\') {
+            append(unescape());
+          } else if (c < 0x0020) {
+            throw error("Unescaped control character");
+          } else {
+            append((char) c);
+          }
+        }
+      default:
+        if ((c >= '0' && c <= '9') || c == '-') {
+          // Number: grab all characters, then verify and convert in one pass
+          numLen = 0;
+          appendNum((char) c);
+          while ((pos < limit || fill()) && isNumberChar(buf[pos])) {
+            appendNum((char) buf[pos++]);
+          }
+          return number();
+        }
+        throw error("Unknown pattern");
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package com.mathnerd28.jsonj;
+
+import java.io.IOException;
+import java.io.Reader;
+
+final class CharLexer extends JSONLexer {
+
+  private char[] buf;
+  private int pos;
+  private int limit;
+
+  // Exactly one of these is the source
+  private Reader reader;
+  private String string;
+  private int stringPos;
+
+  // Absolute offset of buf[0], used for columns
+  private long base;
+  private long lineStart;
+  private int line;
+
+  CharLexer(Reader reader) {
+    reset(reader);
+  }
+
+  CharLexer(String string) {
+    reset(string);
+  }
+
+  // Unused until reset
+  CharLexer() {}
+
+  // Starts over on a new source, keeping the buffers
+  CharLexer reset(Reader reader) {
+    clear(4096);
+    this.reader = reader;
+    return this;
+  }
+
+  CharLexer reset(String string) {
+    clear(Math.min(string.length(), 4096));
+    this.string = string;
+    return this;
+  }
+
+  private void clear(int capacity) {
+    if (buf == null || buf.length < capacity) {
+      buf = new char[Math.max(capacity, 1)];
+    }
+    pos = 0;
+    limit = 0;
+    reader = null;
+    string = null;
+    stringPos = 0;
+    base = 0;
+    lineStart = 0;
+    line = 1;
+  }
+
+  @Override
+  void release() {
+    reader = null;
+    string = null;
+  }
+
+  private boolean fill() throws IOException {
+    base += limit;
+    pos = 0;
+    limit = 0;
+    if (reader != null) {
+      int n;
+      do {
+        n = reader.read(buf, 0, buf.length);
+      } while (n == 0);
+      if (n > 0) {
+        limit = n;
+      }
+    } else {
+      int n = Math.min(buf.length, string.length() - stringPos);
+      string.getChars(stringPos, stringPos + n, buf, 0);
+      stringPos += n;
+      limit = n;
+    }
+    return limit > 0;
+  }
+
+  @Override
+  char nextChar() throws IOException, JSONParseException {
+    if (pos == limit && !fill()) {
+      throw error("Unexpected termination");
+    }
+    return buf[pos++];
+  }
+
+  @Override
+  boolean atEnd() throws IOException {
+    for (;;) {
+      if (pos == limit && !fill()) {
+        return true;
+      }
+      char c = buf[pos];
+      if (c == '\n') {
+        line++;
+        lineStart = base + ++pos;
+      } else if (c == ' ' || c == '\t' || c == '\r') {
+        pos++;
+      } else {
+        return false;
+      }
+    }
+  }
+
+  @Override
+  int line() {
+    return line;
+  }
+
+  @Override
+  int col() {
+    return (int) (base + pos - lineStart);
+  }
+
+  @Override
+  TokenType nextToken() throws IOException, JSONParseException {
+    char c;
+    for (;;) {
+      c = nextChar();
+      if (c == '\n') {
+        line++;
+        lineStart = base + pos;
+      } else if (c != ' ' && c != '\t' && c != '\r') {
+        break;
+      }
+    }
+
+    tokenLine = line;
+    tokenCol = col();
+
+    switch (c) {
+      case ',':
+        return TokenType.COMMA;
+      case ':':
+        return TokenType.COLON;
+      case '{':
+        return TokenType.LEFT_BRACE;
+      case '[':
+        return TokenType.LEFT_BRACKET;
+      case '}':
+        return TokenType.RIGHT_BRACE;
+      case ']':
+        return TokenType.RIGHT_BRACKET;
+      case 't':
+        if (nextChar() == 'r' && nextChar() == 'u' && nextChar() == 'e') {
+          return TokenType.TRUE;
+        }
+        throw keywordError("true");
+      case 'f':
+        if (nextChar() == 'a' && nextChar() == 'l' && nextChar() == 's' && nextChar() == 'e') {
+          return TokenType.FALSE;
+        }
+        throw keywordError("false");
+      case 'n':
+        if (nextChar() == 'u' && nextChar() == 'l' && nextChar() == 'l') {
+          return TokenType.NULL;
+        }
+        throw keywordError("null");
+      case '"':
+        textLen = 0;
+        for (;;) {
+          // Copy everything up to the next quote, backslash or control character at once
+          int start = pos;
+          while (pos < limit && (c = buf[pos]) != '"' && c != '\\' && c >= 0x0020) {
+            pos++;
+          }
+          if (pos > start) {
+            append(buf, start, pos);
+          }
+          c = nextChar();
+          if (c == '"') {
+            return TokenType.STRING;
+          } else if (c == '\\') {
+            append(unescape());
+          } else if (c < 0x0020) {
+            throw error("Unescaped control character");
+          } else {
+            append(c);
+          }
+        }
+      default:
+        if ((c >= '0' && c <= '9') || c == '-') {
+          // Number: grab all characters, then verify and convert in one pass
+          numLen = 0;
+          appendNum(c);
+          while ((pos < limit || fill()) && isNumberChar(buf[pos])) {
+            appendNum(buf[pos++]);
+          }
+          return number();
+        }
+        throw error("Unknown pattern");
+    }
+  }
+}
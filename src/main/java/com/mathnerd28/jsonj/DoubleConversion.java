@@ -0,0 +1,157 @@
+package com.mathnerd28.jsonj;
+
+import java.math.BigInteger;
+
+// Decimal to binary conversion without going through a String: Clinger's fast path for small
+// exponents, then the Eisel-Lemire algorithm on 128-bit approximations of the powers of five
+final class DoubleConversion {
+
+  private static final double[] POWERS_OF_TEN = {
+    1e0,
+    1e1,
+    1e2,
+    1e3,
+    1e4,
+    1e5,
+    1e6,
+    1e7,
+    1e8,
+    1e9,
+    1e10,
+    1e11,
+    1e12,
+    1e13,
+    1e14,
+    1e15,
+    1e16,
+    1e17,
+    1e18,
+    1e19,
+    1e20,
+    1e21,
+    1e22,
+  };
+
+  static final int MIN_EXPONENT = -342;
+  static final int MAX_EXPONENT = 308;
+
+  // High and low halves of 5^q, normalized so bit 127 is set, for q in [MIN, MAX]
+  private static final long[] POWERS_OF_FIVE = new long[(MAX_EXPONENT - MIN_EXPONENT + 1) * 2];
+
+  static {
+    BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+    for (int q = MIN_EXPONENT; q <= MAX_EXPONENT; q++) {
+      BigInteger c;
+      if (q < 0) {
+        // Rounded up, then truncated to 128 bits
+        BigInteger power = BigInteger.valueOf(5).pow(-q);
+        int z = power.bitLength();
+        int b = (q >= -27) ? z + 127 : 2 * z + 128;
+        c = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+        c = c.shiftRight(Math.max(c.bitLength() - 128, 0));
+      } else {
+        // Truncated
+        c = BigInteger.valueOf(5).pow(q);
+        c = (c.bitLength() > 128) ? c.shiftRight(c.bitLength() - 128) : c.shiftLeft(128 - c.bitLength());
+      }
+      int i = (q - MIN_EXPONENT) * 2;
+      POWERS_OF_FIVE[i] = c.shiftRight(64).longValue();
+      POWERS_OF_FIVE[i + 1] = c.and(mask).longValue();
+    }
+  }
+
+  private DoubleConversion() {}
+
+  // mantissa * 10^exponent, with mantissa read as unsigned; NaN if it can't be decided here
+  static double toDouble(long mantissa, int exponent, boolean negative) {
+    if (mantissa == 0) {
+      return negative ? -0.0 : 0.0;
+    }
+    if (
+      // prettier-ignore
+      exponent >= -22 &&
+      exponent <= 22 &&
+      mantissa >= 0 &&
+      mantissa <= (1L << 53)
+    ) {
+      double d = mantissa;
+      d = (exponent < 0) ? d / POWERS_OF_TEN[-exponent] : d * POWERS_OF_TEN[exponent];
+      return negative ? -d : d;
+    }
+    if (exponent < MIN_EXPONENT) {
+      return negative ? -0.0 : 0.0;
+    } else if (exponent > MAX_EXPONENT) {
+      return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    }
+    return eiselLemire(mantissa, exponent, negative);
+  }
+
+  private static double eiselLemire(long mantissa, int exponent, boolean negative) {
+    int lz = Long.numberOfLeadingZeros(mantissa);
+    mantissa <<= lz;
+    long exp2 = ((217706L * exponent) >> 16) + 64 + 1023 - lz;
+
+    int i = (exponent - MIN_EXPONENT) * 2;
+    long hi = POWERS_OF_FIVE[i];
+    long lo = POWERS_OF_FIVE[i + 1];
+    long xHi = multiplyHigh(mantissa, hi);
+    long xLo = mantissa * hi;
+
+    // The truncated power of five may have been too coarse; widen with the low half
+    if ((xHi & 0x1FF) == 0x1FF && Long.compareUnsigned(xLo + mantissa, mantissa) < 0) {
+      long yHi = multiplyHigh(mantissa, lo);
+      long yLo = mantissa * lo;
+      long mergedHi = xHi;
+      long mergedLo = xLo + yHi;
+      if (Long.compareUnsigned(mergedLo, xLo) < 0) {
+        mergedHi++;
+      }
+      if (
+        // prettier-ignore
+        (mergedHi & 0x1FF) == 0x1FF &&
+        mergedLo == -1 &&
+        Long.compareUnsigned(yLo + mantissa, mantissa) < 0
+      ) {
+        return Double.NaN;
+      }
+      xHi = mergedHi;
+      xLo = mergedLo;
+    }
+
+    long msb = xHi >>> 63;
+    long bits = xHi >>> (msb + 9);
+    exp2 -= 1 ^ msb;
+
+    // Exactly halfway between two doubles
+    if (xLo == 0 && (xHi & 0x1FF) == 0 && (bits & 3) == 1) {
+      return Double.NaN;
+    }
+
+    bits += bits & 1;
+    bits >>>= 1;
+    if ((bits >>> 53) > 0) {
+      bits >>>= 1;
+      exp2++;
+    }
+    // Subnormal or infinite
+    if (Long.compareUnsigned(exp2 - 1, 0x7FF - 1) >= 0) {
+      return Double.NaN;
+    }
+    bits = (exp2 << 52) | (bits & 0x000FFFFFFFFFFFFFL);
+    if (negative) {
+      bits |= 0x8000000000000000L;
+    }
+    return Double.longBitsToDouble(bits);
+  }
+
+  // Upper half of the unsigned 128-bit product
+  static long multiplyHigh(long x, long y) {
+    long x0 = x & 0xFFFFFFFFL;
+    long x1 = x >>> 32;
+    long y0 = y & 0xFFFFFFFFL;
+    long y1 = y >>> 32;
+    long t = x1 * y0 + ((x0 * y0) >>> 32);
+    long w1 = x0 * y1 + (t & 0xFFFFFFFFL);
+    return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+  }
+}
@@ -0,0 +1,152 @@
+package com.mathnerd28.jsonj;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+// Immutable hash array mapped trie from String keys to values. Each node uses 5 bits of the hash,
+// and keeps a key and value pair per set bit, or a null key and a child node. Keys whose hashes
+// are all equal end up in a plain list of pairs. Updates copy one path and share the rest.
+final class Hamt {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  static final class Node implements Serializable {
+
+    private static final long serialVersionUID = -5418813813689092071L;
+
+    final int bitmap;
+    final Object[] slots;
+
+    Node(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+  }
+
+  private Hamt() {}
+
+  static int hash(String key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  static Object get(Node node, String key, int hash) {
+    for (int shift = 0; node != null; shift += BITS) {
+      if (shift >= 32) {
+        int i = find(node.slots, key);
+        return (i < 0) ? null : node.slots[i + 1];
+      }
+      int bit = 1 << ((hash >>> shift) & MASK);
+      if ((node.bitmap & bit) == 0) {
+        return null;
+      }
+      int i = 2 * Integer.bitCount(node.bitmap & (bit - 1));
+      Object k = node.slots[i];
+      if (k != null) {
+        return key.equals(k) ? node.slots[i + 1] : null;
+      }
+      node = (Node) node.slots[i + 1];
+    }
+    return null;
+  }
+
+  static Node put(Node node, String key, int hash, Object value) {
+    return put(node, key, hash, 0, value);
+  }
+
+  // The key must be present
+  static Node remove(Node node, String key, int hash) {
+    return remove(node, key, hash, 0);
+  }
+
+  private static Node put(Node node, String key, int hash, int shift, Object value) {
+    if (shift >= 32) {
+      if (node == null) {
+        return new Node(0, new Object[] { key, value });
+      }
+      int i = find(node.slots, key);
+      Object[] slots = (i < 0)
+        ? insert(node.slots, node.slots.length, key, value)
+        : replace(node.slots, i + 1, value);
+      return new Node(0, slots);
+    }
+    int bit = 1 << ((hash >>> shift) & MASK);
+    if (node == null) {
+      return new Node(bit, new Object[] { key, value });
+    }
+    int i = 2 * Integer.bitCount(node.bitmap & (bit - 1));
+    if ((node.bitmap & bit) == 0) {
+      return new Node(node.bitmap | bit, insert(node.slots, i, key, value));
+    }
+    Object k = node.slots[i];
+    if (k == null) {
+      Node child = put((Node) node.slots[i + 1], key, hash, shift + BITS, value);
+      return new Node(node.bitmap, replace(node.slots, i + 1, child));
+    } else if (key.equals(k)) {
+      return new Node(node.bitmap, replace(node.slots, i + 1, value));
+    }
+    // Two keys in one slot, so push both down a level
+    String other = (String) k;
+    Node child = put(null, other, hash(other), shift + BITS, node.slots[i + 1]);
+    child = put(child, key, hash, shift + BITS, value);
+    Object[] slots = replace(node.slots, i + 1, child);
+    slots[i] = null;
+    return new Node(node.bitmap, slots);
+  }
+
+  private static Node remove(Node node, String key, int hash, int shift) {
+    if (shift >= 32) {
+      int i = find(node.slots, key);
+      return (node.slots.length == 2) ? null : new Node(0, delete(node.slots, i));
+    }
+    int bit = 1 << ((hash >>> shift) & MASK);
+    int i = 2 * Integer.bitCount(node.bitmap & (bit - 1));
+    if (node.slots[i] == null) {
+      Node child = remove((Node) node.slots[i + 1], key, hash, shift + BITS);
+      if (child == null) {
+        return (node.bitmap == bit) ? null : new Node(node.bitmap ^ bit, delete(node.slots, i));
+      }
+      Object[] slots;
+      if (child.slots.length == 2 && child.slots[0] != null) {
+        // A lone pair moves back up
+        slots = replace(node.slots, i + 1, child.slots[1]);
+        slots[i] = child.slots[0];
+      } else {
+        slots = replace(node.slots, i + 1, child);
+      }
+      return new Node(node.bitmap, slots);
+    }
+    return (node.bitmap == bit) ? null : new Node(node.bitmap ^ bit, delete(node.slots, i));
+  }
+
+  private static int find(Object[] pairs, String key) {
+    for (int i = 0; i < pairs.length; i += 2) {
+      if (key.equals(pairs[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static Object[] insert(Object[] slots, int i, Object key, Object value) {
+    Object[] copy = new Object[slots.length + 2];
+    System.arraycopy(slots, 0, copy, 0, i);
+    copy[i] = key;
+    copy[i + 1] = value;
+    System.arraycopy(slots, i, copy, i + 2, slots.length - i);
+    return copy;
+  }
+
+  private static Object[] replace(Object[] slots, int i, Object value) {
+    Object[] copy = slots.clone();
+    copy[i] = value;
+    return copy;
+  }
+
+  private static Object[] delete(Object[] slots, int i) {
+    Object[] copy = Arrays.copyOf(slots, slots.length - 2);
+    System.arraycopy(slots, i + 2, copy, i, slots.length - i - 2);
+    return copy;
+  }
+}
@@ -2,7 +2,6 @@ package com.mathnerd28.jsonj;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
 
 public final class JSONArray extends ArrayList<JSONElement> implements JSONElement {
 
@@ -24,6 +23,20 @@ public final class JSONArray extends ArrayList<JSONElement> implements JSONEleme
     return (JSONArray) get(index);
   }
 
+  // Only with JSONParser.compactingObjects()
+  public JSONCompactObject getCompactObject(int index) {
+    return (JSONCompactObject) get(index);
+  }
+
+  // Only with JSONParser.compactingNumbers()
+  public JSONLongArray getLongArray(int index) {
+    return (JSONLongArray) get(index);
+  }
+
+  public JSONDoubleArray getDoubleArray(int index) {
+    return (JSONDoubleArray) get(index);
+  }
+
   public String getString(int index) {
     return ((JSONString) get(index)).get();
   }
@@ -91,57 +104,11 @@ public final class JSONArray extends ArrayList<JSONElement> implements JSONEleme
 
   @Override
   public String toJSON(boolean compact) {
-    if (isEmpty()) {
-      return "[]";
-    }
-    Iterator<JSONElement> iterator = iterator();
-    StringBuilder builder = new StringBuilder();
-    builder.append('[');
-    for (;;) {
-      JSONElement item = iterator.next();
-      builder.append((item == this) ? "(this array)" : item.toJSON(compact));
-      if (!iterator.hasNext()) {
-        return builder.append(']').toString();
-      }
-      builder.append(',');
-      if (!compact) {
-        builder.append(' ');
-      }
-    }
+    return JSONWriter.toJSON(this, compact);
   }
 
   public String toJSONFormatted() {
-    return toJSONFormatted("  ");
-  }
-
-  String toJSONFormatted(String indentation) {
-    if (isEmpty()) {
-      return "[]";
-    }
-    Iterator<JSONElement> iterator = iterator();
-    StringBuilder builder = new StringBuilder();
-    builder.append("[\n");
-    for (;;) {
-      builder.append(indentation);
-      JSONElement item = iterator.next();
-      if (item == this) {
-        builder.append("(this array)");
-      } else if (item instanceof JSONObject) {
-        builder.append(((JSONObject) item).toJSONFormatted(indentation + "  "));
-      } else if (item instanceof JSONArray) {
-        builder.append(((JSONArray) item).toJSONFormatted(indentation + "  "));
-      } else {
-        builder.append(item.toJSON());
-      }
-      if (!iterator.hasNext()) {
-        builder.append('\n');
-        if (indentation.length() > 2) {
-          builder.append(indentation.substring(0, indentation.length() - 2));
-        }
-        return builder.append(']').toString();
-      }
-      builder.append(",\n");
-    }
+    return JSONWriter.toJSONFormatted(this);
   }
 
   @Override
@@ -0,0 +1,341 @@
+package com.mathnerd28.jsonj;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+// An ordered map kept as parallel key and value arrays, from JSONParser.compactingObjects(). Small
+// objects are searched linearly; larger ones add an open-addressed table of positions. Parsed
+// objects with the same keys share them (and the table), and only hold their own values.
+public final class JSONCompactObject
+  extends AbstractMap<String, JSONElement>
+  implements JSONElement {
+
+  private static final long serialVersionUID = 5730215338467351840L;
+
+  // Up to this many keys, a scan beats hashing
+  static final int LINEAR = 8;
+
+  private String[] keys;
+  private JSONElement[] values;
+  private int size;
+
+  // Position + 1 of each key, 0 when empty; at most half full. Rebuilt on demand.
+  private transient int[] index;
+
+  // Set while keys (and index) belong to a shared Shape, and must be copied before a change
+  private Shape shape;
+
+  public JSONCompactObject() {
+    this(4);
+  }
+
+  public JSONCompactObject(int capacity) {
+    keys = new String[capacity];
+    values = new JSONElement[capacity];
+    size = 0;
+  }
+
+  public JSONCompactObject(Map<String, JSONElement> map) {
+    this(map.size());
+    putAll(map);
+  }
+
+  public JSONCompactObject getObject(String key) {
+    return (JSONCompactObject) get(key);
+  }
+
+  public JSONArray getArray(String key) {
+    return (JSONArray) get(key);
+  }
+
+  // Only with JSONParser.compactingNumbers()
+  public JSONLongArray getLongArray(String key) {
+    return (JSONLongArray) get(key);
+  }
+
+  public JSONDoubleArray getDoubleArray(String key) {
+    return (JSONDoubleArray) get(key);
+  }
+
+  public String getString(String key) {
+    return ((JSONString) get(key)).get();
+  }
+
+  public boolean getBoolean(String key) {
+    return ((JSONBoolean) get(key)).getAsBoolean();
+  }
+
+  public long getLong(String key) {
+    return ((JSONInteger) get(key)).getAsLong();
+  }
+
+  public int getInt(String key) {
+    return ((JSONInteger) get(key)).getAsInt();
+  }
+
+  public double getDouble(String key) {
+    JSONElement val = get(key);
+    if (val instanceof JSONFloat) {
+      return ((JSONFloat) val).getAsDouble();
+    } else {
+      return ((JSONInteger) val).getAsLong();
+    }
+  }
+
+  public JSONElement putString(String key, String value) {
+    return put(key, new JSONString(value));
+  }
+
+  public JSONElement putBoolean(String key, boolean value) {
+    return put(key, JSONBoolean.valueOf(value));
+  }
+
+  public JSONElement putLong(String key, long value) {
+    return put(key, new JSONInteger(value));
+  }
+
+  public JSONElement putInteger(String key, int value) {
+    return put(key, new JSONInteger(value));
+  }
+
+  public JSONElement putDouble(String key, double value) {
+    return put(key, new JSONFloat(value));
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public JSONElement get(Object key) {
+    int i = indexOf(key);
+    return (i < 0) ? null : values[i];
+  }
+
+  @Override
+  public JSONElement put(String key, JSONElement value) {
+    int i = indexOf(Objects.requireNonNull(key));
+    if (i >= 0) {
+      JSONElement old = values[i];
+      values[i] = value;
+      return old;
+    }
+    append(key, value);
+    return null;
+  }
+
+  @Override
+  public JSONElement remove(Object key) {
+    int i = indexOf(key);
+    if (i < 0) {
+      return null;
+    }
+    JSONElement old = values[i];
+    removeAt(i);
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    if (shape != null) {
+      keys = new String[4];
+      values = new JSONElement[4];
+      shape = null;
+    } else {
+      Arrays.fill(keys, 0, size, null);
+      Arrays.fill(values, 0, size, null);
+    }
+    size = 0;
+    index = null;
+  }
+
+  @Override
+  public Set<Entry<String, JSONElement>> entrySet() {
+    return new AbstractSet<Entry<String, JSONElement>>() {
+      @Override
+      public Iterator<Entry<String, JSONElement>> iterator() {
+        return new Entries();
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public void clear() {
+        JSONCompactObject.this.clear();
+      }
+    };
+  }
+
+  @Override
+  public String toJSON(boolean compact) {
+    return JSONWriter.toJSON(this, compact);
+  }
+
+  public String toJSONFormatted() {
+    return JSONWriter.toJSONFormatted(this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return (this == o) || (o != null && o.getClass() == this.getClass() && super.equals(o));
+  }
+
+  // Appends a key known to be absent
+  void append(String key, JSONElement value) {
+    if (shape != null) {
+      unshare();
+    }
+    if (size == keys.length) {
+      int capacity = Math.max(size + (size >> 1), 4);
+      keys = Arrays.copyOf(keys, capacity);
+      values = Arrays.copyOf(values, capacity);
+    }
+    keys[size] = key;
+    values[size] = value;
+    size++;
+    if (size > LINEAR) {
+      if (index == null || size << 1 > index.length) {
+        index = buildIndex(keys, size);
+      } else {
+        insert(index, key, size);
+      }
+    }
+  }
+
+  // Swaps the keys for the cached Shape with the same layout, and drops unused capacity
+  void share(ShapeCache shapes) {
+    shape = shapes.intern(keys, size);
+    keys = shape.keys;
+    index = shape.index;
+    if (size < values.length) {
+      values = Arrays.copyOf(values, size);
+    }
+  }
+
+  Shape shape() {
+    return shape;
+  }
+
+  private void unshare() {
+    keys = keys.clone();
+    index = null;
+    shape = null;
+  }
+
+  private int indexOf(Object key) {
+    if (key == null) {
+      return -1;
+    } else if (size <= LINEAR) {
+      for (int i = 0; i < size; i++) {
+        // Parsed keys are often interned, so try identity first
+        if (keys[i] == key || keys[i].equals(key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    int[] table = index;
+    if (table == null) {
+      table = index = (shape != null) ? shape.index : buildIndex(keys, size);
+    }
+    int mask = table.length - 1;
+    for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+      int p = table[slot];
+      if (p == 0) {
+        return -1;
+      } else if (keys[p - 1] == key || keys[p - 1].equals(key)) {
+        return p - 1;
+      }
+    }
+  }
+
+  private void removeAt(int i) {
+    if (shape != null) {
+      unshare();
+    }
+    System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+    System.arraycopy(values, i + 1, values, i, size - i - 1);
+    size--;
+    keys[size] = null;
+    values[size] = null;
+    // Positions after i have all moved
+    index = null;
+  }
+
+  static int[] buildIndex(String[] keys, int size) {
+    int capacity = Integer.highestOneBit(Math.max(size, LINEAR) << 2);
+    int[] table = new int[capacity];
+    for (int i = 0; i < size; i++) {
+      insert(table, keys[i], i + 1);
+    }
+    return table;
+  }
+
+  private static void insert(int[] table, String key, int position) {
+    int mask = table.length - 1;
+    int slot = hash(key) & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = position;
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private final class Entries implements Iterator<Entry<String, JSONElement>> {
+
+    private int next = 0;
+    private int last = -1;
+
+    @Override
+    public boolean hasNext() {
+      return next < size;
+    }
+
+    @Override
+    public Entry<String, JSONElement> next() {
+      if (next >= size) {
+        throw new NoSuchElementException();
+      }
+      last = next++;
+      int i = last;
+      return new SimpleEntry<String, JSONElement>(keys[i], values[i]) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public JSONElement setValue(JSONElement value) {
+          values[i] = value;
+          return super.setValue(value);
+        }
+      };
+    }
+
+    @Override
+    public void remove() {
+      if (last < 0) {
+        throw new IllegalStateException();
+      }
+      removeAt(last);
+      next = last;
+      last = -1;
+    }
+  }
+}
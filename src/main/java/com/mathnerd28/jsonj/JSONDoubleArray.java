@@ -0,0 +1,213 @@
+package com.mathnerd28.jsonj;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.RandomAccess;
+import java.util.stream.DoubleStream;
+
+// An array of floats kept as a double[], from JSONParser.compactingNumbers(). Integers parsed
+// alongside floats are stored as doubles too, but remembered as integers: get() returns them as
+// JSONIntegers and they are written without a fraction, just as in a JSONArray. get() creates
+// elements on each call; getDouble() and doubleStream() don't box.
+public final class JSONDoubleArray
+  extends AbstractList<JSONElement>
+  implements JSONElement, RandomAccess {
+
+  private static final long serialVersionUID = -3419563400873617212L;
+
+  private double[] values;
+  private int size;
+  // Which values are integers; null if none are
+  private BitSet integers;
+
+  public JSONDoubleArray() {
+    values = new double[10];
+    size = 0;
+  }
+
+  public JSONDoubleArray(double... values) {
+    for (double value : values) {
+      check(value);
+    }
+    this.values = values.clone();
+    size = values.length;
+  }
+
+  // Takes ownership of the array, whose values must be finite, and of the integers, if any
+  JSONDoubleArray(double[] values, int size, BitSet integers) {
+    this.values = values;
+    this.size = size;
+    this.integers = (integers == null || integers.isEmpty()) ? null : integers;
+  }
+
+  public double getDouble(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  public boolean isInteger(int index) {
+    checkIndex(index);
+    return integer(index);
+  }
+
+  public double setDouble(int index, double value) {
+    checkIndex(index);
+    check(value);
+    double old = values[index];
+    values[index] = value;
+    mark(index, false);
+    return old;
+  }
+
+  public void addDouble(double value) {
+    addDouble(size, value);
+  }
+
+  public void addDouble(int index, double value) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    check(value);
+    if (size == values.length) {
+      values = Arrays.copyOf(values, Math.max(size << 1, 10));
+    }
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = value;
+    if (integers != null) {
+      for (int i = size - 1; i >= index; i--) {
+        mark(i + 1, integers.get(i));
+      }
+      integers.clear(index);
+    }
+    size++;
+    modCount++;
+  }
+
+  public double[] toDoubleArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+  public DoubleStream doubleStream() {
+    return Arrays.stream(values, 0, size);
+  }
+
+  @Override
+  public JSONElement get(int index) {
+    double value = getDouble(index);
+    return integer(index) ? new JSONInteger((long) value) : new JSONFloat(value);
+  }
+
+  // Takes a JSONFloat, or a JSONInteger that a double holds exactly
+  @Override
+  public JSONElement set(int index, JSONElement element) {
+    double value = value(element);
+    JSONElement old = get(index);
+    setDouble(index, value);
+    mark(index, element instanceof JSONInteger);
+    return old;
+  }
+
+  @Override
+  public void add(int index, JSONElement element) {
+    addDouble(index, value(element));
+    mark(index, element instanceof JSONInteger);
+  }
+
+  @Override
+  public JSONElement remove(int index) {
+    JSONElement old = get(index);
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    if (integers != null) {
+      for (int i = index; i < size - 1; i++) {
+        mark(i, integers.get(i + 1));
+      }
+      integers.clear(size - 1);
+    }
+    size--;
+    modCount++;
+    return old;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String toJSON(boolean compact) {
+    return JSONWriter.toJSON(this, compact);
+  }
+
+  public String toJSONFormatted() {
+    return JSONWriter.toJSONFormatted(this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    } else if (o == null || o.getClass() != this.getClass()) {
+      return false;
+    }
+    JSONDoubleArray other = (JSONDoubleArray) o;
+    if (other.size != size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      // Same comparison as JSONFloat.equals(), and a JSONInteger never equals a JSONFloat
+      if (values[i] != other.values[i] || integer(i) != other.integer(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    // Same as List.hashCode(), since JSONFloat hashes like Double and JSONInteger like Long
+    int h = 1;
+    for (int i = 0; i < size; i++) {
+      h = 31 * h + (integer(i) ? Long.hashCode((long) values[i]) : Double.hashCode(values[i]));
+    }
+    return h;
+  }
+
+  private boolean integer(int index) {
+    return integers != null && integers.get(index);
+  }
+
+  private void mark(int index, boolean integer) {
+    if (integer) {
+      if (integers == null) {
+        integers = new BitSet();
+      }
+      integers.set(index);
+    } else if (integers != null) {
+      integers.clear(index);
+    }
+  }
+
+  private static double value(JSONElement element) {
+    if (element instanceof JSONInteger) {
+      long value = ((JSONInteger) element).getAsLong();
+      if (!JSONParser.isExact(value)) {
+        throw new IllegalArgumentException(value + " isn't exact as a double");
+      }
+      return value;
+    }
+    return ((JSONFloat) element).getAsDouble();
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  private static void check(double value) {
+    if (!Double.isFinite(value)) {
+      throw new IllegalArgumentException("JSON prohibits infinite numbers");
+    }
+  }
+}
@@ -1,5 +1,8 @@
 package com.mathnerd28.jsonj;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 
 public interface JSONElement extends Serializable {
@@ -27,4 +30,35 @@ public interface JSONElement extends Serializable {
   default String toJSON() {
     return toJSON(false);
   }
+
+  default void writeTo(Appendable out) throws IOException {
+    writeTo(out, false);
+  }
+
+  default void writeTo(Appendable out, boolean compact) throws IOException {
+    JSONWriter writer = new JSONWriter(out);
+    (compact ? writer.compact() : writer.spaced()).write(this);
+  }
+
+  // UTF-8 bytes, spaced like writeTo(). Not an overload of writeTo(), since a PrintStream is both
+  // an OutputStream and an Appendable.
+  default void writeUtf8To(OutputStream out) throws IOException {
+    writeUtf8To(out, false);
+  }
+
+  default void writeUtf8To(OutputStream out, boolean compact) throws IOException {
+    // Flushes, but doesn't close
+    JSONWriter writer = new JSONWriter(out);
+    (compact ? writer.compact() : writer.spaced()).write(this).flush();
+  }
+
+  // A compact binary form, with varint numbers and repeated strings written once; flushes, but
+  // doesn't close
+  default void writeBinary(OutputStream out) throws IOException {
+    new BinaryWriter(out).write(this);
+  }
+
+  static JSONElement readBinary(InputStream in) throws IOException, JSONParseException {
+    return new JSONParser().parseBinary(in);
+  }
 }
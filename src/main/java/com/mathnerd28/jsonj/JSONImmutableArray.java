@@ -0,0 +1,123 @@
+package com.mathnerd28.jsonj;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+// An immutable array, safe to share between threads. with() and plus() return a new array that
+// shares all but one path of the old one's structure; without() copies everything after the index.
+public final class JSONImmutableArray
+  extends AbstractList<JSONElement>
+  implements JSONElement, RandomAccess {
+
+  private static final long serialVersionUID = 4420965917318574025L;
+
+  private static final JSONImmutableArray EMPTY = new JSONImmutableArray(PersistentVector.EMPTY);
+
+  private final PersistentVector elements;
+
+  private JSONImmutableArray(PersistentVector elements) {
+    this.elements = elements;
+  }
+
+  public static JSONImmutableArray empty() {
+    return EMPTY;
+  }
+
+  // A deep copy; nested objects and arrays become immutable too
+  public static JSONImmutableArray copyOf(Collection<? extends JSONElement> c) {
+    if (c instanceof JSONImmutableArray) {
+      return (JSONImmutableArray) c;
+    }
+    Object[] items = c.toArray();
+    for (int i = 0; i < items.length; i++) {
+      items[i] = JSONImmutableObject.freeze((JSONElement) items[i]);
+    }
+    return new JSONImmutableArray(PersistentVector.of(items, items.length));
+  }
+
+  public JSONImmutableArray with(int index, JSONElement element) {
+    checkIndex(index);
+    return new JSONImmutableArray(elements.set(index, JSONImmutableObject.freeze(element)));
+  }
+
+  public JSONImmutableArray plus(JSONElement element) {
+    return new JSONImmutableArray(elements.append(JSONImmutableObject.freeze(element)));
+  }
+
+  public JSONImmutableArray without(int index) {
+    checkIndex(index);
+    Object[] items = elements.toArray();
+    System.arraycopy(items, index + 1, items, index, items.length - index - 1);
+    return new JSONImmutableArray(PersistentVector.of(items, items.length - 1));
+  }
+
+  public JSONImmutableObject getObject(int index) {
+    return (JSONImmutableObject) get(index);
+  }
+
+  public JSONImmutableArray getArray(int index) {
+    return (JSONImmutableArray) get(index);
+  }
+
+  public String getString(int index) {
+    return ((JSONString) get(index)).get();
+  }
+
+  public boolean getBoolean(int index) {
+    return ((JSONBoolean) get(index)).getAsBoolean();
+  }
+
+  public long getLong(int index) {
+    return ((JSONInteger) get(index)).getAsLong();
+  }
+
+  public int getInt(int index) {
+    return ((JSONInteger) get(index)).getAsInt();
+  }
+
+  public double getDouble(int index) {
+    JSONElement val = get(index);
+    if (val instanceof JSONFloat) {
+      return ((JSONFloat) val).getAsDouble();
+    } else {
+      return ((JSONInteger) val).getAsLong();
+    }
+  }
+
+  @Override
+  public JSONElement get(int index) {
+    checkIndex(index);
+    return (JSONElement) elements.get(index);
+  }
+
+  @Override
+  public int size() {
+    return elements.size;
+  }
+
+  @Override
+  public Object[] toArray() {
+    return elements.toArray();
+  }
+
+  @Override
+  public String toJSON(boolean compact) {
+    return JSONWriter.toJSON(this, compact);
+  }
+
+  public String toJSONFormatted() {
+    return JSONWriter.toJSONFormatted(this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return (this == o) || (o != null && o.getClass() == this.getClass() && super.equals(o));
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= elements.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + elements.size);
+    }
+  }
+}
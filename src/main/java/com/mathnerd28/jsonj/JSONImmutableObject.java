@@ -0,0 +1,251 @@
+package com.mathnerd28.jsonj;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+// An immutable object, safe to share between threads. with() and without() return a new object
+// that shares all but one path of the old one's structure, so small edits to a large document are
+// cheap. Keys stay in insertion order.
+public final class JSONImmutableObject
+  extends AbstractMap<String, JSONElement>
+  implements JSONElement {
+
+  private static final long serialVersionUID = -4880740271549014611L;
+
+  private static final JSONImmutableObject EMPTY = new JSONImmutableObject(
+    null,
+    PersistentVector.EMPTY,
+    0
+  );
+
+  // Key to Entry
+  private final Hamt.Node root;
+
+  // Entries in insertion order, with nulls left by without()
+  private final PersistentVector entries;
+  private final int size;
+
+  private JSONImmutableObject(Hamt.Node root, PersistentVector entries, int size) {
+    this.root = root;
+    this.entries = entries;
+    this.size = size;
+  }
+
+  public static JSONImmutableObject empty() {
+    return EMPTY;
+  }
+
+  // A deep copy; nested objects and arrays become immutable too
+  public static JSONImmutableObject copyOf(Map<String, ? extends JSONElement> map) {
+    if (map instanceof JSONImmutableObject) {
+      return (JSONImmutableObject) map;
+    }
+    Object[] items = new Object[map.size()];
+    Hamt.Node root = null;
+    int size = 0;
+    for (Entry<String, ? extends JSONElement> entry : map.entrySet()) {
+      String key = Objects.requireNonNull(entry.getKey());
+      Item item = new Item(key, freeze(entry.getValue()), size);
+      root = Hamt.put(root, key, Hamt.hash(key), item);
+      items[size++] = item;
+    }
+    return new JSONImmutableObject(root, PersistentVector.of(items, size), size);
+  }
+
+  public JSONImmutableObject with(String key, JSONElement value) {
+    int hash = Hamt.hash(Objects.requireNonNull(key));
+    Item old = (Item) Hamt.get(root, key, hash);
+    value = freeze(value);
+    if (old == null) {
+      Item item = new Item(key, value, entries.size);
+      return new JSONImmutableObject(
+        Hamt.put(root, key, hash, item),
+        entries.append(item),
+        size + 1
+      );
+    } else if (old.getValue() == value) {
+      return this;
+    }
+    Item item = new Item(key, value, old.position);
+    return new JSONImmutableObject(
+      Hamt.put(root, key, hash, item),
+      entries.set(old.position, item),
+      size
+    );
+  }
+
+  public JSONImmutableObject without(Object key) {
+    if (!(key instanceof String)) {
+      return this;
+    }
+    int hash = Hamt.hash((String) key);
+    Item old = (Item) Hamt.get(root, (String) key, hash);
+    if (old == null) {
+      return this;
+    } else if (size == 1) {
+      return EMPTY;
+    }
+    JSONImmutableObject obj = new JSONImmutableObject(
+      Hamt.remove(root, (String) key, hash),
+      entries.set(old.position, null),
+      size - 1
+    );
+    // Once removed entries outnumber live ones, it's time to renumber
+    return (obj.entries.size > 2 * obj.size + 32) ? obj.renumber() : obj;
+  }
+
+  // The same entries without the gaps; not copyOf(), which returns an immutable object as it is
+  private JSONImmutableObject renumber() {
+    Object[] items = new Object[size];
+    Hamt.Node root = null;
+    int n = 0;
+    for (Entry<String, JSONElement> entry : entrySet()) {
+      String key = entry.getKey();
+      Item item = new Item(key, entry.getValue(), n);
+      root = Hamt.put(root, key, Hamt.hash(key), item);
+      items[n++] = item;
+    }
+    return new JSONImmutableObject(root, PersistentVector.of(items, n), n);
+  }
+
+  // Slots in the entry vector, including the gaps left by without()
+  int slots() {
+    return entries.size;
+  }
+
+  public JSONImmutableObject getObject(String key) {
+    return (JSONImmutableObject) get(key);
+  }
+
+  public JSONImmutableArray getArray(String key) {
+    return (JSONImmutableArray) get(key);
+  }
+
+  public String getString(String key) {
+    return ((JSONString) get(key)).get();
+  }
+
+  public boolean getBoolean(String key) {
+    return ((JSONBoolean) get(key)).getAsBoolean();
+  }
+
+  public long getLong(String key) {
+    return ((JSONInteger) get(key)).getAsLong();
+  }
+
+  public int getInt(String key) {
+    return ((JSONInteger) get(key)).getAsInt();
+  }
+
+  public double getDouble(String key) {
+    JSONElement val = get(key);
+    if (val instanceof JSONFloat) {
+      return ((JSONFloat) val).getAsDouble();
+    } else {
+      return ((JSONInteger) val).getAsLong();
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public JSONElement get(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    Item item = (Item) Hamt.get(root, (String) key, Hamt.hash((String) key));
+    return (item == null) ? null : item.getValue();
+  }
+
+  @Override
+  public Set<Entry<String, JSONElement>> entrySet() {
+    return new AbstractSet<Entry<String, JSONElement>>() {
+      @Override
+      public Iterator<Entry<String, JSONElement>> iterator() {
+        return new Iterator<Entry<String, JSONElement>>() {
+          private int next = skip(0);
+
+          @Override
+          public boolean hasNext() {
+            return next < entries.size;
+          }
+
+          @Override
+          public Entry<String, JSONElement> next() {
+            if (next >= entries.size) {
+              throw new NoSuchElementException();
+            }
+            Item item = (Item) entries.get(next);
+            next = skip(next + 1);
+            return item;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public String toJSON(boolean compact) {
+    return JSONWriter.toJSON(this, compact);
+  }
+
+  public String toJSONFormatted() {
+    return JSONWriter.toJSONFormatted(this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return (this == o) || (o != null && o.getClass() == this.getClass() && super.equals(o));
+  }
+
+  private int skip(int i) {
+    while (i < entries.size && entries.get(i) == null) {
+      i++;
+    }
+    return i;
+  }
+
+  // Mutable containers are copied, so nothing reachable from an immutable one can change
+  @SuppressWarnings("unchecked")
+  static JSONElement freeze(JSONElement element) {
+    if (element instanceof JSONImmutableObject || element instanceof JSONImmutableArray) {
+      return element;
+    } else if (element instanceof Map) {
+      return copyOf((Map<String, JSONElement>) element);
+    } else if (element instanceof List) {
+      return JSONImmutableArray.copyOf((List<JSONElement>) element);
+    }
+    return Objects.requireNonNull(element);
+  }
+
+  private static final class Item extends SimpleImmutableEntry<String, JSONElement> {
+
+    private static final long serialVersionUID = 8394519130390386316L;
+
+    final int position;
+
+    Item(String key, JSONElement value, int position) {
+      super(key, value);
+      this.position = position;
+    }
+  }
+}
@@ -0,0 +1,271 @@
+package com.mathnerd28.jsonj;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+abstract class JSONLexer {
+
+  enum TokenType {
+    STRING,
+    INTEGER,
+    FLOAT,
+    TRUE,
+    FALSE,
+    NULL,
+    COMMA,
+    COLON,
+    LEFT_BRACE,
+    LEFT_BRACKET,
+    RIGHT_BRACE,
+    RIGHT_BRACKET,
+  }
+
+  // Decoded characters of the current STRING token
+  char[] text;
+  int textLen;
+
+  // Characters of the current number token
+  char[] num;
+  int numLen;
+
+  // Position of the first character of the current token
+  int tokenLine;
+  int tokenCol;
+
+  // Value of the current INTEGER or FLOAT token
+  long longValue;
+  double doubleValue;
+
+  JSONLexer() {
+    text = new char[64];
+    num = new char[32];
+  }
+
+  abstract TokenType nextToken() throws IOException, JSONParseException;
+
+  // Drops the source, so a lexer kept for reuse doesn't hold on to it
+  abstract void release();
+
+  // Skips whitespace, then reports whether the input is exhausted
+  abstract boolean atEnd() throws IOException;
+
+  // Value of the current STRING token
+  String stringValue() {
+    return new String(text, 0, textLen);
+  }
+
+  // Same as stringValue(), but may return a previously seen instance
+  String keyValue(KeyCache keys) {
+    return (keys == null) ? stringValue() : keys.intern(text, 0, textLen);
+  }
+
+  abstract char nextChar() throws IOException, JSONParseException;
+
+  abstract int line();
+
+  abstract int col();
+
+  static boolean isNumberChar(int c) {
+    return (
+      // prettier-ignore
+      (c >= '0' && c <= '9') ||
+      c == '.' ||
+      c == 'e' ||
+      c == 'E' ||
+      c == '+' ||
+      c == '-'
+    );
+  }
+
+  char unescape() throws IOException, JSONParseException {
+    char c = nextChar();
+    switch (c) {
+      case '"':
+      case '\\':
+      case '/':
+        return c;
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      case 'u':
+        int unicode = 0;
+        for (int i = 0; i < 4; i++) {
+          unicode <<= 4;
+          c = nextChar();
+          if ((c >= '0' && c <= '9')) {
+            unicode += c - '0';
+          } else if (c >= 'a' && c <= 'f') {
+            unicode += c - ('a' - 10);
+          } else if (c >= 'A' && c <= 'F') {
+            unicode += c - ('A' - 10);
+          } else {
+            throw error("Expected escaped Unicode BMP codepoint");
+          }
+        }
+        return (char) unicode;
+      default:
+        throw error("Invalid escape sequence '\\" + c + "'");
+    }
+  }
+
+  void append(char c) {
+    if (textLen == text.length) {
+      text = Arrays.copyOf(text, textLen << 1);
+    }
+    text[textLen++] = c;
+  }
+
+  // Appends src[from, to) in one copy
+  void append(char[] src, int from, int to) {
+    int n = to - from;
+    if (textLen + n > text.length) {
+      text = Arrays.copyOf(text, Math.max(textLen << 1, textLen + n));
+    }
+    System.arraycopy(src, from, text, textLen, n);
+    textLen += n;
+  }
+
+  // Appends src[from, to), which must all be ASCII
+  void appendAscii(byte[] src, int from, int to) {
+    int n = to - from;
+    if (textLen + n > text.length) {
+      text = Arrays.copyOf(text, Math.max(textLen << 1, textLen + n));
+    }
+    char[] text = this.text;
+    for (int i = from, k = textLen; i < to; i++, k++) {
+      text[k] = (char) src[i];
+    }
+    textLen += n;
+  }
+
+  void appendNum(char c) {
+    if (numLen == num.length) {
+      num = Arrays.copyOf(num, numLen << 1);
+    }
+    num[numLen++] = c;
+  }
+
+  // Validates and converts the characters in num, in one pass and without allocating
+  TokenType number() throws JSONParseException {
+    char[] num = this.num;
+    int len = numLen;
+    int i = 0;
+    boolean negative = num[0] == '-';
+    if (negative) {
+      i++;
+    }
+
+    // Up to 19 significant digits, which always fit in an unsigned long
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean truncated = false;
+
+    int start = i;
+    if (i < len && num[i] == '0') {
+      i++;
+    } else {
+      for (; i < len && num[i] >= '0' && num[i] <= '9'; i++) {
+        if (digits < 19) {
+          mantissa = mantissa * 10 + (num[i] - '0');
+          digits++;
+        } else {
+          truncated |= num[i] != '0';
+          exponent++;
+        }
+      }
+    }
+    if (i == start) {
+      throw invalidNumber();
+    }
+
+    if (i == len && !truncated && digits < 19) {
+      longValue = negative ? -mantissa : mantissa;
+      return TokenType.INTEGER;
+    } else if (i == len && !truncated && exponent == 0) {
+      // 19 digits: in range unless the unsigned value passed Long.MAX_VALUE (or MIN_VALUE)
+      if (mantissa >= 0 || (negative && mantissa == Long.MIN_VALUE)) {
+        longValue = negative ? -mantissa : mantissa;
+        return TokenType.INTEGER;
+      }
+    }
+
+    if (i < len && num[i] == '.') {
+      start = ++i;
+      for (; i < len && num[i] >= '0' && num[i] <= '9'; i++) {
+        if (digits < 19) {
+          if (mantissa != 0 || num[i] != '0') {
+            mantissa = mantissa * 10 + (num[i] - '0');
+            digits++;
+          }
+          exponent--;
+        } else {
+          truncated |= num[i] != '0';
+        }
+      }
+      if (i == start) {
+        throw invalidNumber();
+      }
+    }
+
+    if (i < len && (num[i] == 'e' || num[i] == 'E')) {
+      i++;
+      boolean negativeExp = false;
+      if (i < len && (num[i] == '+' || num[i] == '-')) {
+        negativeExp = num[i++] == '-';
+      }
+      start = i;
+      int exp = 0;
+      for (; i < len && num[i] >= '0' && num[i] <= '9'; i++) {
+        // Saturate; anything this large is zero or infinite anyway
+        if (exp < 100_000) {
+          exp = exp * 10 + (num[i] - '0');
+        }
+      }
+      if (i == start) {
+        throw invalidNumber();
+      }
+      exponent += negativeExp ? -exp : exp;
+    }
+    if (i != len) {
+      throw invalidNumber();
+    }
+
+    double d = DoubleConversion.toDouble(mantissa, exponent, negative);
+    if (truncated && d == d && d != DoubleConversion.toDouble(mantissa + 1, exponent, negative)) {
+      // The dropped digits could change the rounding
+      d = Double.NaN;
+    }
+    if (d != d) {
+      d = Double.parseDouble(new String(num, 0, len));
+    }
+    if (Double.isInfinite(d)) {
+      throw invalidNumber();
+    }
+    doubleValue = d;
+    return TokenType.FLOAT;
+  }
+
+  private JSONParseException invalidNumber() {
+    return tokenError("Invalid number '" + new String(num, 0, numLen) + "'");
+  }
+
+  JSONParseException error(String msg) {
+    return new JSONParseException(msg, line(), col());
+  }
+
+  JSONParseException tokenError(String msg) {
+    return new JSONParseException(msg, tokenLine, tokenCol);
+  }
+
+  JSONParseException keywordError(String keyword) {
+    return error("Expected keyword '" + keyword + "'");
+  }
+}
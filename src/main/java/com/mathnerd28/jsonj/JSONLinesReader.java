@@ -0,0 +1,98 @@
+package com.mathnerd28.jsonj;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Reads a sequence of documents, one per line (NDJSON / JSON Lines) or simply concatenated, with
+// one lexer and buffer for the whole input. Positions in errors are counted from its start.
+public final class JSONLinesReader implements Closeable {
+
+  private final JSONParser parser;
+  private final JSONLexer lexer;
+  private final Closeable resource;
+
+  JSONLinesReader(JSONParser parser, JSONLexer lexer, Closeable resource) {
+    this.parser = parser;
+    this.lexer = lexer;
+    this.resource = resource;
+  }
+
+  public boolean hasNext() throws IOException {
+    return !lexer.atEnd();
+  }
+
+  public JSONElement next() throws IOException, JSONParseException {
+    if (lexer.atEnd()) {
+      throw new NoSuchElementException();
+    }
+    return parser.getData(lexer, lexer.nextToken());
+  }
+
+  // Like next(), but binds the document to the given type
+  @SuppressWarnings("unchecked")
+  public <T> T next(Class<T> type) throws IOException, JSONParseException {
+    if (lexer.atEnd()) {
+      throw new NoSuchElementException();
+    }
+    return (T) Binder.of(type).read(parser, lexer, lexer.nextToken(), 0);
+  }
+
+  // Up to max documents; empty once the input is exhausted
+  public JSONArray nextBatch(int max) throws IOException, JSONParseException {
+    JSONArray batch = new JSONArray();
+    while (batch.size() < max && !lexer.atEnd()) {
+      batch.add(parser.getData(lexer, lexer.nextToken()));
+    }
+    return batch;
+  }
+
+  // Failures surface as UncheckedIOException, or IllegalArgumentException for a malformed document,
+  // with the original as the cause. Closing the stream closes the reader.
+  public Stream<JSONElement> stream() {
+    Iterator<JSONElement> iterator = new Iterator<JSONElement>() {
+      @Override
+      public boolean hasNext() {
+        try {
+          return JSONLinesReader.this.hasNext();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+
+      @Override
+      public JSONElement next() {
+        try {
+          return JSONLinesReader.this.next();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        } catch (JSONParseException e) {
+          throw new IllegalArgumentException(e.getMessage(), e);
+        }
+      }
+    };
+    int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+    return StreamSupport
+      .stream(Spliterators.spliteratorUnknownSize(iterator, characteristics), false)
+      .onClose(() -> {
+        try {
+          close();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (resource != null) {
+      resource.close();
+    }
+  }
+}
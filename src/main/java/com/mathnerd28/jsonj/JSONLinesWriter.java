@@ -0,0 +1,57 @@
+package com.mathnerd28.jsonj;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Writes one compact document per line (NDJSON / JSON Lines). Output is buffered, and only
+// flushed every flushingEvery() records, or when asked.
+public final class JSONLinesWriter implements Flushable {
+
+  private final JSONWriter writer;
+  private final Appendable out;
+
+  private int batchSize;
+  private int pending;
+
+  public JSONLinesWriter(Appendable out) {
+    this.out = out;
+    writer = new JSONWriter(out).compact();
+    batchSize = 0;
+  }
+
+  public JSONLinesWriter(OutputStream stream) {
+    this(new UTF8Output(stream));
+  }
+
+  // 0 (the default) leaves flushing to the caller
+  public JSONLinesWriter flushingEvery(int records) {
+    if (records < 0) {
+      throw new IllegalArgumentException("Batch size must not be negative");
+    }
+    batchSize = records;
+    return this;
+  }
+
+  public JSONLinesWriter write(JSONElement element) throws IOException {
+    writer.write(element);
+    out.append('\n');
+    if (++pending == batchSize) {
+      flush();
+    }
+    return this;
+  }
+
+  public JSONLinesWriter writeAll(Iterable<? extends JSONElement> elements) throws IOException {
+    for (JSONElement element : elements) {
+      write(element);
+    }
+    return this;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    pending = 0;
+    writer.flush();
+  }
+}
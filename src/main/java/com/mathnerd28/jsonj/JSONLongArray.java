@@ -0,0 +1,152 @@
+package com.mathnerd28.jsonj;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.stream.LongStream;
+
+// An array of integers kept as a long[], from JSONParser.compactingNumbers(). It only holds
+// JSONIntegers, which get() creates on each call; getLong() and longStream() don't box.
+public final class JSONLongArray
+  extends AbstractList<JSONElement>
+  implements JSONElement, RandomAccess {
+
+  private static final long serialVersionUID = 2290311936245785634L;
+
+  private long[] values;
+  private int size;
+
+  public JSONLongArray() {
+    values = new long[10];
+    size = 0;
+  }
+
+  public JSONLongArray(long... values) {
+    this.values = values.clone();
+    size = values.length;
+  }
+
+  // Takes ownership of the array
+  JSONLongArray(long[] values, int size) {
+    this.values = values;
+    this.size = size;
+  }
+
+  public long getLong(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  public int getInt(int index) {
+    return (int) getLong(index);
+  }
+
+  public double getDouble(int index) {
+    return getLong(index);
+  }
+
+  public long setLong(int index, long value) {
+    checkIndex(index);
+    long old = values[index];
+    values[index] = value;
+    return old;
+  }
+
+  public void addLong(long value) {
+    addLong(size, value);
+  }
+
+  public void addLong(int index, long value) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    if (size == values.length) {
+      values = Arrays.copyOf(values, Math.max(size << 1, 10));
+    }
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = value;
+    size++;
+    modCount++;
+  }
+
+  public long[] toLongArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+  public LongStream longStream() {
+    return Arrays.stream(values, 0, size);
+  }
+
+  @Override
+  public JSONElement get(int index) {
+    return new JSONInteger(getLong(index));
+  }
+
+  @Override
+  public JSONElement set(int index, JSONElement element) {
+    return new JSONInteger(setLong(index, ((JSONInteger) element).getAsLong()));
+  }
+
+  @Override
+  public void add(int index, JSONElement element) {
+    addLong(index, ((JSONInteger) element).getAsLong());
+  }
+
+  @Override
+  public JSONElement remove(int index) {
+    long old = getLong(index);
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    size--;
+    modCount++;
+    return new JSONInteger(old);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String toJSON(boolean compact) {
+    return JSONWriter.toJSON(this, compact);
+  }
+
+  public String toJSONFormatted() {
+    return JSONWriter.toJSONFormatted(this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    } else if (o == null || o.getClass() != this.getClass()) {
+      return false;
+    }
+    JSONLongArray other = (JSONLongArray) o;
+    if (other.size != size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (values[i] != other.values[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    // Same as List.hashCode(), since JSONInteger hashes like Long
+    int h = 1;
+    for (int i = 0; i < size; i++) {
+      h = 31 * h + Long.hashCode(values[i]);
+    }
+    return h;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
@@ -1,9 +1,7 @@
 package com.mathnerd28.jsonj;
 
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 
 public final class JSONObject extends LinkedHashMap<String, JSONElement> implements JSONElement {
 
@@ -29,6 +27,15 @@ public final class JSONObject extends LinkedHashMap<String, JSONElement> impleme
     return (JSONArray) get(key);
   }
 
+  // Only with JSONParser.compactingNumbers()
+  public JSONLongArray getLongArray(String key) {
+    return (JSONLongArray) get(key);
+  }
+
+  public JSONDoubleArray getDoubleArray(String key) {
+    return (JSONDoubleArray) get(key);
+  }
+
   public String getString(String key) {
     return ((JSONString) get(key)).get();
   }
@@ -76,69 +83,11 @@ public final class JSONObject extends LinkedHashMap<String, JSONElement> impleme
 
   @Override
   public String toJSON(boolean compact) {
-    if (isEmpty()) {
-      return "{}";
-    }
-    Iterator<Entry<String, JSONElement>> iterator = entrySet().iterator();
-    StringBuilder builder = new StringBuilder();
-    builder.append('{');
-    for (;;) {
-      Entry<String, JSONElement> entry = iterator.next();
-      String key = entry.getKey();
-      JSONElement value = entry.getValue();
-      builder.append(new JSONString(key).toJSON()).append(':');
-      if (!compact) {
-        builder.append(' ');
-      }
-      if (value == this) {
-        builder.append("(this object)");
-      } else {
-        builder.append(value.toJSON(compact));
-      }
-      if (!iterator.hasNext()) {
-        return builder.append('}').toString();
-      }
-      builder.append(',');
-      if (!compact) {
-        builder.append(' ');
-      }
-    }
+    return JSONWriter.toJSON(this, compact);
   }
 
   public String toJSONFormatted() {
-    return toJSONFormatted("  ");
-  }
-
-  String toJSONFormatted(String indentation) {
-    if (isEmpty()) {
-      return "{}";
-    }
-    Iterator<Entry<String, JSONElement>> iterator = entrySet().iterator();
-    StringBuilder builder = new StringBuilder();
-    builder.append("{\n");
-    for (;;) {
-      Entry<String, JSONElement> entry = iterator.next();
-      String key = entry.getKey();
-      JSONElement value = entry.getValue();
-      builder.append(indentation).append(new JSONString(key).toJSON()).append(": ");
-      if (value == this) {
-        builder.append("(this object)");
-      } else if (value instanceof JSONObject) {
-        builder.append(((JSONObject) value).toJSONFormatted(indentation + "  "));
-      } else if (value instanceof JSONArray) {
-        builder.append(((JSONArray) value).toJSONFormatted(indentation + "  "));
-      } else {
-        builder.append(value.toJSON());
-      }
-      if (!iterator.hasNext()) {
-        builder.append('\n');
-        if (indentation.length() > 2) {
-          builder.append(indentation.substring(0, indentation.length() - 2));
-        }
-        return builder.append('}').toString();
-      }
-      builder.append(",\n");
-    }
+    return JSONWriter.toJSONFormatted(this);
   }
 
   @Override
@@ -1,105 +1,185 @@
 package com.mathnerd28.jsonj;
 
-import java.io.BufferedReader;
+import com.mathnerd28.jsonj.JSONLexer.TokenType;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 public class JSONParser {
 
-  enum TokenType {
-    STRING,
-    INTEGER,
-    FLOAT,
-    TRUE,
-    FALSE,
-    NULL,
-    COMMA,
-    COLON,
-    LEFT_BRACE,
-    LEFT_BRACKET,
-    RIGHT_BRACE,
-    RIGHT_BRACKET,
+  boolean allowDuplicateKeys;
+  private boolean mapFiles;
+  boolean compactNumbers;
+  KeyCache keys;
+  ShapeCache shapes;
+  int maxDepth;
+  private ForkJoinPool pool;
+
+  static final int DEFAULT_MAX_DEPTH = 1000;
+
+  // Set for parsers from a JSONParserFactory, which keep their lexers and can't be reconfigured
+  private final boolean reusing;
+  private CharLexer chars;
+  private ByteLexer bytes;
+
+  public JSONParser() {
+    allowDuplicateKeys = false;
+    mapFiles = false;
+    compactNumbers = false;
+    keys = null;
+    shapes = null;
+    maxDepth = DEFAULT_MAX_DEPTH;
+    pool = null;
+    reusing = false;
   }
 
-  private static class Token {
+  // A reusable copy, with its own key cache
+  JSONParser(JSONParser settings) {
+    allowDuplicateKeys = settings.allowDuplicateKeys;
+    mapFiles = settings.mapFiles;
+    compactNumbers = settings.compactNumbers;
+    keys = (settings.keys == null) ? null : new KeyCache(settings.keys.capacity());
+    shapes = (settings.shapes == null) ? null : new ShapeCache(settings.shapes.capacity());
+    maxDepth = settings.maxDepth;
+    pool = settings.pool;
+    reusing = true;
+  }
 
-    static final Token TRUE = new Token(TokenType.TRUE, JSONBoolean.TRUE);
-    static final Token FALSE = new Token(TokenType.FALSE, JSONBoolean.FALSE);
-    static final Token NULL = new Token(TokenType.NULL, JSONElement.NULL);
+  public JSONParser overwritingDuplicateKeys() {
+    checkConfigurable();
+    allowDuplicateKeys = true;
+    return this;
+  }
 
-    static final Token COMMA = new Token(TokenType.COMMA);
-    static final Token COLON = new Token(TokenType.COLON);
-    static final Token LEFT_BRACE = new Token(TokenType.LEFT_BRACE);
-    static final Token LEFT_BRACKET = new Token(TokenType.LEFT_BRACKET);
-    static final Token RIGHT_BRACE = new Token(TokenType.RIGHT_BRACE);
-    static final Token RIGHT_BRACKET = new Token(TokenType.RIGHT_BRACKET);
+  public JSONParser exceptingDuplicateKeys() {
+    checkConfigurable();
+    allowDuplicateKeys = false;
+    return this;
+  }
 
-    final TokenType type;
-    final JSONElement data;
+  public JSONParser mappingFiles() {
+    checkConfigurable();
+    mapFiles = true;
+    return this;
+  }
 
-    Token(TokenType type) {
-      this(type, null);
-    }
+  public JSONParser streamingFiles() {
+    checkConfigurable();
+    mapFiles = false;
+    return this;
+  }
 
-    Token(TokenType type, JSONElement data) {
-      this.type = type;
-      this.data = data;
-    }
+  // Arrays holding only numbers become a JSONLongArray or JSONDoubleArray, stored unboxed
+  public JSONParser compactingNumbers() {
+    checkConfigurable();
+    compactNumbers = true;
+    return this;
   }
 
-  private static final Pattern INTEGER = Pattern.compile("-?(?:0|[1-9]\\d*)");
-  private static final Pattern FLOAT = Pattern.compile(
-    "-?(?:0|[1-9]\\d*)(?:\\.\\d+)?(?:[Ee][+-]?(?:0|[1-9]\\d*))?"
-  );
+  public JSONParser boxingNumbers() {
+    checkConfigurable();
+    compactNumbers = false;
+    return this;
+  }
 
-  private Reader reader;
-  private StringBuilder builder;
+  public JSONParser compactingObjects() {
+    return compactingObjects(256);
+  }
 
-  private int carryC;
-  private int line;
-  private int col;
-  private int tokenLine;
-  private int tokenCol;
+  // Objects become a JSONCompactObject, without a hash table or entries for small ones. Objects
+  // with the same keys in the same order share them, through a table of the given size.
+  public JSONParser compactingObjects(int shapes) {
+    checkConfigurable();
+    this.shapes = new ShapeCache(shapes);
+    return this;
+  }
 
-  private boolean allowDuplicateKeys;
+  public JSONParser hashingObjects() {
+    checkConfigurable();
+    shapes = null;
+    return this;
+  }
 
-  public JSONParser() {
-    builder = new StringBuilder();
-    carryC = -2;
-    allowDuplicateKeys = false;
+  public JSONParser interningKeys() {
+    return interningKeys(1024);
   }
 
-  public JSONParser overwritingDuplicateKeys() {
-    allowDuplicateKeys = true;
+  // Repeated keys share one String instance, from a table of the given size
+  public JSONParser interningKeys(int capacity) {
+    checkConfigurable();
+    keys = new KeyCache(capacity);
     return this;
   }
 
-  public JSONParser exceptingDuplicateKeys() {
-    allowDuplicateKeys = false;
+  public JSONParser copyingKeys() {
+    checkConfigurable();
+    keys = null;
+    return this;
+  }
+
+  // Fails on objects and arrays nested more than maxDepth deep (1000 by default), counted from the
+  // root however the document is read. parse() builds trees without recursion, but binding, tapes,
+  // projections and JSONPath recurse, so they are only safe on a small stack with a limit.
+  public JSONParser limitingDepth(int maxDepth) {
+    checkConfigurable();
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("Depth limit must not be negative");
+    }
+    this.maxDepth = maxDepth;
+    return this;
+  }
+
+  // Opts out of the depth limit, after which deep input can overflow the stack on recursive paths
+  public JSONParser allowingAnyDepth() {
+    checkConfigurable();
+    maxDepth = Integer.MAX_VALUE;
+    return this;
+  }
+
+  // Where parseParallel() and parseLinesParallel() run; the common pool by default
+  public JSONParser usingPool(ForkJoinPool pool) {
+    checkConfigurable();
+    this.pool = pool;
+    return this;
+  }
+
+  // Frees the buffers kept between calls (which only grow) and forgets interned keys and shapes
+  public JSONParser reset() {
+    chars = null;
+    bytes = null;
+    if (keys != null) {
+      keys = new KeyCache(keys.capacity());
+    }
+    if (shapes != null) {
+      shapes = new ShapeCache(shapes.capacity());
+    }
     return this;
   }
 
   public JSONElement parse(String json) throws JSONParseException {
-    // BUG: exception in try-with-resources causes self-suppression???
-    StringReader reader = new StringReader(json);
     try {
-      // don't need to buffer
-      return parseRaw(reader);
+      return parseRaw(charLexer().reset(json));
     } catch (IOException e) {
-      throw new AssertionError("IOException from StringReader", e);
-    } finally {
-      reader.close();
+      throw new AssertionError("IOException from String", e);
     }
   }
 
   public JSONElement parse(File file) throws IOException, JSONParseException {
+    if (mapFiles) {
+      try (MappedFile mapped = new MappedFile(file)) {
+        return parseRaw(byteLexer().reset(mapped));
+      }
+    }
     try (InputStream stream = new FileInputStream(file)) {
       return parse(stream);
     }
@@ -107,308 +187,832 @@ public class JSONParser {
 
   public JSONElement parse(InputStream stream) throws IOException, JSONParseException {
     // Don't want to close
-    return parse(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    return parseRaw(byteLexer().reset(stream));
   }
 
   public JSONElement parse(Reader reader) throws IOException, JSONParseException {
     // Don't want to close
-    return parseRaw(reader instanceof BufferedReader ? reader : new BufferedReader(reader, 4096));
-  }
-
-  private JSONElement parseRaw(Reader r) throws IOException, JSONParseException {
-    reader = r;
-    line = 1;
-    col = 0;
-
-    Token t = nextToken();
-    return getData(t);
-  }
-
-  private boolean hasChar() throws IOException {
-    return carryC >= 0 || (carryC = reader.read()) != -1;
-  }
-
-  private char nextChar() throws IOException, JSONParseException {
-    if (carryC != -2) {
-      int c = carryC;
-      carryC = -2;
-      return (char) c;
-    }
-
-    int c = reader.read();
-    if (c == -1) {
-      throw new JSONParseException("Unexpected termination", line, col);
-    } else if (c == '\n') {
-      col = 0;
-      line++;
-    } else {
-      col++;
-    }
-    return (char) c;
-  }
-
-  private Token nextToken() throws IOException, JSONParseException {
-    char c;
-    do {
-      c = nextChar();
-    } while (c == ' ' || c == '\n' || c == '\t' || c == '\r');
-
-    tokenLine = line;
-    tokenCol = col;
-
-    // These don't require the buffer, fastpath
-    switch (c) {
-      case ',':
-        return Token.COMMA;
-      case ':':
-        return Token.COLON;
-      case '{':
-        return Token.LEFT_BRACE;
-      case '[':
-        return Token.LEFT_BRACKET;
-      case '}':
-        return Token.RIGHT_BRACE;
-      case ']':
-        return Token.RIGHT_BRACKET;
-      case 't':
-        if (
-          // prettier-ignore
-          (c = nextChar()) == 'r' &&
-          (c = nextChar()) == 'u' &&
-          (c = nextChar()) == 'e'
-        ) {
-          return Token.TRUE;
-        } else {
-          throw new JSONParseException("Expected keyword 'true'", line, col);
-        }
-      case 'f':
-        if (
-          // prettier-ignore
-          (c = nextChar()) == 'a' &&
-          (c = nextChar()) == 'l' &&
-          (c = nextChar()) == 's' &&
-          (c = nextChar()) == 'e'
-        ) {
-          return Token.FALSE;
-        } else {
-          throw new JSONParseException("Expected keyword 'false'", line, col);
-        }
-      case 'n':
-        if (
-          // prettier-ignore
-          (c = nextChar()) == 'u' &&
-          (c = nextChar()) == 'l' &&
-          (c = nextChar()) == 'l'
-        ) {
-          return Token.NULL;
-        } else {
-          throw new JSONParseException("Expected keyword 'null'", line, col);
-        }
+    return parseRaw(charLexer().reset(reader));
+  }
+
+  public JSONElement parse(byte[] json) throws JSONParseException {
+    return parse(json, 0, json.length);
+  }
+
+  public JSONElement parse(byte[] json, int offset, int length) throws JSONParseException {
+    try {
+      return parseRaw(byteLexer().reset(json, offset, length));
+    } catch (IOException e) {
+      throw new AssertionError("IOException from byte[]", e);
+    }
+  }
+
+  public JSONElement parse(ByteBuffer json) throws JSONParseException {
+    // Position and limit are left untouched
+    try {
+      return parseRaw(byteLexer().reset(json));
+    } catch (IOException e) {
+      throw new AssertionError("IOException from ByteBuffer", e);
+    }
+  }
+
+  // Binds the document straight to the given type, without building JSONElements
+  public <T> T parse(String json, Class<T> type) throws JSONParseException {
+    try {
+      return bind(charLexer().reset(json), type);
+    } catch (IOException e) {
+      throw new AssertionError("IOException from String", e);
+    }
+  }
+
+  public <T> T parse(File file, Class<T> type) throws IOException, JSONParseException {
+    if (mapFiles) {
+      try (MappedFile mapped = new MappedFile(file)) {
+        return bind(byteLexer().reset(mapped), type);
+      }
+    }
+    try (InputStream stream = new FileInputStream(file)) {
+      return parse(stream, type);
+    }
+  }
+
+  public <T> T parse(InputStream stream, Class<T> type) throws IOException, JSONParseException {
+    // Don't want to close
+    return bind(byteLexer().reset(stream), type);
+  }
+
+  public <T> T parse(Reader reader, Class<T> type) throws IOException, JSONParseException {
+    // Don't want to close
+    return bind(charLexer().reset(reader), type);
+  }
+
+  public <T> T parse(byte[] json, Class<T> type) throws JSONParseException {
+    try {
+      return bind(byteLexer().reset(json, 0, json.length), type);
+    } catch (IOException e) {
+      throw new AssertionError("IOException from byte[]", e);
+    }
+  }
+
+  public <T> T parse(ByteBuffer json, Class<T> type) throws JSONParseException {
+    // Position and limit are left untouched
+    try {
+      return bind(byteLexer().reset(json), type);
+    } catch (IOException e) {
+      throw new AssertionError("IOException from ByteBuffer", e);
+    }
+  }
+
+  // Builds only the parts of the document the projection keeps, and skips the rest
+  public JSONElement parse(String json, JSONProjection projection) throws JSONParseException {
+    try {
+      return project(charLexer().reset(json), projection);
+    } catch (IOException e) {
+      throw new AssertionError("IOException from String", e);
+    }
+  }
+
+  public JSONElement parse(File file, JSONProjection projection)
+    throws IOException, JSONParseException {
+    if (mapFiles) {
+      try (MappedFile mapped = new MappedFile(file)) {
+        return project(byteLexer().reset(mapped), projection);
+      }
+    }
+    try (InputStream stream = new FileInputStream(file)) {
+      return parse(stream, projection);
+    }
+  }
+
+  public JSONElement parse(InputStream stream, JSONProjection projection)
+    throws IOException, JSONParseException {
+    // Don't want to close
+    return project(byteLexer().reset(stream), projection);
+  }
+
+  public JSONElement parse(Reader reader, JSONProjection projection)
+    throws IOException, JSONParseException {
+    // Don't want to close
+    return project(charLexer().reset(reader), projection);
+  }
+
+  public JSONElement parse(byte[] json, JSONProjection projection) throws JSONParseException {
+    try {
+      return project(byteLexer().reset(json, 0, json.length), projection);
+    } catch (IOException e) {
+      throw new AssertionError("IOException from byte[]", e);
+    }
+  }
+
+  // The elements of a top-level array, parsed in batches across the pool
+  public JSONArray parseParallel(byte[] json) throws JSONParseException {
+    return new ParallelParser(this, pool(), false, json.length).parse(json, 0, json.length);
+  }
+
+  public JSONArray parseParallel(File file) throws IOException, JSONParseException {
+    try (InputStream stream = new FileInputStream(file)) {
+      return new ParallelParser(this, pool(), false, file.length()).parse(stream);
+    }
+  }
+
+  public JSONArray parseParallel(InputStream stream) throws IOException, JSONParseException {
+    // Don't want to close
+    return new ParallelParser(this, pool(), false, -1).parse(stream);
+  }
+
+  // NDJSON: one document per line, blank lines skipped, parsed in batches across the pool
+  public JSONArray parseLinesParallel(byte[] json) throws JSONParseException {
+    return new ParallelParser(this, pool(), true, json.length).parse(json, 0, json.length);
+  }
+
+  public JSONArray parseLinesParallel(File file) throws IOException, JSONParseException {
+    try (InputStream stream = new FileInputStream(file)) {
+      return new ParallelParser(this, pool(), true, file.length()).parse(stream);
+    }
+  }
+
+  public JSONArray parseLinesParallel(InputStream stream) throws IOException, JSONParseException {
+    // Don't want to close
+    return new ParallelParser(this, pool(), true, -1).parse(stream);
+  }
+
+  // Indexes the structure without building anything; values are decoded as they are read
+  public JSONView parseLazy(String json) throws JSONParseException {
+    return parseLazy(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public JSONView parseLazy(byte[] json) throws JSONParseException {
+    return parseLazy(json, 0, json.length);
+  }
+
+  public JSONView parseLazy(byte[] json, int offset, int length) throws JSONParseException {
+    // The array is shared with the views, not copied
+    return JSONView.root(new StructuralIndex(this, json, offset, length));
+  }
+
+  // Parses into a tape in direct memory, rather than JSONElements on the heap
+  public JSONTape parseTape(String json) throws JSONParseException {
+    try {
+      return tape(charLexer().reset(json), json.length());
+    } catch (IOException e) {
+      throw new AssertionError("IOException from String", e);
+    }
+  }
+
+  public JSONTape parseTape(File file) throws IOException, JSONParseException {
+    if (mapFiles) {
+      try (MappedFile mapped = new MappedFile(file)) {
+        return tape(byteLexer().reset(mapped), file.length());
+      }
+    }
+    try (InputStream stream = new FileInputStream(file)) {
+      return tape(byteLexer().reset(stream), file.length());
+    }
+  }
+
+  public JSONTape parseTape(InputStream stream) throws IOException, JSONParseException {
+    // Don't want to close
+    return tape(byteLexer().reset(stream), 0);
+  }
+
+  public JSONTape parseTape(byte[] json) throws JSONParseException {
+    return parseTape(json, 0, json.length);
+  }
+
+  public JSONTape parseTape(byte[] json, int offset, int length) throws JSONParseException {
+    try {
+      return tape(byteLexer().reset(json, offset, length), length);
+    } catch (IOException e) {
+      throw new AssertionError("IOException from byte[]", e);
+    }
+  }
+
+  // Reads what JSONElement.writeBinary() wrote, into the same elements parse() would build
+  public JSONElement parseBinary(InputStream stream) throws IOException, JSONParseException {
+    // Don't want to close
+    return parseRaw(new BinaryLexer(stream));
+  }
+
+  public JSONElement parseBinary(byte[] data) throws JSONParseException {
+    try {
+      return parseRaw(new BinaryLexer(data, 0, data.length));
+    } catch (IOException e) {
+      throw new AssertionError("IOException from byte[]", e);
+    }
+  }
+
+  // The values the path matches, building nothing else
+  public List<JSONElement> select(String json, JSONPath path) throws JSONParseException {
+    try {
+      return select(charLexer().reset(json), path, Integer.MAX_VALUE);
+    } catch (IOException e) {
+      throw new AssertionError("IOException from String", e);
+    }
+  }
+
+  public List<JSONElement> select(File file, JSONPath path) throws IOException, JSONParseException {
+    if (mapFiles) {
+      try (MappedFile mapped = new MappedFile(file)) {
+        return select(byteLexer().reset(mapped), path, Integer.MAX_VALUE);
+      }
+    }
+    try (InputStream stream = new FileInputStream(file)) {
+      return select(stream, path);
+    }
+  }
+
+  public List<JSONElement> select(InputStream stream, JSONPath path)
+    throws IOException, JSONParseException {
+    // Don't want to close
+    return select(byteLexer().reset(stream), path, Integer.MAX_VALUE);
+  }
+
+  public List<JSONElement> select(byte[] json, JSONPath path) throws JSONParseException {
+    try {
+      return select(byteLexer().reset(json, 0, json.length), path, Integer.MAX_VALUE);
+    } catch (IOException e) {
+      throw new AssertionError("IOException from byte[]", e);
+    }
+  }
+
+  // The first value the path matches, or null. Reading stops there, so the rest of the document
+  // isn't checked.
+  public JSONElement selectFirst(String json, JSONPath path) throws JSONParseException {
+    try {
+      return first(select(charLexer().reset(json), path, 1));
+    } catch (IOException e) {
+      throw new AssertionError("IOException from String", e);
+    }
+  }
+
+  public JSONElement selectFirst(File file, JSONPath path) throws IOException, JSONParseException {
+    if (mapFiles) {
+      try (MappedFile mapped = new MappedFile(file)) {
+        return first(select(byteLexer().reset(mapped), path, 1));
+      }
+    }
+    try (InputStream stream = new FileInputStream(file)) {
+      return selectFirst(stream, path);
+    }
+  }
+
+  public JSONElement selectFirst(InputStream stream, JSONPath path)
+    throws IOException, JSONParseException {
+    // Don't want to close
+    return first(select(byteLexer().reset(stream), path, 1));
+  }
+
+  public JSONElement selectFirst(byte[] json, JSONPath path) throws JSONParseException {
+    try {
+      return first(select(byteLexer().reset(json, 0, json.length), path, 1));
+    } catch (IOException e) {
+      throw new AssertionError("IOException from byte[]", e);
+    }
+  }
+
+  public JSONReader reader(String json) {
+    return new JSONReader(this, new CharLexer(json), null);
+  }
+
+  public JSONReader reader(File file) throws IOException {
+    if (mapFiles) {
+      MappedFile mapped = new MappedFile(file);
+      try {
+        return new JSONReader(this, new ByteLexer(mapped), mapped);
+      } catch (IOException e) {
+        mapped.close();
+        throw e;
+      }
+    }
+    InputStream stream = new FileInputStream(file);
+    return new JSONReader(this, new ByteLexer(stream), stream);
+  }
+
+  public JSONReader reader(InputStream stream) {
+    // Closing the reader won't close the stream
+    return new JSONReader(this, new ByteLexer(stream), null);
+  }
+
+  public JSONReader reader(Reader reader) {
+    // Closing the reader won't close the underlying Reader
+    return new JSONReader(this, new CharLexer(reader), null);
+  }
+
+  public JSONReader reader(byte[] json) {
+    return new JSONReader(this, new ByteLexer(json, 0, json.length), null);
+  }
+
+  public JSONReader reader(ByteBuffer json) {
+    return new JSONReader(this, new ByteLexer(json), null);
+  }
+
+  // For input that arrives in pieces, without blocking on it
+  public JSONPushParser pushParser() {
+    return new JSONPushParser(this);
+  }
+
+  public JSONLinesReader linesReader(String json) {
+    return new JSONLinesReader(this, new CharLexer(json), null);
+  }
+
+  public JSONLinesReader linesReader(File file) throws IOException {
+    if (mapFiles) {
+      MappedFile mapped = new MappedFile(file);
+      try {
+        return new JSONLinesReader(this, new ByteLexer(mapped), mapped);
+      } catch (IOException e) {
+        mapped.close();
+        throw e;
+      }
+    }
+    InputStream stream = new FileInputStream(file);
+    return new JSONLinesReader(this, new ByteLexer(stream), stream);
+  }
+
+  public JSONLinesReader linesReader(InputStream stream) {
+    // Closing the reader won't close the stream
+    return new JSONLinesReader(this, new ByteLexer(stream), null);
+  }
+
+  public JSONLinesReader linesReader(Reader reader) {
+    // Closing the reader won't close the underlying Reader
+    return new JSONLinesReader(this, new CharLexer(reader), null);
+  }
+
+  public JSONLinesReader linesReader(byte[] json) {
+    return new JSONLinesReader(this, new ByteLexer(json, 0, json.length), null);
+  }
+
+  public JSONLinesReader linesReader(ByteBuffer json) {
+    return new JSONLinesReader(this, new ByteLexer(json), null);
+  }
+
+  JSONElement parseRaw(JSONLexer lexer) throws IOException, JSONParseException {
+    try {
+      return getData(lexer, lexer.nextToken());
+    } finally {
+      recycle(lexer);
+    }
+  }
+
+  private JSONTape tape(JSONLexer lexer, long sizeHint) throws IOException, JSONParseException {
+    try {
+      return JSONTape.root(Tape.build(this, lexer, sizeHint));
+    } finally {
+      recycle(lexer);
+    }
+  }
+
+  private JSONElement project(JSONLexer lexer, JSONProjection projection)
+    throws IOException, JSONParseException {
+    try {
+      return getData(lexer, lexer.nextToken(), projection, 0);
+    } finally {
+      recycle(lexer);
+    }
+  }
+
+  private List<JSONElement> select(JSONLexer lexer, JSONPath path, int limit)
+    throws IOException, JSONParseException {
+    try {
+      List<JSONElement> matches = new ArrayList<>();
+      path.stream(this, lexer, lexer.nextToken(), 1L, matches, limit, 0);
+      return matches;
+    } finally {
+      recycle(lexer);
+    }
+  }
+
+  private static JSONElement first(List<JSONElement> matches) {
+    return matches.isEmpty() ? null : matches.get(0);
+  }
+
+  @SuppressWarnings("unchecked")
+  <T> T bind(JSONLexer lexer, Class<T> type) throws IOException, JSONParseException {
+    try {
+      // Not type.cast(), which fails for primitive classes
+      return (T) Binder.of(type).read(this, lexer, lexer.nextToken(), 0);
+    } finally {
+      recycle(lexer);
+    }
+  }
+
+  // A kept lexer is taken out while in use, so a nested call gets a new one
+  private CharLexer charLexer() {
+    CharLexer lexer = chars;
+    chars = null;
+    return (lexer == null) ? new CharLexer() : lexer;
+  }
+
+  private ByteLexer byteLexer() {
+    ByteLexer lexer = bytes;
+    bytes = null;
+    return (lexer == null) ? new ByteLexer() : lexer;
+  }
+
+  private void recycle(JSONLexer lexer) {
+    if (!reusing) {
+      return;
+    }
+    lexer.release();
+    if (lexer instanceof CharLexer) {
+      chars = (CharLexer) lexer;
+    } else if (lexer instanceof ByteLexer) {
+      bytes = (ByteLexer) lexer;
+    }
+  }
+
+  private ForkJoinPool pool() {
+    return (pool == null) ? ForkJoinPool.commonPool() : pool;
+  }
+
+  private void checkConfigurable() {
+    if (reusing) {
+      throw new UnsupportedOperationException("Settings are fixed by the JSONParserFactory");
+    }
+  }
+
+  JSONElement getData(JSONLexer lexer, TokenType t) throws IOException, JSONParseException {
+    return getData(lexer, t, 0);
+  }
+
+  // For a value inside depth containers, which count towards maxDepth
+  JSONElement getData(JSONLexer lexer, TokenType t, int depth)
+    throws IOException, JSONParseException {
+    switch (t) {
+      case STRING:
+        return new JSONString(lexer.stringValue());
+      case INTEGER:
+        return new JSONInteger(lexer.longValue);
+      case FLOAT:
+        return new JSONFloat(lexer.doubleValue);
+      case TRUE:
+        return JSONBoolean.TRUE;
+      case FALSE:
+        return JSONBoolean.FALSE;
+      case NULL:
+        return JSONElement.NULL;
+      case LEFT_BRACE:
+      case LEFT_BRACKET:
+        return build(lexer, t, depth);
       default:
-      // no fastpath
+        throw lexer.tokenError("Unexpected " + t + " token");
     }
+  }
 
-    // Clear buffer for operation
-    builder.delete(0, builder.length());
+  // Like getData(), but keeps only what the projection does; null for a skipped scalar
+  private JSONElement getData(
+    JSONLexer lexer,
+    TokenType t,
+    JSONProjection projection,
+    int depth
+  ) throws IOException, JSONParseException {
+    if (projection == JSONProjection.ALL) {
+      return getData(lexer, t, depth);
+    } else if (t == TokenType.LEFT_BRACE) {
+      return projectObj(lexer, projection, depth);
+    } else if (t == TokenType.LEFT_BRACKET) {
+      return projectArr(lexer, projection, depth);
+    }
+    Binder.skip(this, lexer, t, depth);
+    return null;
+  }
 
-    if (c == '"') {
-      // String
-      boolean escaped = false;
+  private JSONElement projectObj(JSONLexer lexer, JSONProjection projection, int depth)
+    throws IOException, JSONParseException {
+    checkDepth(lexer, depth);
+    JSONCompactObject compact = (shapes != null) ? new JSONCompactObject() : null;
+    Map<String, JSONElement> obj = (compact != null) ? compact : new JSONObject();
+    TokenType t = lexer.nextToken();
+    if (t != TokenType.RIGHT_BRACE) {
       for (;;) {
-        c = nextChar();
-        if (c < 0x0020) {
-          throw new JSONParseException("Unescaped control character", line, col);
-        }
-        switch (c) {
-          case '"':
-            if (escaped) {
-              escaped = false;
-              builder.append('"');
+        expect(lexer, t, TokenType.STRING);
+        String key = lexer.keyValue(keys);
+        JSONProjection member = projection.member(key);
+        expect(lexer, lexer.nextToken(), TokenType.COLON);
+
+        t = lexer.nextToken();
+        if (member == null) {
+          Binder.skip(this, lexer, t, depth + 1);
+        } else {
+          // Only kept members are checked for duplicates
+          if (obj.containsKey(key)) {
+            if (allowDuplicateKeys) {
+              obj.remove(key);
             } else {
-              return new Token(TokenType.STRING, new JSONString(builder.toString()));
-            }
-            break;
-          case '\\':
-            if (escaped) {
-              builder.append('\\');
+              throw lexer.tokenError("Duplicate key '" + key + "'");
             }
-            escaped = !escaped;
-            break;
-          case '/':
-            escaped = false;
-            builder.append('/');
+          }
+          JSONElement value = getData(lexer, t, member, depth + 1);
+          if (value != null) {
+            obj.put(key, value);
+          }
+        }
+
+        t = lexer.nextToken();
+        if (t != TokenType.COMMA) {
+          expect(lexer, t, TokenType.RIGHT_BRACE);
+          break;
+        }
+        t = lexer.nextToken();
+      }
+    }
+    if (compact != null) {
+      compact.share(shapes);
+    }
+    return (JSONElement) obj;
+  }
+
+  private JSONArray projectArr(JSONLexer lexer, JSONProjection projection, int depth)
+    throws IOException, JSONParseException {
+    checkDepth(lexer, depth);
+    JSONArray array = new JSONArray();
+    TokenType t = lexer.nextToken();
+    if (t == TokenType.RIGHT_BRACKET) {
+      return array;
+    }
+    for (int i = 0;; i++) {
+      JSONProjection element = projection.element(i);
+      if (element == null) {
+        Binder.skip(this, lexer, t, depth + 1);
+      } else {
+        JSONElement value = getData(lexer, t, element, depth + 1);
+        if (value != null) {
+          array.add(value);
+        }
+      }
+      t = lexer.nextToken();
+      if (t != TokenType.COMMA) {
+        expect(lexer, t, TokenType.RIGHT_BRACKET);
+        return array;
+      }
+      t = lexer.nextToken();
+    }
+  }
+
+  // Builds a container inside base others without recursion: open containers are kept in explicit
+  // stacks, so nesting is limited only by maxDepth and the heap, not the thread's stack
+  private JSONElement build(JSONLexer lexer, TokenType t, int base)
+    throws IOException, JSONParseException {
+    Object[] containers = new Object[16];
+    String[] names = new String[16]; // Each open object's current key
+    int depth = 0;
+    for (;;) {
+      // t starts a value; value stays null if it went straight into a Numbers
+      JSONElement value = null;
+      Object top = (depth == 0) ? null : containers[depth - 1];
+      if (!(top instanceof Numbers) || !((Numbers) top).add(lexer, t)) {
+        if (top instanceof Numbers) {
+          // Box what has been read so far, and carry on from the element that didn't fit
+          containers[depth - 1] = ((Numbers) top).box();
+        }
+        switch (t) {
+          case STRING:
+            value = new JSONString(lexer.stringValue());
             break;
-          case 'b':
-            if (escaped) {
-              escaped = false;
-              c = '\b';
-            }
-            builder.append(c);
+          case INTEGER:
+            value = new JSONInteger(lexer.longValue);
             break;
-          case 'f':
-            if (escaped) {
-              escaped = false;
-              c = '\f';
-            }
-            builder.append(c);
+          case FLOAT:
+            value = new JSONFloat(lexer.doubleValue);
             break;
-          case 'n':
-            if (escaped) {
-              escaped = false;
-              c = '\n';
-            }
-            builder.append(c);
+          case TRUE:
+            value = JSONBoolean.TRUE;
             break;
-          case 'r':
-            if (escaped) {
-              escaped = false;
-              c = '\r';
-            }
-            builder.append(c);
+          case FALSE:
+            value = JSONBoolean.FALSE;
             break;
-          case 't':
-            if (escaped) {
-              escaped = false;
-              c = '\t';
-            }
-            builder.append(c);
+          case NULL:
+            value = JSONElement.NULL;
             break;
-          case 'u':
-            if (escaped) {
-              escaped = false;
-              int unicode = 0;
-              for (int i = 0; i < 4; i++) {
-                unicode <<= 4;
-                c = nextChar();
-                if ((c >= '0' && c <= '9')) {
-                  unicode += c - '0';
-                } else if (c >= 'a' && c <= 'f') {
-                  unicode += c - ('a' - 10);
-                } else if (c >= 'A' && c <= 'F') {
-                  unicode += c - ('A' - 10);
-                } else {
-                  throw new JSONParseException("Expected escaped Unicode BMP codepoint", line, col);
+          case LEFT_BRACE:
+          case LEFT_BRACKET:
+            checkDepth(lexer, base + depth);
+            boolean object = t == TokenType.LEFT_BRACE;
+            t = lexer.nextToken();
+            Object container;
+            if (object) {
+              JSONCompactObject compact = (shapes != null) ? new JSONCompactObject() : null;
+              container = (compact != null) ? compact : new JSONObject();
+              if (t == TokenType.RIGHT_BRACE) {
+                if (compact != null) {
+                  compact.share(shapes);
                 }
+                value = (JSONElement) container;
+                break;
               }
-              c = (char) unicode;
+            } else if (t == TokenType.RIGHT_BRACKET) {
+              value = new JSONArray();
+              break;
+            } else {
+              boolean numbers = compactNumbers && (t == TokenType.INTEGER || t == TokenType.FLOAT);
+              container = numbers ? new Numbers() : new JSONArray();
+            }
+            if (depth == containers.length) {
+              containers = Arrays.copyOf(containers, depth << 1);
+              names = Arrays.copyOf(names, depth << 1);
+            }
+            containers[depth] = container;
+            if (object) {
+              names[depth] = key(lexer, t, (Map<?, ?>) container);
+              t = lexer.nextToken();
             }
-          // fallthrough
+            depth++;
+            continue;
           default:
-            builder.append(c);
-            break;
+            throw lexer.tokenError("Unexpected " + t + " token");
         }
       }
-    } else if ((c >= '0' && c <= '9') || c == '-') {
-      // Number: grab all characters, then verify
-      do {
-        builder.append(c);
-        if (!hasChar()) {
-          break;
+
+      // Put the value in its container, closing each container that ends after it
+      for (;;) {
+        if (depth == 0) {
+          return value;
         }
-        c = nextChar();
-      } while (
-        // prettier-ignore
-        (c >= '0' && c <= '9') ||
-        c == '.' ||
-        c == 'e' ||
-        c == 'E' ||
-        c == '+' ||
-        c == '-'
-      );
-
-      carryC = c;
-      String str = builder.toString();
-      if (INTEGER.matcher(str).matches()) {
-        try {
-          return new Token(TokenType.INTEGER, new JSONInteger(Long.parseLong(str)));
-        } catch (NumberFormatException e) {
-          // fallthrough
+        Object container = containers[depth - 1];
+        if (value == null) {
+          // Already in the Numbers
+        } else if (container instanceof JSONArray) {
+          ((JSONArray) container).add(value);
+        } else if (container instanceof JSONCompactObject) {
+          ((JSONCompactObject) container).append(names[depth - 1], value);
+        } else {
+          ((JSONObject) container).put(names[depth - 1], value);
         }
-      }
-      if (FLOAT.matcher(str).matches()) {
-        try {
-          return new Token(TokenType.FLOAT, new JSONFloat(Double.parseDouble(str)));
-        } catch (NumberFormatException e) {
-          // fallthrough
+
+        t = lexer.nextToken();
+        if (t == TokenType.COMMA) {
+          t = lexer.nextToken();
+          if (container instanceof Map) {
+            names[depth - 1] = key(lexer, t, (Map<?, ?>) container);
+            t = lexer.nextToken();
+          }
+          break;
+        }
+        depth--;
+        containers[depth] = null;
+        names[depth] = null;
+        if (container instanceof Map) {
+          expect(lexer, t, TokenType.RIGHT_BRACE);
+          if (container instanceof JSONCompactObject) {
+            ((JSONCompactObject) container).share(shapes);
+          }
+          value = (JSONElement) container;
+        } else {
+          expect(lexer, t, TokenType.RIGHT_BRACKET);
+          value = (container instanceof Numbers)
+            ? ((Numbers) container).finish()
+            : (JSONElement) container;
         }
       }
-      throw new JSONParseException("Invalid number '" + str + "'", tokenLine, tokenCol);
-    } else {
-      throw new JSONParseException("Unknown pattern", line, col);
     }
   }
 
-  private JSONElement getData(Token t) throws IOException, JSONParseException {
-    if (t.data != null) {
-      // Value literal
-      return t.data;
-    } else if (t.type == TokenType.LEFT_BRACE) {
-      return processObj();
-    } else if (t.type == TokenType.LEFT_BRACKET) {
-      return processArr();
-    } else {
-      throw new JSONParseException(
-        "Unexpected " + t.type + " token '" + t.data + "'",
-        tokenLine,
-        tokenCol
-      );
+  // Reads a member's key (at t) and its colon, making room for it in the object
+  private String key(JSONLexer lexer, TokenType t, Map<?, ?> obj)
+    throws IOException, JSONParseException {
+    expect(lexer, t, TokenType.STRING);
+    String key = lexer.keyValue(keys);
+    if (obj.containsKey(key)) {
+      if (allowDuplicateKeys) {
+        obj.remove(key);
+      } else {
+        throw lexer.tokenError("Duplicate key '" + key + "'");
+      }
     }
+    expect(lexer, lexer.nextToken(), TokenType.COLON);
+    return key;
   }
 
-  private JSONObject processObj() throws IOException, JSONParseException {
-    JSONObject obj = new JSONObject();
-    Token t = nextToken();
-    if (t.type == TokenType.RIGHT_BRACE) {
-      return obj;
+  // Fails if a container opened at this depth (the number already open) would be too deep
+  void checkDepth(JSONLexer lexer, int depth) throws JSONParseException {
+    if (depth >= maxDepth) {
+      throw lexer.tokenError(tooDeep());
     }
-    for (;;) {
-      expect(t, TokenType.STRING);
-      String key = ((JSONString) t.data).get();
-      if (obj.containsKey(key)) {
-        if (allowDuplicateKeys) {
-          obj.remove(key);
-        } else {
-          throw new JSONParseException("Duplicate key '" + key + "'", tokenLine, tokenCol);
+  }
+
+  String tooDeep() {
+    return "Nesting deeper than " + maxDepth + " levels";
+  }
+
+  // An array of only numbers so far. Integers go in a long[] until the first float, then
+  // everything goes in a double[], as long as the integers convert exactly; the JSONDoubleArray
+  // keeps track of which were integers.
+  private static final class Numbers {
+    long[] longs = new long[16];
+    double[] doubles;
+    BitSet integers; // Which doubles were integers
+    int size;
+
+    // Whether the token was a number that fits
+    boolean add(JSONLexer lexer, TokenType t) {
+      if (t == TokenType.INTEGER && doubles == null) {
+        if (size == longs.length) {
+          longs = Arrays.copyOf(longs, size << 1);
         }
+        longs[size++] = lexer.longValue;
+        return true;
+      } else if (t != TokenType.FLOAT && (t != TokenType.INTEGER || !isExact(lexer.longValue))) {
+        return false;
       }
-      expect(nextToken(), TokenType.COLON);
+      if (doubles == null) {
+        if (!allExact(longs, size)) {
+          return false;
+        }
+        doubles = new double[longs.length];
+        for (int i = 0; i < size; i++) {
+          doubles[i] = longs[i];
+        }
+        integers = new BitSet();
+        integers.set(0, size);
+        longs = null;
+      }
+      if (size == doubles.length) {
+        doubles = Arrays.copyOf(doubles, size << 1);
+      }
+      if (t == TokenType.INTEGER) {
+        integers.set(size);
+        doubles[size++] = lexer.longValue;
+      } else {
+        doubles[size++] = lexer.doubleValue;
+      }
+      return true;
+    }
 
-      Token t2 = nextToken();
-      obj.put(key, getData(t2));
+    JSONElement finish() {
+      return (doubles == null)
+        ? new JSONLongArray(Arrays.copyOf(longs, size), size)
+        : new JSONDoubleArray(Arrays.copyOf(doubles, size), size, integers);
+    }
 
-      t = nextToken();
-      if (t.type != TokenType.COMMA) {
-        expect(t, TokenType.RIGHT_BRACE);
-        return obj;
+    JSONArray box() {
+      JSONArray array = new JSONArray();
+      array.ensureCapacity(size + 1);
+      for (int i = 0; i < size; i++) {
+        if (doubles == null) {
+          array.add(new JSONInteger(longs[i]));
+        } else if (integers.get(i)) {
+          array.add(new JSONInteger((long) doubles[i]));
+        } else {
+          array.add(new JSONFloat(doubles[i]));
+        }
       }
-      t = nextToken();
+      return array;
     }
   }
 
-  private JSONArray processArr() throws IOException, JSONParseException {
-    JSONArray array = new JSONArray();
-    Token t = nextToken();
-    if (t.type == TokenType.RIGHT_BRACKET) {
+  // The array as a JSONLongArray or JSONDoubleArray, if build() would have made one
+  static JSONElement unboxNumbers(JSONArray array) {
+    int size = array.size();
+    boolean floats = false;
+    for (JSONElement element : array) {
+      if (element instanceof JSONFloat) {
+        floats = true;
+      } else if (!(element instanceof JSONInteger)) {
+        return array;
+      }
+    }
+    if (size == 0) {
       return array;
+    } else if (!floats) {
+      long[] longs = new long[size];
+      for (int i = 0; i < size; i++) {
+        longs[i] = ((JSONInteger) array.get(i)).getAsLong();
+      }
+      return new JSONLongArray(longs, size);
     }
-    for (;;) {
-      array.add(getData(t));
-      t = nextToken();
-      if (t.type != TokenType.COMMA) {
-        expect(t, TokenType.RIGHT_BRACKET);
+    double[] doubles = new double[size];
+    BitSet integers = new BitSet();
+    for (int i = 0; i < size; i++) {
+      JSONElement element = array.get(i);
+      if (element instanceof JSONFloat) {
+        doubles[i] = ((JSONFloat) element).getAsDouble();
+      } else if (isExact(((JSONInteger) element).getAsLong())) {
+        doubles[i] = ((JSONInteger) element).getAsLong();
+        integers.set(i);
+      } else {
         return array;
       }
-      t = nextToken();
     }
+    return new JSONDoubleArray(doubles, size, integers);
+  }
+
+  static boolean isExact(long value) {
+    return value >= -(1L << 53) && value <= (1L << 53);
+  }
+
+  private static boolean allExact(long[] values, int size) {
+    for (int i = 0; i < size; i++) {
+      if (!isExact(values[i])) {
+        return false;
+      }
+    }
+    return true;
   }
 
-  private void expect(Token t, TokenType type) throws JSONParseException {
-    if (t.type != type) {
-      throw new JSONParseException(
-        "Expected " + type + " instead of " + t.type,
-        tokenLine,
-        tokenCol
-      );
+  private void expect(JSONLexer lexer, TokenType t, TokenType type) throws JSONParseException {
+    if (t != type) {
+      throw lexer.tokenError("Expected " + type + " instead of " + t);
     }
   }
 }
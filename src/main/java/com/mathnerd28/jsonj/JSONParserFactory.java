@@ -0,0 +1,28 @@
+package com.mathnerd28.jsonj;
+
+// Hands out parsers that keep their buffers between calls. Settings are copied once, when the
+// factory is created, and the parsers it returns can't be reconfigured.
+public final class JSONParserFactory {
+
+  private final JSONParser settings;
+  private final ThreadLocal<JSONParser> parsers;
+
+  public JSONParserFactory() {
+    this(new JSONParser());
+  }
+
+  public JSONParserFactory(JSONParser settings) {
+    this.settings = new JSONParser(settings);
+    parsers = ThreadLocal.withInitial(this::newParser);
+  }
+
+  // The calling thread's parser, which must not be passed to other threads
+  public JSONParser get() {
+    return parsers.get();
+  }
+
+  // A parser of its own, for callers that pool parsers themselves. Not thread-safe.
+  public JSONParser newParser() {
+    return new JSONParser(settings);
+  }
+}
@@ -0,0 +1,385 @@
+package com.mathnerd28.jsonj;
+
+import com.mathnerd28.jsonj.JSONLexer.TokenType;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * A compiled query, in one of two forms:
+ *
+ *   JSON Pointer (RFC 6901)   "", "/a/b/0", "/a~1b", with "*" for any member or element
+ *   JSONPath                  "$", "$.a.b[0]", "$['a.b']", "$.a[*].b", "$..id", "$..*"
+ *
+ * A pointer's numeric steps match both the array index and the member of that name. JSONPath's
+ * ".." searches every level below. Negative indexes, slices and filters aren't supported.
+ *
+ * Matches come in document order, an enclosing value before the values inside it. A path can be
+ * run against a tree with select(), or against unparsed text with JSONParser.select(), which only
+ * builds the matched values.
+ */
+public final class JSONPath {
+
+  // Bit n of a state set means the first n steps have matched
+  private static final int MAX_STEPS = 63;
+
+  private final String path;
+  private final Step[] steps;
+  private final long accept;
+
+  private JSONPath(String path, List<Step> steps) {
+    this.path = path;
+    this.steps = steps.toArray(new Step[0]);
+    accept = 1L << this.steps.length;
+  }
+
+  public static JSONPath compile(String path) {
+    List<Step> steps = new ArrayList<>();
+    if (path.isEmpty() || path.charAt(0) == '/') {
+      pointer(path, steps);
+    } else if (path.charAt(0) == '$') {
+      jsonPath(path, steps);
+    } else {
+      throw new IllegalArgumentException("Path must start with '/' or '$': " + path);
+    }
+    if (steps.size() > MAX_STEPS) {
+      throw new IllegalArgumentException("Path has more than " + MAX_STEPS + " steps: " + path);
+    }
+    return new JSONPath(path, steps);
+  }
+
+  // Every match in the tree
+  public List<JSONElement> select(JSONElement root) {
+    List<JSONElement> matches = new ArrayList<>();
+    if ((1L & accept) != 0) {
+      matches.add(root);
+    }
+    tree(root, 1L, matches);
+    return matches;
+  }
+
+  // The first match, or null
+  public JSONElement selectFirst(JSONElement root) {
+    List<JSONElement> matches = select(root);
+    return matches.isEmpty() ? null : matches.get(0);
+  }
+
+  @Override
+  public String toString() {
+    return path;
+  }
+
+  Step[] steps() {
+    return steps;
+  }
+
+  private void tree(JSONElement node, long states, List<JSONElement> matches) {
+    if (node instanceof Map) {
+      @SuppressWarnings("unchecked")
+      Map<String, JSONElement> obj = (Map<String, JSONElement>) node;
+      for (Map.Entry<String, JSONElement> entry : obj.entrySet()) {
+        String key = entry.getKey();
+        long next = advance(states, key.toCharArray(), key.length(), -1);
+        child(entry.getValue(), next, matches);
+      }
+    } else if (node instanceof List) {
+      @SuppressWarnings("unchecked")
+      List<JSONElement> array = (List<JSONElement>) node;
+      for (int i = 0; i < array.size(); i++) {
+        child(array.get(i), advance(states, null, 0, i), matches);
+      }
+    }
+  }
+
+  private void child(JSONElement value, long states, List<JSONElement> matches) {
+    if ((states & accept) != 0) {
+      matches.add(value);
+    }
+    if ((states & ~accept) != 0) {
+      tree(value, states, matches);
+    }
+  }
+
+  // Runs against the value starting with t (inside depth containers), building only the matches;
+  // false once there are limit of them, leaving the rest of the input unread
+  boolean stream(
+    JSONParser parser,
+    JSONLexer lexer,
+    TokenType t,
+    long states,
+    List<JSONElement> matches,
+    int limit,
+    int depth
+  ) throws IOException, JSONParseException {
+    if ((states & accept) != 0) {
+      JSONElement value = parser.getData(lexer, t, depth);
+      matches.add(value);
+      if ((states & ~accept) != 0) {
+        tree(value, states, matches);
+      }
+      if (matches.size() >= limit) {
+        matches.subList(limit, matches.size()).clear();
+        return false;
+      }
+      return true;
+    } else if (t == TokenType.LEFT_BRACE) {
+      parser.checkDepth(lexer, depth);
+      t = lexer.nextToken();
+      if (t == TokenType.RIGHT_BRACE) {
+        return true;
+      }
+      for (;;) {
+        expect(lexer, t, TokenType.STRING);
+        long next = advance(states, lexer.text, lexer.textLen, -1);
+        expect(lexer, lexer.nextToken(), TokenType.COLON);
+        if (!value(parser, lexer, lexer.nextToken(), next, matches, limit, depth + 1)) {
+          return false;
+        }
+        t = lexer.nextToken();
+        if (t != TokenType.COMMA) {
+          expect(lexer, t, TokenType.RIGHT_BRACE);
+          return true;
+        }
+        t = lexer.nextToken();
+      }
+    } else if (t == TokenType.LEFT_BRACKET) {
+      parser.checkDepth(lexer, depth);
+      t = lexer.nextToken();
+      if (t == TokenType.RIGHT_BRACKET) {
+        return true;
+      }
+      for (int i = 0;; i++) {
+        long next = advance(states, null, 0, i);
+        if (!value(parser, lexer, t, next, matches, limit, depth + 1)) {
+          return false;
+        }
+        t = lexer.nextToken();
+        if (t != TokenType.COMMA) {
+          expect(lexer, t, TokenType.RIGHT_BRACKET);
+          return true;
+        }
+        t = lexer.nextToken();
+      }
+    }
+    Binder.skip(parser, lexer, t, depth);
+    return true;
+  }
+
+  private boolean value(
+    JSONParser parser,
+    JSONLexer lexer,
+    TokenType t,
+    long states,
+    List<JSONElement> matches,
+    int limit,
+    int depth
+  ) throws IOException, JSONParseException {
+    if (states == 0) {
+      // Nothing below can match
+      Binder.skip(parser, lexer, t, depth);
+      return true;
+    }
+    return stream(parser, lexer, t, states, matches, limit, depth);
+  }
+
+  // The states of a member (key is non-null) or element (index is non-negative) of a value in
+  // the given states
+  private long advance(long states, char[] key, int keyLen, int index) {
+    long next = 0;
+    for (long rest = states & ~accept; rest != 0; rest &= rest - 1) {
+      int n = Long.numberOfTrailingZeros(rest);
+      Step step = steps[n];
+      if (step.matches(key, keyLen, index)) {
+        next |= 1L << (n + 1);
+      }
+      if (step.descendant) {
+        next |= 1L << n;
+      }
+    }
+    return next;
+  }
+
+  private static void expect(JSONLexer lexer, TokenType t, TokenType type)
+    throws JSONParseException {
+    if (t != type) {
+      throw lexer.tokenError("Expected " + type + " instead of " + t);
+    }
+  }
+
+  private static void pointer(String path, List<Step> steps) {
+    int start = 1;
+    while (start <= path.length()) {
+      int end = path.indexOf('/', start);
+      if (end < 0) {
+        end = path.length();
+      }
+      String token = path.substring(start, end);
+      if (token.equals("*")) {
+        steps.add(new Step(null, -1, false));
+      } else {
+        String name = unescape(token, path);
+        steps.add(new Step(name, index(name), false));
+      }
+      start = end + 1;
+    }
+  }
+
+  private static String unescape(String token, String path) {
+    if (token.indexOf('~') < 0) {
+      return token;
+    }
+    StringBuilder name = new StringBuilder(token.length());
+    for (int i = 0; i < token.length(); i++) {
+      char c = token.charAt(i);
+      if (c == '~') {
+        char next = (i + 1 < token.length()) ? token.charAt(++i) : 0;
+        if (next != '0' && next != '1') {
+          throw new IllegalArgumentException("Invalid escape in pointer: " + path);
+        }
+        c = (next == '0') ? '~' : '/';
+      }
+      name.append(c);
+    }
+    return name.toString();
+  }
+
+  // A pointer token's array index, or -1; no sign or leading zeros
+  private static int index(String token) {
+    if (token.isEmpty() || token.length() > 9 || (token.charAt(0) == '0' && token.length() > 1)) {
+      return -1;
+    }
+    for (int i = 0; i < token.length(); i++) {
+      if (token.charAt(i) < '0' || token.charAt(i) > '9') {
+        return -1;
+      }
+    }
+    return Integer.parseInt(token);
+  }
+
+  private static void jsonPath(String path, List<Step> steps) {
+    int i = 1;
+    while (i < path.length()) {
+      boolean descendant = false;
+      char c = path.charAt(i);
+      if (c == '.') {
+        i++;
+        if (i < path.length() && path.charAt(i) == '.') {
+          descendant = true;
+          i++;
+        }
+        if (i == path.length()) {
+          throw invalid(path, i);
+        } else if (path.charAt(i) == '*') {
+          steps.add(new Step(null, -1, descendant));
+          i++;
+          continue;
+        } else if (path.charAt(i) != '[') {
+          int end = i;
+          while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+            end++;
+          }
+          if (end == i) {
+            throw invalid(path, i);
+          }
+          steps.add(new Step(path.substring(i, end), -1, descendant));
+          i = end;
+          continue;
+        } else if (!descendant) {
+          throw invalid(path, i);
+        }
+        c = '[';
+      }
+      if (c != '[') {
+        throw invalid(path, i);
+      }
+      i = bracket(path, i + 1, descendant, steps);
+    }
+  }
+
+  // Reads a bracketed selector starting at i, and returns the index after its ']'
+  private static int bracket(String path, int i, boolean descendant, List<Step> steps) {
+    if (i == path.length()) {
+      throw invalid(path, i);
+    }
+    char c = path.charAt(i);
+    if (c == '*') {
+      steps.add(new Step(null, -1, descendant));
+      i++;
+    } else if (c == '\'' || c == '"') {
+      StringBuilder name = new StringBuilder();
+      for (i++;; i++) {
+        if (i == path.length()) {
+          throw invalid(path, i);
+        }
+        char d = path.charAt(i);
+        if (d == c) {
+          break;
+        } else if (d == '\\' && i + 1 < path.length()) {
+          d = path.charAt(++i);
+        }
+        name.append(d);
+      }
+      steps.add(new Step(name.toString(), -1, descendant));
+      i++;
+    } else if (c >= '0' && c <= '9') {
+      int end = i;
+      while (end < path.length() && path.charAt(end) >= '0' && path.charAt(end) <= '9') {
+        end++;
+      }
+      int index = index(path.substring(i, end));
+      if (index < 0) {
+        throw invalid(path, i);
+      }
+      steps.add(new Step(null, index, descendant));
+      i = end;
+    } else {
+      throw new IllegalArgumentException(
+        "Only names, indexes and '*' are supported at " + i + ": " + path
+      );
+    }
+    if (i == path.length() || path.charAt(i) != ']') {
+      throw invalid(path, i);
+    }
+    return i + 1;
+  }
+
+  private static IllegalArgumentException invalid(String path, int i) {
+    return new IllegalArgumentException("Invalid path at " + i + ": " + path);
+  }
+
+  static final class Step {
+
+    // Member name, or null
+    final char[] name;
+    // Array index, or -1
+    final int index;
+    // Neither of those: any member or element
+    final boolean any;
+    // Also tried at every level below
+    final boolean descendant;
+
+    Step(String name, int index, boolean descendant) {
+      this.name = (name == null) ? null : name.toCharArray();
+      this.index = index;
+      any = name == null && index < 0;
+      this.descendant = descendant;
+    }
+
+    boolean matches(char[] key, int keyLen, int i) {
+      if (any) {
+        return true;
+      } else if (key == null) {
+        return i == index;
+      } else if (name == null || name.length != keyLen) {
+        return false;
+      }
+      for (int k = 0; k < keyLen; k++) {
+        if (name[k] != key[k]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
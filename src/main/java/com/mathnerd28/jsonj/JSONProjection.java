@@ -0,0 +1,49 @@
+package com.mathnerd28.jsonj;
+
+import java.util.function.Predicate;
+
+// Which parts of a document JSONParser.parse() builds. For each member or element it gives the
+// projection for that value: ALL to keep the whole value, null to skip it, or another projection
+// to keep only parts of it. Skipped values are checked, but nothing is built for them.
+//
+// A scalar is only kept where its projection is ALL. An object or array is kept wherever its
+// projection isn't null, even if nothing inside it is.
+public interface JSONProjection {
+  JSONProjection ALL = new JSONProjection() {
+    @Override
+    public JSONProjection member(String key) {
+      return this;
+    }
+
+    @Override
+    public JSONProjection element(int index) {
+      return this;
+    }
+  };
+
+  JSONProjection member(String key);
+
+  JSONProjection element(int index);
+
+  // Keeps the values at the given JSON Pointers or JSONPaths (see JSONPath, but without ".."),
+  // and the containers on the way to them
+  static JSONProjection of(String... paths) {
+    return ProjectionNode.of(paths);
+  }
+
+  // Keeps the members of the top-level object whose keys pass, and none of its elements if it is
+  // an array
+  static JSONProjection members(Predicate<String> keep) {
+    return new JSONProjection() {
+      @Override
+      public JSONProjection member(String key) {
+        return keep.test(key) ? ALL : null;
+      }
+
+      @Override
+      public JSONProjection element(int index) {
+        return null;
+      }
+    };
+  }
+}
@@ -0,0 +1,347 @@
+package com.mathnerd28.jsonj;
+
+import com.mathnerd28.jsonj.JSONLexer.TokenType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+
+// Parses UTF-8 that arrives in fragments of any size, without blocking: feed() takes what is
+// available, and each document is ready from poll() as soon as its last byte is fed. Documents may
+// follow one another, separated by whitespace (or nothing, where that's unambiguous). Everything
+// in progress is kept in explicit stacks, so one thread can serve many parsers in turn. Not
+// thread-safe, and can't be used again after an error.
+public final class JSONPushParser {
+
+  // What the next token may be
+  private static final byte VALUE = 0;
+  private static final byte FIRST_VALUE = 1;
+  private static final byte FIRST_KEY = 2;
+  private static final byte KEY = 3;
+  private static final byte COLON = 4;
+  private static final byte AFTER_VALUE = 5;
+
+  private final JSONParser parser;
+  private final ByteLexer lexer = new ByteLexer();
+  private final ArrayDeque<JSONElement> documents = new ArrayDeque<>();
+
+  // Bytes fed but not yet lexed are data[pos, end)
+  private byte[] data = new byte[4096];
+  private int pos;
+  private int end;
+  // Absolute offset of data[0], and where the current line starts
+  private long base;
+  private long lineStart;
+  private int line = 1;
+
+  // Start of a token not yet complete, or -1; how far it was scanned, and whether that ended in a
+  // string's backslash
+  private int tokenStart = -1;
+  private int scanned;
+  private boolean escaped;
+
+  // Open containers, innermost last, with each object's current key
+  private Object[] containers = new Object[16];
+  private String[] keys = new String[16];
+  private int depth;
+  private byte state = VALUE;
+
+  private boolean ended;
+  private boolean failed;
+
+  JSONPushParser(JSONParser parser) {
+    this.parser = parser;
+  }
+
+  // Takes all of the buffer's remaining bytes
+  public void feed(ByteBuffer buffer) throws JSONParseException {
+    int n = buffer.remaining();
+    reserve(n);
+    buffer.get(data, end, n);
+    end += n;
+    run();
+  }
+
+  public void feed(byte[] bytes, int offset, int length) throws JSONParseException {
+    reserve(length);
+    System.arraycopy(bytes, offset, data, end, length);
+    end += length;
+    run();
+  }
+
+  public void feed(byte[] bytes) throws JSONParseException {
+    feed(bytes, 0, bytes.length);
+  }
+
+  // Marks the end of the input, which completes a number at the very end; fails if a document is
+  // unfinished
+  public void end() throws JSONParseException {
+    checkUsable();
+    ended = true;
+    run();
+    if (depth > 0 || state != VALUE) {
+      failed = true;
+      throw new JSONParseException("Unexpected termination", line, (int) (base + end - lineStart));
+    }
+  }
+
+  // The next complete document, or null if there is none yet
+  public JSONElement poll() {
+    return documents.poll();
+  }
+
+  // Whether the last document fed so far is complete (or nothing has been fed)
+  public boolean isIdle() {
+    return depth == 0 && state == VALUE && tokenStart < 0 && !hasContent();
+  }
+
+  private boolean hasContent() {
+    for (int i = pos; i < end; i++) {
+      byte b = data[i];
+      if (b != ' ' && b != '\n' && b != '\t' && b != '\r') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void run() throws JSONParseException {
+    try {
+      for (;;) {
+        if (tokenStart < 0) {
+          skipWhitespace();
+          if (pos == end) {
+            break;
+          }
+          tokenStart = pos;
+          scanned = pos + 1;
+          escaped = false;
+        }
+        if (!complete()) {
+          break;
+        }
+        lexer.reset(data, tokenStart, end - tokenStart, line, (int) (lineStart - base));
+        token(lexer.nextToken());
+        pos = lexer.position();
+        tokenStart = -1;
+      }
+    } catch (JSONParseException e) {
+      failed = true;
+      throw e;
+    } catch (IOException e) {
+      throw new AssertionError("IOException from byte[]", e);
+    }
+    compact();
+  }
+
+  private void skipWhitespace() {
+    for (; pos < end; pos++) {
+      byte b = data[pos];
+      if (b == '\n') {
+        line++;
+        lineStart = base + pos + 1;
+      } else if (b != ' ' && b != '\t' && b != '\r') {
+        return;
+      }
+    }
+  }
+
+  // Whether all of the token at tokenStart has been fed, scanning on from where the last call
+  // stopped. Strings end at their closing quote; numbers and keywords at the next byte that can't
+  // be part of them, or the end of the input. The lexer then checks the token itself.
+  private boolean complete() {
+    byte first = data[tokenStart];
+    if (first == '"') {
+      for (; scanned < end; scanned++) {
+        byte b = data[scanned];
+        if (escaped) {
+          escaped = false;
+        } else if (b == '\\') {
+          escaped = true;
+        } else if (b == '"') {
+          return true;
+        }
+      }
+      return ended;
+    }
+    boolean number = (first >= '0' && first <= '9') || first == '-';
+    if (number || (first >= 'a' && first <= 'z')) {
+      for (; scanned < end; scanned++) {
+        byte b = data[scanned];
+        if (number ? !JSONLexer.isNumberChar(b) : (b < 'a' || b > 'z')) {
+          return true;
+        }
+      }
+      return ended;
+    }
+    return true;
+  }
+
+  private void token(TokenType t) throws JSONParseException {
+    switch (state) {
+      case VALUE:
+        value(t);
+        break;
+      case FIRST_VALUE:
+        if (t == TokenType.RIGHT_BRACKET) {
+          close(t);
+        } else {
+          value(t);
+        }
+        break;
+      case FIRST_KEY:
+        if (t == TokenType.RIGHT_BRACE) {
+          close(t);
+        } else {
+          key(t);
+        }
+        break;
+      case KEY:
+        key(t);
+        break;
+      case COLON:
+        expect(t, TokenType.COLON);
+        state = VALUE;
+        break;
+      default:
+        if (t != TokenType.COMMA) {
+          close(t);
+        } else {
+          state = (containers[depth - 1] instanceof JSONArray) ? VALUE : KEY;
+        }
+    }
+  }
+
+  private void value(TokenType t) throws JSONParseException {
+    switch (t) {
+      case STRING:
+        add(new JSONString(lexer.stringValue()));
+        break;
+      case INTEGER:
+        add(new JSONInteger(lexer.longValue));
+        break;
+      case FLOAT:
+        add(new JSONFloat(lexer.doubleValue));
+        break;
+      case TRUE:
+        add(JSONBoolean.TRUE);
+        break;
+      case FALSE:
+        add(JSONBoolean.FALSE);
+        break;
+      case NULL:
+        add(JSONElement.NULL);
+        break;
+      case LEFT_BRACE:
+        push((parser.shapes != null) ? new JSONCompactObject() : new JSONObject());
+        state = FIRST_KEY;
+        break;
+      case LEFT_BRACKET:
+        push(new JSONArray());
+        state = FIRST_VALUE;
+        break;
+      default:
+        throw lexer.tokenError("Unexpected " + t + " token");
+    }
+  }
+
+  private void key(TokenType t) throws JSONParseException {
+    expect(t, TokenType.STRING);
+    String key = lexer.keyValue(parser.keys);
+    Map<?, ?> obj = (Map<?, ?>) containers[depth - 1];
+    if (obj.containsKey(key)) {
+      if (parser.allowDuplicateKeys) {
+        obj.remove(key);
+      } else {
+        throw lexer.tokenError("Duplicate key '" + key + "'");
+      }
+    }
+    keys[depth - 1] = key;
+    state = COLON;
+  }
+
+  private void close(TokenType t) throws JSONParseException {
+    Object container = containers[--depth];
+    containers[depth] = null;
+    keys[depth] = null;
+    JSONElement value;
+    if (container instanceof JSONArray) {
+      expect(t, TokenType.RIGHT_BRACKET);
+      JSONArray array = (JSONArray) container;
+      value = parser.compactNumbers ? JSONParser.unboxNumbers(array) : array;
+    } else {
+      expect(t, TokenType.RIGHT_BRACE);
+      if (container instanceof JSONCompactObject) {
+        ((JSONCompactObject) container).share(parser.shapes);
+      }
+      value = (JSONElement) container;
+    }
+    add(value);
+  }
+
+  // Puts a finished value in its container, or hands it out if it is a whole document
+  private void add(JSONElement value) {
+    if (depth == 0) {
+      documents.add(value);
+      state = VALUE;
+      return;
+    }
+    Object container = containers[depth - 1];
+    if (container instanceof JSONArray) {
+      ((JSONArray) container).add(value);
+    } else if (container instanceof JSONCompactObject) {
+      ((JSONCompactObject) container).append(keys[depth - 1], value);
+    } else {
+      ((JSONObject) container).put(keys[depth - 1], value);
+    }
+    state = AFTER_VALUE;
+  }
+
+  private void push(Object container) throws JSONParseException {
+    parser.checkDepth(lexer, depth);
+    if (depth == containers.length) {
+      containers = Arrays.copyOf(containers, depth << 1);
+      keys = Arrays.copyOf(keys, depth << 1);
+    }
+    containers[depth++] = container;
+  }
+
+  private void expect(TokenType t, TokenType type) throws JSONParseException {
+    if (t != type) {
+      throw lexer.tokenError("Expected " + type + " instead of " + t);
+    }
+  }
+
+  private void checkUsable() {
+    if (failed) {
+      throw new IllegalStateException("Parser failed on earlier input");
+    } else if (ended) {
+      throw new IllegalStateException("Input has ended");
+    }
+  }
+
+  // Makes room for n more bytes, dropping those already lexed
+  private void reserve(int n) {
+    checkUsable();
+    compact();
+    if (end + n > data.length) {
+      data = Arrays.copyOf(data, Math.max(data.length << 1, end + n));
+    }
+  }
+
+  private void compact() {
+    int keep = (tokenStart >= 0) ? tokenStart : pos;
+    if (keep == 0) {
+      return;
+    }
+    System.arraycopy(data, keep, data, 0, end - keep);
+    base += keep;
+    end -= keep;
+    pos -= keep;
+    if (tokenStart >= 0) {
+      tokenStart -= keep;
+      scanned -= keep;
+    }
+  }
+}
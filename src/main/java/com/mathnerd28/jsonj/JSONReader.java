@@ -0,0 +1,265 @@
+package com.mathnerd28.jsonj;
+
+import com.mathnerd28.jsonj.JSONLexer.TokenType;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+
+public final class JSONReader implements Closeable {
+
+  public enum Event {
+    START_OBJECT,
+    END_OBJECT,
+    START_ARRAY,
+    END_ARRAY,
+    KEY,
+    VALUE_STRING,
+    VALUE_INTEGER,
+    VALUE_FLOAT,
+    VALUE_TRUE,
+    VALUE_FALSE,
+    VALUE_NULL,
+    END_DOCUMENT,
+  }
+
+  // What the next token may be
+  private enum State {
+    VALUE,
+    FIRST_VALUE,
+    FIRST_KEY,
+    AFTER_KEY,
+    AFTER_VALUE,
+    DONE,
+  }
+
+  private final JSONParser parser;
+  private final JSONLexer lexer;
+  private final Closeable resource;
+
+  private State state;
+  private Event event;
+  private TokenType token;
+
+  // true for objects, false for arrays
+  private boolean[] containers;
+  private int depth;
+
+  JSONReader(JSONParser parser, JSONLexer lexer, Closeable resource) {
+    this.parser = parser;
+    this.lexer = lexer;
+    this.resource = resource;
+    state = State.VALUE;
+    containers = new boolean[16];
+  }
+
+  public Event next() throws IOException, JSONParseException {
+    TokenType t;
+    switch (state) {
+      case VALUE:
+        return value(lexer.nextToken());
+      case FIRST_VALUE:
+        t = lexer.nextToken();
+        return (t == TokenType.RIGHT_BRACKET) ? close(t) : value(t);
+      case FIRST_KEY:
+        t = lexer.nextToken();
+        return (t == TokenType.RIGHT_BRACE) ? close(t) : key(t);
+      case AFTER_KEY:
+        colon();
+        return value(lexer.nextToken());
+      case AFTER_VALUE:
+        if (depth == 0) {
+          state = State.DONE;
+          return event = Event.END_DOCUMENT;
+        }
+        t = lexer.nextToken();
+        if (t != TokenType.COMMA) {
+          return close(t);
+        }
+        t = lexer.nextToken();
+        return containers[depth - 1] ? key(t) : value(t);
+      default:
+        return event = Event.END_DOCUMENT;
+    }
+  }
+
+  public Event getEvent() {
+    return event;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public String getString() {
+    if (event != Event.KEY && event != Event.VALUE_STRING) {
+      throw new IllegalStateException("Current event is " + event);
+    }
+    return (event == Event.KEY) ? lexer.keyValue(parser.keys) : lexer.stringValue();
+  }
+
+  public long getLong() {
+    if (event != Event.VALUE_INTEGER) {
+      throw new IllegalStateException("Current event is " + event);
+    }
+    return lexer.longValue;
+  }
+
+  public int getInt() throws JSONParseException {
+    long value = getLong();
+    if (value != (int) value) {
+      throw lexer.tokenError("Integer " + value + " out of range");
+    }
+    return (int) value;
+  }
+
+  public double getDouble() {
+    if (event == Event.VALUE_INTEGER) {
+      return lexer.longValue;
+    } else if (event != Event.VALUE_FLOAT) {
+      throw new IllegalStateException("Current event is " + event);
+    }
+    return lexer.doubleValue;
+  }
+
+  public boolean getBoolean() {
+    if (event != Event.VALUE_TRUE && event != Event.VALUE_FALSE) {
+      throw new IllegalStateException("Current event is " + event);
+    }
+    return event == Event.VALUE_TRUE;
+  }
+
+  // Builds the value that starts at the current event (or follows the current KEY), leaving the
+  // reader on its last event
+  public JSONElement readElement() throws IOException, JSONParseException {
+    TokenType t = start();
+    JSONElement element = parser.getData(lexer, t, depth);
+    end(t);
+    return element;
+  }
+
+  // Like readElement(), but binds the value to the given type
+  @SuppressWarnings("unchecked")
+  public <T> T readValue(Class<T> type) throws IOException, JSONParseException {
+    TokenType t = start();
+    T value = (T) Binder.of(type).read(parser, lexer, t, depth);
+    end(t);
+    return value;
+  }
+
+  // Like readElement(), without building anything
+  public void skipValue() throws IOException, JSONParseException {
+    TokenType t = start();
+    Binder.skip(parser, lexer, t, depth);
+    end(t);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (resource != null) {
+      resource.close();
+    }
+  }
+
+  private TokenType start() throws IOException, JSONParseException {
+    if (event == Event.KEY) {
+      colon();
+      return lexer.nextToken();
+    } else if (event == Event.START_OBJECT || event == Event.START_ARRAY) {
+      // Handled as if the reader were still in front of the opening token
+      depth--;
+      return token;
+    } else if (
+      // prettier-ignore
+      event == null ||
+      event == Event.END_OBJECT ||
+      event == Event.END_ARRAY ||
+      event == Event.END_DOCUMENT
+    ) {
+      throw new IllegalStateException("Current event is " + event);
+    }
+    return token;
+  }
+
+  private void end(TokenType t) throws JSONParseException {
+    if (t == TokenType.LEFT_BRACE) {
+      event = Event.END_OBJECT;
+    } else if (t == TokenType.LEFT_BRACKET) {
+      event = Event.END_ARRAY;
+    } else {
+      // Scalars were already validated by value()
+      event = scalar(t);
+    }
+    token = t;
+    state = State.AFTER_VALUE;
+  }
+
+  private void colon() throws IOException, JSONParseException {
+    TokenType t = lexer.nextToken();
+    if (t != TokenType.COLON) {
+      throw lexer.tokenError("Expected " + TokenType.COLON + " instead of " + t);
+    }
+  }
+
+  private Event key(TokenType t) throws JSONParseException {
+    if (t != TokenType.STRING) {
+      throw lexer.tokenError("Expected " + TokenType.STRING + " instead of " + t);
+    }
+    token = t;
+    state = State.AFTER_KEY;
+    return event = Event.KEY;
+  }
+
+  private Event value(TokenType t) throws JSONParseException {
+    token = t;
+    if (t == TokenType.LEFT_BRACE) {
+      push(true);
+      state = State.FIRST_KEY;
+      return event = Event.START_OBJECT;
+    } else if (t == TokenType.LEFT_BRACKET) {
+      push(false);
+      state = State.FIRST_VALUE;
+      return event = Event.START_ARRAY;
+    }
+    state = State.AFTER_VALUE;
+    return event = scalar(t);
+  }
+
+  private Event scalar(TokenType t) throws JSONParseException {
+    switch (t) {
+      case STRING:
+        return Event.VALUE_STRING;
+      case INTEGER:
+        return Event.VALUE_INTEGER;
+      case FLOAT:
+        return Event.VALUE_FLOAT;
+      case TRUE:
+        return Event.VALUE_TRUE;
+      case FALSE:
+        return Event.VALUE_FALSE;
+      case NULL:
+        return Event.VALUE_NULL;
+      default:
+        throw lexer.tokenError("Unexpected " + t + " token");
+    }
+  }
+
+  private Event close(TokenType t) throws JSONParseException {
+    boolean object = containers[depth - 1];
+    TokenType expected = object ? TokenType.RIGHT_BRACE : TokenType.RIGHT_BRACKET;
+    if (t != expected) {
+      throw lexer.tokenError("Expected " + expected + " instead of " + t);
+    }
+    depth--;
+    token = t;
+    state = State.AFTER_VALUE;
+    return event = object ? Event.END_OBJECT : Event.END_ARRAY;
+  }
+
+  private void push(boolean object) throws JSONParseException {
+    parser.checkDepth(lexer, depth);
+    if (depth == containers.length) {
+      containers = Arrays.copyOf(containers, depth << 1);
+    }
+    containers[depth++] = object;
+  }
+}
@@ -1,5 +1,6 @@
 package com.mathnerd28.jsonj;
 
+import java.io.IOException;
 import java.util.Objects;
 import java.util.function.Supplier;
 
@@ -38,30 +39,11 @@ public final class JSONString implements JSONElement, Supplier<String> {
   @Override
   public String toJSON(boolean compact) {
     StringBuilder builder = new StringBuilder(str.length() + 2);
-    builder.append('"');
-    for (char c : str.toCharArray()) {
-      if (c < 0x0020) {
-        if (c == '\b') {
-          builder.append("\\b");
-        } else if (c == '\f') {
-          builder.append("\\f");
-        } else if (c == '\n') {
-          builder.append("\\n");
-        } else if (c == '\r') {
-          builder.append("\\r");
-        } else if (c == '\t') {
-          builder.append("\\t");
-        } else {
-          builder.append(c < 0x0010 ? "\\u000" : "\\u00").append(Integer.toString(c, 16));
-        }
-      } else if (c == '"') {
-        builder.append("\\\"");
-      } else if (c == '\\') {
-        builder.append("\\\\");
-      } else {
-        builder.append(c);
-      }
+    try {
+      JSONWriter.string(builder, str);
+    } catch (IOException e) {
+      throw new AssertionError("IOException from StringBuilder", e);
     }
-    return builder.append('"').toString();
+    return builder.toString();
   }
 }
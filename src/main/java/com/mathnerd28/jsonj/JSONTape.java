@@ -0,0 +1,291 @@
+package com.mathnerd28.jsonj;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// A value inside a document parsed into off-heap memory by JSONParser.parseTape(). The document is
+// checked in full up front, and is read-only; any number of threads may read it at once. Only the
+// values asked for are copied onto the heap. Documents are limited to 2 GB of tape.
+public final class JSONTape {
+
+  private final Tape tape;
+  // Index of the value's first word
+  private final int i;
+
+  private JSONTape(Tape tape, int i) {
+    this.tape = tape;
+    this.i = i;
+  }
+
+  static JSONTape root(Tape tape) {
+    return new JSONTape(tape, 0);
+  }
+
+  public boolean isObject() {
+    return tag() == Tape.OBJECT;
+  }
+
+  public boolean isArray() {
+    return tag() == Tape.ARRAY;
+  }
+
+  public boolean isString() {
+    return tag() == Tape.STRING;
+  }
+
+  public boolean isNumber() {
+    int tag = tag();
+    return tag == Tape.SMALL || tag == Tape.INTEGER || tag == Tape.FLOAT;
+  }
+
+  public boolean isBoolean() {
+    int tag = tag();
+    return tag == Tape.TRUE || tag == Tape.FALSE;
+  }
+
+  public boolean isNull() {
+    return tag() == Tape.NULL;
+  }
+
+  // Number of members or elements
+  public int size() {
+    if (!isObject() && !isArray()) {
+      throw new ClassCastException("Value is not an object or array");
+    }
+    int size = (int) (tape.word(i) >>> 32) & Tape.MAX_COUNT;
+    if (size < Tape.MAX_COUNT) {
+      return size;
+    }
+    size = 0;
+    for (int k = first(); k >= 0; k = next(k)) {
+      size++;
+    }
+    return size;
+  }
+
+  public boolean has(String key) {
+    return get(key) != null;
+  }
+
+  // The member with the given key, or null
+  public JSONTape get(String key) {
+    object();
+    byte[] raw = key.getBytes(StandardCharsets.UTF_8);
+    for (int k = first(); k >= 0; k = next(k)) {
+      if (tape.stringEquals(k, raw)) {
+        return new JSONTape(tape, k + 1);
+      }
+    }
+    return null;
+  }
+
+  public JSONTape get(int index) {
+    array();
+    int n = 0;
+    for (int k = first(); k >= 0; k = next(k)) {
+      if (n++ == index) {
+        return new JSONTape(tape, k);
+      }
+    }
+    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + n);
+  }
+
+  public List<String> keys() {
+    object();
+    List<String> keys = new ArrayList<>();
+    for (int k = first(); k >= 0; k = next(k)) {
+      keys.add(tape.string(k));
+    }
+    return keys;
+  }
+
+  // Every element, in one pass
+  public List<JSONTape> elements() {
+    array();
+    List<JSONTape> elements = new ArrayList<>();
+    for (int k = first(); k >= 0; k = next(k)) {
+      elements.add(new JSONTape(tape, k));
+    }
+    return elements;
+  }
+
+  public JSONTape getObject(String key) {
+    JSONTape value = member(key);
+    value.object();
+    return value;
+  }
+
+  public JSONTape getArray(String key) {
+    JSONTape value = member(key);
+    value.array();
+    return value;
+  }
+
+  public String getString(String key) {
+    return member(key).asString();
+  }
+
+  public boolean getBoolean(String key) {
+    return member(key).asBoolean();
+  }
+
+  public long getLong(String key) {
+    return member(key).asLong();
+  }
+
+  public int getInt(String key) {
+    return member(key).asInt();
+  }
+
+  public double getDouble(String key) {
+    return member(key).asDouble();
+  }
+
+  public JSONTape getObject(int index) {
+    JSONTape value = get(index);
+    value.object();
+    return value;
+  }
+
+  public JSONTape getArray(int index) {
+    JSONTape value = get(index);
+    value.array();
+    return value;
+  }
+
+  public String getString(int index) {
+    return get(index).asString();
+  }
+
+  public boolean getBoolean(int index) {
+    return get(index).asBoolean();
+  }
+
+  public long getLong(int index) {
+    return get(index).asLong();
+  }
+
+  public int getInt(int index) {
+    return get(index).asInt();
+  }
+
+  public double getDouble(int index) {
+    return get(index).asDouble();
+  }
+
+  public String asString() {
+    if (!isString()) {
+      throw new ClassCastException("Value is not a string");
+    }
+    return tape.string(i);
+  }
+
+  public boolean asBoolean() {
+    if (!isBoolean()) {
+      throw new ClassCastException("Value is not a boolean");
+    }
+    return tag() == Tape.TRUE;
+  }
+
+  public long asLong() {
+    int tag = tag();
+    if (tag != Tape.SMALL && tag != Tape.INTEGER) {
+      throw new ClassCastException("Value is not an integer");
+    }
+    return tape.longValue(i);
+  }
+
+  public int asInt() {
+    return (int) asLong();
+  }
+
+  public double asDouble() {
+    if (tag() == Tape.FLOAT) {
+      return tape.doubleValue(i);
+    }
+    return asLong();
+  }
+
+  // Copies this value onto the heap, as JSONParser.parse() would have built it
+  public JSONElement materialize() {
+    switch (tag()) {
+      case Tape.NULL:
+        return JSONElement.NULL;
+      case Tape.TRUE:
+        return JSONBoolean.TRUE;
+      case Tape.FALSE:
+        return JSONBoolean.FALSE;
+      case Tape.SMALL:
+      case Tape.INTEGER:
+        return new JSONInteger(tape.longValue(i));
+      case Tape.FLOAT:
+        return new JSONFloat(tape.doubleValue(i));
+      case Tape.STRING:
+        return new JSONString(tape.string(i));
+      case Tape.OBJECT:
+        JSONObject obj = new JSONObject();
+        for (int k = first(); k >= 0; k = next(k)) {
+          obj.put(tape.string(k), new JSONTape(tape, k + 1).materialize());
+        }
+        return obj;
+      default:
+        JSONArray array = new JSONArray();
+        for (int k = first(); k >= 0; k = next(k)) {
+          array.add(new JSONTape(tape, k).materialize());
+        }
+        return array;
+    }
+  }
+
+  // The value as compact JSON
+  @Override
+  public String toString() {
+    return materialize().toJSON(true);
+  }
+
+  private int tag() {
+    return Tape.tag(tape.word(i));
+  }
+
+  private JSONTape member(String key) {
+    JSONTape value = get(key);
+    if (value == null) {
+      throw new NullPointerException("No member '" + key + "'");
+    }
+    return value;
+  }
+
+  private void object() {
+    if (!isObject()) {
+      throw new ClassCastException("Value is not an object");
+    }
+  }
+
+  private void array() {
+    if (!isArray()) {
+      throw new ClassCastException("Value is not an array");
+    }
+  }
+
+  /*
+   * Members and elements are walked by k, the index of each key (in an object) or element (in an
+   * array). A member's value follows its key. Keys overwritten by a later duplicate are skipped.
+   */
+
+  private int first() {
+    return live(i + 1);
+  }
+
+  private int next(int k) {
+    return live(isObject() ? tape.next(k + 1) : tape.next(k));
+  }
+
+  private int live(int k) {
+    int end = (int) tape.word(i);
+    while (k < end && Tape.tag(tape.word(k)) == Tape.REMOVED) {
+      k = tape.next(k + 1);
+    }
+    return (k < end) ? k : -1;
+  }
+}
@@ -0,0 +1,404 @@
+package com.mathnerd28.jsonj;
+
+import com.mathnerd28.jsonj.JSONLexer.TokenType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A value inside a lazily parsed document. Only the bracket structure is checked up front; any
+// other value is lexed (and checked) when it is read. Views share the document's byte[], which
+// must not change while they are in use. A view remembers where its members start as it reaches
+// them, so it shouldn't be shared between threads.
+public final class JSONView {
+
+  private final StructuralIndex index;
+  // Structural index of the opening bracket, or -1 for a scalar
+  private final int node;
+  // Bytes of the value, without surrounding whitespace
+  private final int start;
+  private final int end;
+  // Structural indexes k of the members reached so far, and whether they are all of them
+  private int[] members;
+  private int reached;
+  private boolean complete;
+
+  private JSONView(StructuralIndex index, int node, int start, int end) {
+    this.index = index;
+    this.node = node;
+    this.start = start;
+    this.end = end;
+  }
+
+  static JSONView root(StructuralIndex index) throws JSONParseException {
+    if (index.count > 0) {
+      return container(index, 0);
+    }
+    int start = index.skipWhitespace(index.offset, index.limit);
+    if (start == index.limit) {
+      throw index.termination();
+    }
+    return new JSONView(index, -1, start, trimEnd(index, start, index.limit));
+  }
+
+  private static JSONView container(StructuralIndex index, int node) {
+    int[] positions = index.positions;
+    return new JSONView(index, node, positions[node], positions[index.partners[node]] + 1);
+  }
+
+  public boolean isObject() {
+    return index.bytes[start] == '{';
+  }
+
+  public boolean isArray() {
+    return index.bytes[start] == '[';
+  }
+
+  public boolean isString() {
+    return index.bytes[start] == '"';
+  }
+
+  public boolean isNumber() {
+    byte b = index.bytes[start];
+    return (b >= '0' && b <= '9') || b == '-';
+  }
+
+  public boolean isBoolean() {
+    byte b = index.bytes[start];
+    return b == 't' || b == 'f';
+  }
+
+  public boolean isNull() {
+    return index.bytes[start] == 'n';
+  }
+
+  // Number of members or elements
+  public int size() throws JSONParseException {
+    if (node < 0) {
+      throw new ClassCastException("Value is not an object or array");
+    }
+    slot(Integer.MAX_VALUE);
+    return reached;
+  }
+
+  public boolean has(String key) throws JSONParseException {
+    return get(key) != null;
+  }
+
+  // The member with the given key, or null. Only this key is checked for duplicates.
+  public JSONView get(String key) throws JSONParseException {
+    object();
+    byte[] raw = key.getBytes(StandardCharsets.UTF_8);
+    JSONView found = null;
+    for (int i = 0, k; (k = slot(i)) >= 0; i++) {
+      if (keyEquals(k, key, raw)) {
+        if (found != null && !index.parser.allowDuplicateKeys) {
+          int position = index.skipWhitespace(index.positions[k] + 1, index.positions[k + 1]);
+          throw index.error(position, "Duplicate key '" + key + "'");
+        }
+        found = value(k + 1);
+      }
+    }
+    return found;
+  }
+
+  public JSONView get(int i) throws JSONParseException {
+    array();
+    int k = (i < 0) ? -1 : slot(i);
+    if (k < 0) {
+      throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+    }
+    return value(k);
+  }
+
+  public List<String> keys() throws JSONParseException {
+    object();
+    List<String> keys = new ArrayList<>();
+    for (int i = 0, k; (k = slot(i)) >= 0; i++) {
+      keys.add(key(k));
+    }
+    return keys;
+  }
+
+  // Every element, in one pass
+  public List<JSONView> elements() throws JSONParseException {
+    array();
+    List<JSONView> elements = new ArrayList<>();
+    for (int i = 0, k; (k = slot(i)) >= 0; i++) {
+      elements.add(value(k));
+    }
+    return elements;
+  }
+
+  public JSONView getObject(String key) throws JSONParseException {
+    JSONView value = get(key);
+    if (value != null) {
+      value.object();
+    }
+    return value;
+  }
+
+  public JSONView getArray(String key) throws JSONParseException {
+    JSONView value = get(key);
+    if (value != null) {
+      value.array();
+    }
+    return value;
+  }
+
+  public String getString(String key) throws JSONParseException {
+    return member(key).asString();
+  }
+
+  public boolean getBoolean(String key) throws JSONParseException {
+    return member(key).asBoolean();
+  }
+
+  public long getLong(String key) throws JSONParseException {
+    return member(key).asLong();
+  }
+
+  public int getInt(String key) throws JSONParseException {
+    return member(key).asInt();
+  }
+
+  public double getDouble(String key) throws JSONParseException {
+    return member(key).asDouble();
+  }
+
+  public JSONView getObject(int i) throws JSONParseException {
+    JSONView value = get(i);
+    value.object();
+    return value;
+  }
+
+  public JSONView getArray(int i) throws JSONParseException {
+    JSONView value = get(i);
+    value.array();
+    return value;
+  }
+
+  public String getString(int i) throws JSONParseException {
+    return get(i).asString();
+  }
+
+  public boolean getBoolean(int i) throws JSONParseException {
+    return get(i).asBoolean();
+  }
+
+  public long getLong(int i) throws JSONParseException {
+    return get(i).asLong();
+  }
+
+  public int getInt(int i) throws JSONParseException {
+    return get(i).asInt();
+  }
+
+  public double getDouble(int i) throws JSONParseException {
+    return get(i).asDouble();
+  }
+
+  public String asString() throws JSONParseException {
+    return ((JSONString) scalar()).get();
+  }
+
+  public boolean asBoolean() throws JSONParseException {
+    return ((JSONBoolean) scalar()).getAsBoolean();
+  }
+
+  public long asLong() throws JSONParseException {
+    return ((JSONInteger) scalar()).getAsLong();
+  }
+
+  public int asInt() throws JSONParseException {
+    return ((JSONInteger) scalar()).getAsInt();
+  }
+
+  public double asDouble() throws JSONParseException {
+    JSONElement val = scalar();
+    if (val instanceof JSONFloat) {
+      return ((JSONFloat) val).getAsDouble();
+    } else {
+      return ((JSONInteger) val).getAsLong();
+    }
+  }
+
+  // Parses this value in full, the same way JSONParser.parse() would
+  public JSONElement materialize() throws JSONParseException {
+    return index.element(start, end);
+  }
+
+  // The value's JSON text, as it appears in the document
+  @Override
+  public String toString() {
+    return new String(index.bytes, start, end - start, StandardCharsets.UTF_8);
+  }
+
+  private JSONElement scalar() throws JSONParseException {
+    if (node >= 0) {
+      throw new ClassCastException(isObject() ? "Value is an object" : "Value is an array");
+    }
+    return index.element(start, end);
+  }
+
+  private JSONView member(String key) throws JSONParseException {
+    JSONView value = get(key);
+    if (value == null) {
+      throw new NullPointerException("No member '" + key + "'");
+    }
+    return value;
+  }
+
+  private void object() {
+    if (!isObject()) {
+      throw new ClassCastException("Value is not an object");
+    }
+  }
+
+  private void array() {
+    if (!isArray()) {
+      throw new ClassCastException("Value is not an array");
+    }
+  }
+
+  /*
+   * Members and elements are walked by k, the structural index of the '{', '[' or ',' in front
+   * of each one. In an object, k + 1 is the colon after the key.
+   */
+
+  // The k of member i, or -1 past the end. Walks only as far as i, so later members are checked
+  // (and their errors reported) once they are needed.
+  private int slot(int i) throws JSONParseException {
+    if (members == null) {
+      members = new int[8];
+      int k = first();
+      if (k < 0) {
+        complete = true;
+      } else {
+        members[reached++] = k;
+      }
+    }
+    while (i >= reached && !complete) {
+      int k = next(members[reached - 1]);
+      if (k < 0) {
+        complete = true;
+      } else {
+        if (reached == members.length) {
+          members = Arrays.copyOf(members, reached << 1);
+        }
+        members[reached++] = k;
+      }
+    }
+    return (i < reached) ? members[i] : -1;
+  }
+
+  private int first() {
+    int close = index.partners[node];
+    int[] positions = index.positions;
+    if (node + 1 == close) {
+      int end = positions[close];
+      if (index.skipWhitespace(positions[node] + 1, end) == end) {
+        return -1;
+      }
+    }
+    return node;
+  }
+
+  private int next(int k) throws JSONParseException {
+    boolean object = index.at(node) == '{';
+    int v = k;
+    if (object) {
+      v = k + 1;
+      if (index.at(v) != ':') {
+        throw unexpected(TokenType.COLON, v);
+      }
+    }
+    int after = after(v);
+    if (after == index.partners[node]) {
+      return -1;
+    } else if (index.at(after) != ',') {
+      throw unexpected(TokenType.COMMA, after);
+    }
+    return after;
+  }
+
+  // Structural index following the value that comes after v
+  private int after(int v) throws JSONParseException {
+    int[] positions = index.positions;
+    int n = v + 1;
+    int start = index.skipWhitespace(positions[v] + 1, positions[n]);
+    if (index.isOpening(n) ? start != positions[n] : start == positions[n]) {
+      throw index.error(positions[n], "Unexpected " + StructuralIndex.type(index.at(n)) + " token");
+    }
+    return index.isOpening(n) ? index.partners[n] + 1 : n;
+  }
+
+  private JSONView value(int v) {
+    int[] positions = index.positions;
+    int n = v + 1;
+    if (index.isOpening(n)) {
+      return container(index, n);
+    }
+    int start = index.skipWhitespace(positions[v] + 1, positions[n]);
+    return new JSONView(index, -1, start, trimEnd(index, start, positions[n]));
+  }
+
+  private String key(int k) throws JSONParseException {
+    int from = index.skipWhitespace(index.positions[k] + 1, index.positions[k + 1]);
+    JSONElement key = index.element(from, index.positions[k + 1]);
+    if (!(key instanceof JSONString)) {
+      throw index.error(from, "Expected " + TokenType.STRING + " key");
+    }
+    return ((JSONString) key).get();
+  }
+
+  // Compares the raw bytes when the key has no escapes, and decodes it otherwise
+  private boolean keyEquals(int k, String key, byte[] raw) throws JSONParseException {
+    byte[] bytes = index.bytes;
+    int from = index.skipWhitespace(index.positions[k] + 1, index.positions[k + 1]);
+    int to = trimEnd(index, from, index.positions[k + 1]);
+    if (to - from < 2 || bytes[from] != '"' || bytes[to - 1] != '"') {
+      // Not a string, which key() reports
+      return key(k).equals(key);
+    } else if (to - from != raw.length + 2) {
+      // Escapes are never shorter than the UTF-8 they stand for
+      return to - from > raw.length + 2 && escaped(from, to) && key(k).equals(key);
+    }
+    for (int i = 0; i < raw.length; i++) {
+      byte b = bytes[from + 1 + i];
+      if (b == '\\') {
+        return key(k).equals(key);
+      } else if (b != raw[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean escaped(int from, int to) {
+    byte[] bytes = index.bytes;
+    for (int i = from; i < to; i++) {
+      if (bytes[i] == '\\') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int trimEnd(StructuralIndex index, int start, int end) {
+    byte[] bytes = index.bytes;
+    while (end > start) {
+      byte b = bytes[end - 1];
+      if (b != ' ' && b != '\n' && b != '\t' && b != '\r') {
+        break;
+      }
+      end--;
+    }
+    return end;
+  }
+
+  private JSONParseException unexpected(TokenType expected, int k) {
+    TokenType actual = StructuralIndex.type(index.at(k));
+    return index.error(index.positions[k], "Expected " + expected + " instead of " + actual);
+  }
+}
@@ -0,0 +1,241 @@
+package com.mathnerd28.jsonj;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+public final class JSONWriter implements Flushable {
+
+  // Escape sequence for each ASCII character, or null if it is written as is
+  static final String[] ESCAPES = new String[0x80];
+
+  static {
+    for (int c = 0; c < 0x20; c++) {
+      ESCAPES[c] = (c < 0x10 ? "\\u000" : "\\u00") + Integer.toString(c, 16);
+    }
+    ESCAPES['"'] = "\\\"";
+    ESCAPES['\\'] = "\\\\";
+    ESCAPES['\b'] = "\\b";
+    ESCAPES['\f'] = "\\f";
+    ESCAPES['\n'] = "\\n";
+    ESCAPES['\r'] = "\\r";
+    ESCAPES['\t'] = "\\t";
+  }
+
+  private final Appendable out;
+
+  private boolean compact;
+  // Non-null when formatted across lines
+  private String indentation;
+
+  public JSONWriter(Appendable out) {
+    this.out = out;
+    compact = true;
+    indentation = null;
+  }
+
+  public JSONWriter(OutputStream stream) {
+    this(new UTF8Output(stream));
+  }
+
+  public JSONWriter compact() {
+    compact = true;
+    indentation = null;
+    return this;
+  }
+
+  public JSONWriter spaced() {
+    compact = false;
+    indentation = null;
+    return this;
+  }
+
+  public JSONWriter formatted() {
+    return formatted("  ");
+  }
+
+  public JSONWriter formatted(String indentation) {
+    compact = false;
+    this.indentation = indentation;
+    return this;
+  }
+
+  public JSONWriter write(JSONElement element) throws IOException {
+    value(element, 0);
+    return this;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (out instanceof Flushable) {
+      ((Flushable) out).flush();
+    }
+  }
+
+  static String toJSON(JSONElement element, boolean compact) {
+    StringBuilder builder = new StringBuilder();
+    JSONWriter writer = new JSONWriter(builder);
+    try {
+      (compact ? writer.compact() : writer.spaced()).write(element);
+    } catch (IOException e) {
+      throw new AssertionError("IOException from StringBuilder", e);
+    }
+    return builder.toString();
+  }
+
+  static String toJSONFormatted(JSONElement element) {
+    StringBuilder builder = new StringBuilder();
+    try {
+      new JSONWriter(builder).formatted().write(element);
+    } catch (IOException e) {
+      throw new AssertionError("IOException from StringBuilder", e);
+    }
+    return builder.toString();
+  }
+
+  private void value(JSONElement value, int depth) throws IOException {
+    if (value instanceof JSONObject) {
+      object((JSONObject) value, depth);
+    } else if (value instanceof JSONCompactObject) {
+      object((JSONCompactObject) value, depth);
+    } else if (value instanceof JSONImmutableObject) {
+      object((JSONImmutableObject) value, depth);
+    } else if (value instanceof JSONArray) {
+      array((JSONArray) value, depth);
+    } else if (value instanceof JSONImmutableArray) {
+      array((JSONImmutableArray) value, depth);
+    } else if (value instanceof JSONLongArray || value instanceof JSONDoubleArray) {
+      numbers(value, depth);
+    } else if (value instanceof JSONString) {
+      string(out, ((JSONString) value).get());
+    } else if (value instanceof JSONInteger) {
+      out.append(Long.toString(((JSONInteger) value).getAsLong()));
+    } else if (value instanceof JSONFloat) {
+      out.append(Double.toString(((JSONFloat) value).getAsDouble()));
+    } else if (value instanceof JSONBoolean) {
+      out.append(((JSONBoolean) value).getAsBoolean() ? "true" : "false");
+    } else if (value == JSONElement.NULL) {
+      out.append("null");
+    } else {
+      out.append(value.toJSON(compact));
+    }
+  }
+
+  private void object(Map<String, JSONElement> obj, int depth) throws IOException {
+    if (obj.isEmpty()) {
+      out.append("{}");
+      return;
+    }
+    Iterator<Entry<String, JSONElement>> iterator = obj.entrySet().iterator();
+    out.append('{');
+    for (;;) {
+      Entry<String, JSONElement> entry = iterator.next();
+      JSONElement value = entry.getValue();
+      newline(depth + 1);
+      string(out, entry.getKey());
+      out.append(compact ? ":" : ": ");
+      if (value == obj) {
+        out.append("(this object)");
+      } else {
+        value(value, depth + 1);
+      }
+      if (!iterator.hasNext()) {
+        break;
+      }
+      out.append(',');
+      if (indentation == null && !compact) {
+        out.append(' ');
+      }
+    }
+    newline(depth);
+    out.append('}');
+  }
+
+  private void array(Iterable<JSONElement> array, int depth) throws IOException {
+    Iterator<JSONElement> iterator = array.iterator();
+    if (!iterator.hasNext()) {
+      out.append("[]");
+      return;
+    }
+    out.append('[');
+    for (;;) {
+      JSONElement item = iterator.next();
+      newline(depth + 1);
+      if (item == array) {
+        out.append("(this array)");
+      } else {
+        value(item, depth + 1);
+      }
+      if (!iterator.hasNext()) {
+        break;
+      }
+      out.append(',');
+      if (indentation == null && !compact) {
+        out.append(' ');
+      }
+    }
+    newline(depth);
+    out.append(']');
+  }
+
+  // Numeric arrays are written without boxing their elements
+  private void numbers(JSONElement array, int depth) throws IOException {
+    JSONLongArray longs = (array instanceof JSONLongArray) ? (JSONLongArray) array : null;
+    int size = (longs != null) ? longs.size() : ((JSONDoubleArray) array).size();
+    if (size == 0) {
+      out.append("[]");
+      return;
+    }
+    out.append('[');
+    for (int i = 0;;) {
+      newline(depth + 1);
+      if (longs != null) {
+        out.append(Long.toString(longs.getLong(i)));
+      } else {
+        JSONDoubleArray doubles = (JSONDoubleArray) array;
+        double value = doubles.getDouble(i);
+        out.append(doubles.isInteger(i) ? Long.toString((long) value) : Double.toString(value));
+      }
+      if (++i == size) {
+        break;
+      }
+      out.append(',');
+      if (indentation == null && !compact) {
+        out.append(' ');
+      }
+    }
+    newline(depth);
+    out.append(']');
+  }
+
+  private void newline(int depth) throws IOException {
+    if (indentation != null) {
+      out.append('\n');
+      for (int i = 0; i < depth; i++) {
+        out.append(indentation);
+      }
+    }
+  }
+
+  static void string(Appendable out, String str) throws IOException {
+    if (out instanceof UTF8Output) {
+      ((UTF8Output) out).string(str);
+      return;
+    }
+    out.append('"');
+    int run = 0;
+    for (int i = 0, len = str.length(); i < len; i++) {
+      char c = str.charAt(i);
+      String escape;
+      if (c < 0x80 && (escape = ESCAPES[c]) != null) {
+        // Flush the run of characters that need no escaping
+        out.append(str, run, i).append(escape);
+        run = i + 1;
+      }
+    }
+    out.append(str, run, str.length()).append('"');
+  }
+}
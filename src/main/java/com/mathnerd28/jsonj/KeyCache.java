@@ -0,0 +1,62 @@
+package com.mathnerd28.jsonj;
+
+// Direct-mapped table of canonical key instances, looked up before any String is created
+final class KeyCache {
+
+  // Longer keys are rarely repeated, and would only pin memory
+  static final int MAX_LENGTH = 64;
+
+  private final String[] table;
+  private final int mask;
+
+  KeyCache(int capacity) {
+    int size = tableSize(capacity);
+    table = new String[size];
+    mask = size - 1;
+  }
+
+  // The capacity rounded up to a power of two, at most 2^30
+  static int tableSize(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    capacity = Math.min(capacity, 1 << 30);
+    int size = Integer.highestOneBit(capacity);
+    return (size < capacity) ? size << 1 : size;
+  }
+
+  int capacity() {
+    return table.length;
+  }
+
+  String intern(char[] chars, int offset, int length) {
+    if (length > MAX_LENGTH) {
+      return new String(chars, offset, length);
+    }
+    // Same hash as String.hashCode()
+    int h = 0;
+    for (int i = offset, end = offset + length; i < end; i++) {
+      h = 31 * h + chars[i];
+    }
+    int index = (h ^ (h >>> 16)) & mask;
+    String key = table[index];
+    if (key != null && matches(key, chars, offset, length)) {
+      return key;
+    }
+    key = new String(chars, offset, length);
+    table[index] = key;
+    return key;
+  }
+
+  private static boolean matches(String key, char[] chars, int offset, int length) {
+    if (key.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (key.charAt(i) != chars[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
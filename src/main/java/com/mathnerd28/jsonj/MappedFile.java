@@ -0,0 +1,51 @@
+package com.mathnerd28.jsonj;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+// Maps a file as consecutive read-only windows, since one mapping can't exceed 2 GB
+final class MappedFile implements Closeable {
+
+  static final long WINDOW = 1L << 30;
+
+  private final FileChannel channel;
+  private final long size;
+  private final long window;
+  private long position;
+
+  MappedFile(File file) throws IOException {
+    this(file, WINDOW);
+  }
+
+  MappedFile(File file, long window) throws IOException {
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    this.size = channel.size();
+    this.window = window;
+  }
+
+  long size() {
+    return size;
+  }
+
+  // Returns null once the whole file has been handed out
+  MappedByteBuffer next() throws IOException {
+    if (position >= size) {
+      return null;
+    }
+    long length = Math.min(window, size - position);
+    MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, position, length);
+    position += length;
+    return buffer;
+  }
+
+  @Override
+  public void close() throws IOException {
+    // Mappings stay valid until they are garbage collected
+    channel.close();
+  }
+}
@@ -0,0 +1,375 @@
+package com.mathnerd28.jsonj;
+
+import com.mathnerd28.jsonj.JSONLexer.TokenType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Splits a top-level array (at the commas between its elements) or NDJSON (at newlines) into
+// batches, parses them on a ForkJoinPool, and joins the results in order. The pre-scan only
+// follows quotes and brackets; each batch is fully checked by the lexer, so any input that
+// parse() rejects is rejected here too.
+final class ParallelParser {
+
+  // Bytes read from a stream at a time; a chunk is shared by the batches that point into it
+  private static final int CHUNK = 1 << 24;
+  // Chunks grow to hold an element that doesn't fit, but no further than the largest array
+  private static final int MAX_CHUNK = Integer.MAX_VALUE - 8;
+  private static final int MIN_BATCH = 1 << 16;
+  private static final int MAX_BATCH = 1 << 20;
+
+  private final JSONParser parser;
+  private final ForkJoinPool pool;
+  private final boolean lines;
+  private final int chunk;
+  private final int maxChunk;
+  private final int batchSize;
+  private final List<Batch> batches;
+
+  // Scan state. Quotes and brackets are only followed in arrays.
+  private byte[] buf;
+  private long base;
+  private int scanned;
+  private boolean opened;
+  private boolean closed;
+  private int depth;
+  private boolean inString;
+  private boolean escaped;
+  private int line;
+  private long lineStart;
+
+  // The batch being gathered, and the end of its last complete element
+  private int batchStart;
+  private int batchLine;
+  private long batchLineStart;
+  private boolean batchFirst;
+  private int boundary;
+  private int boundaryLine;
+  private long boundaryLineStart;
+
+  // Sizes batches so every worker gets several, if the length is known
+  ParallelParser(JSONParser parser, ForkJoinPool pool, boolean lines, long length) {
+    this(parser, pool, lines, CHUNK, batchSize(length, pool.getParallelism()));
+  }
+
+  ParallelParser(JSONParser parser, ForkJoinPool pool, boolean lines, int chunk, int batchSize) {
+    this(parser, pool, lines, chunk, MAX_CHUNK, batchSize);
+  }
+
+  ParallelParser(
+    JSONParser parser,
+    ForkJoinPool pool,
+    boolean lines,
+    int chunk,
+    int maxChunk,
+    int batchSize
+  ) {
+    this.parser = parser;
+    this.pool = pool;
+    this.lines = lines;
+    this.chunk = chunk;
+    this.maxChunk = maxChunk;
+    this.batchSize = batchSize;
+    batches = new ArrayList<>();
+    opened = lines;
+    line = 1;
+    batchLine = 1;
+    boundaryLine = 1;
+  }
+
+  private static int batchSize(long length, int parallelism) {
+    long perWorker = (length < 0) ? MAX_BATCH : length / (parallelism * 4L);
+    return (int) Math.max(MIN_BATCH, Math.min(MAX_BATCH, perWorker));
+  }
+
+  JSONArray parse(byte[] json, int offset, int length) throws JSONParseException {
+    buf = json;
+    base = -offset;
+    scanned = offset;
+    batchStart = offset;
+    boundary = offset;
+    scan(offset + length);
+    finish(offset + length);
+    return join();
+  }
+
+  JSONArray parse(InputStream stream) throws IOException, JSONParseException {
+    buf = new byte[chunk];
+    int end = 0;
+    // Batches before joined have finished, and those before held came from older chunks
+    int joined = 0;
+    int held = 0;
+    for (;;) {
+      int n;
+      while (end < buf.length && (n = stream.read(buf, end, buf.length - end)) >= 0) {
+        end += n;
+      }
+      boolean eof = end < buf.length;
+      scan(end);
+      if (eof || closed) {
+        finish(end);
+        return join();
+      }
+      // The old chunk now belongs to its batches; only the unfinished part is carried over
+      flush();
+      // Caps the heap at two chunks: the one being parsed and the one being read
+      for (; joined < held; joined++) {
+        batches.get(joined).join();
+      }
+      held = batches.size();
+      int keep = end - batchStart;
+      if (keep >= maxChunk) {
+        throw new JSONParseException(
+          "Element larger than " + maxChunk + " bytes",
+          batchLine,
+          (int) (base + batchStart - batchLineStart) + 1
+        );
+      }
+      byte[] next = new byte[(int) Math.min(maxChunk, Math.max(chunk, (long) keep << 1))];
+      System.arraycopy(buf, batchStart, next, 0, keep);
+      base += batchStart;
+      scanned -= batchStart;
+      boundary -= batchStart;
+      batchStart = 0;
+      buf = next;
+      end = keep;
+    }
+  }
+
+  private void scan(int end) throws JSONParseException {
+    byte[] buf = this.buf;
+    int i = scanned;
+    if (!opened) {
+      i = open(i, end);
+    }
+    for (; i < end && !closed; i++) {
+      byte b = buf[i];
+      if (b == '\n') {
+        line++;
+        lineStart = base + i + 1;
+      }
+      if (lines) {
+        if (b == '\n') {
+          delimiter(i + 1);
+        }
+      } else if (inString) {
+        if (escaped) {
+          escaped = false;
+        } else if (b == '\\') {
+          escaped = true;
+        } else if (b == '"') {
+          inString = false;
+        }
+      } else {
+        switch (b) {
+          case '"':
+            inString = true;
+            break;
+          case '[':
+          case '{':
+            depth++;
+            break;
+          case ']':
+          case '}':
+            if (--depth == 0) {
+              closed = true;
+              delimiter(i + 1);
+            }
+            break;
+          case ',':
+            if (depth == 1) {
+              delimiter(i + 1);
+            }
+            break;
+          default:
+        }
+      }
+    }
+    scanned = i;
+  }
+
+  // Skips to the opening bracket, and reports anything else in its place
+  private int open(int i, int end) throws JSONParseException {
+    for (; i < end; i++) {
+      byte b = buf[i];
+      if (b == '\n') {
+        line++;
+        lineStart = base + i + 1;
+      } else if (b != ' ' && b != '\t' && b != '\r') {
+        if (b != '[') {
+          ByteLexer lexer = new ByteLexer(buf, i, end - i, line, (int) (lineStart - base));
+          TokenType t;
+          try {
+            t = lexer.nextToken();
+          } catch (IOException e) {
+            throw new AssertionError("IOException from byte[]", e);
+          }
+          throw lexer.tokenError("Expected " + TokenType.LEFT_BRACKET + " instead of " + t);
+        }
+        opened = true;
+        depth = 1;
+        batchStart = i + 1;
+        batchLine = line;
+        batchLineStart = lineStart;
+        batchFirst = true;
+        delimiter(i + 1);
+        return i + 1;
+      }
+    }
+    batchStart = end;
+    boundary = end;
+    return end;
+  }
+
+  private void delimiter(int end) {
+    boundary = end;
+    boundaryLine = line;
+    boundaryLineStart = lineStart;
+    if (end - batchStart >= batchSize) {
+      flush();
+    }
+  }
+
+  // Sends off the complete elements gathered so far
+  private void flush() {
+    if (boundary > batchStart) {
+      submit(boundary);
+      batchStart = boundary;
+      batchLine = boundaryLine;
+      batchLineStart = boundaryLineStart;
+      batchFirst = false;
+    }
+  }
+
+  private void submit(int end) {
+    Batch batch = new Batch(buf, batchStart, end, batchLine, batchLineStart - base, batchFirst);
+    batches.add(batch);
+    pool.execute(batch);
+  }
+
+  private void finish(int end) throws JSONParseException {
+    if (!opened) {
+      throw new JSONParseException("Unexpected termination", line, (int) (base + end - lineStart));
+    } else if (closed) {
+      // Like parse(), ignores whatever follows
+      flush();
+    } else if (lines) {
+      // The last line needn't end with a newline
+      if (end > batchStart) {
+        submit(end);
+      }
+    } else {
+      // Still open, so the rest (even if empty) goes to a batch that reports the termination
+      submit(end);
+    }
+  }
+
+  private JSONArray join() throws JSONParseException {
+    int size = 0;
+    for (int i = 0; i < batches.size(); i++) {
+      Batch batch = batches.get(i);
+      batch.join();
+      if (batch.error != null) {
+        for (int j = i + 1; j < batches.size(); j++) {
+          batches.get(j).cancel(false);
+        }
+        throw batch.error;
+      }
+      size += batch.getRawResult().size();
+    }
+    JSONArray array = new JSONArray();
+    array.ensureCapacity(size);
+    for (Batch batch : batches) {
+      array.addAll(batch.getRawResult());
+    }
+    return array;
+  }
+
+  // Elements (or lines) from one batch. The parser's KeyCache is shared by every batch, which it
+  // tolerates: a lost update only means an extra String.
+  private final class Batch extends RecursiveTask<JSONArray> {
+
+    private static final long serialVersionUID = 1L;
+
+    // Dropped once parsed, so that a stream's chunks can be collected before join()
+    private byte[] buf;
+    private final int from;
+    private final int to;
+    private final int line;
+    private final long lineStart;
+    // Directly after the opening bracket, where the array may be empty
+    private final boolean first;
+
+    JSONParseException error;
+
+    Batch(byte[] buf, int from, int to, int line, long lineStart, boolean first) {
+      this.buf = buf;
+      this.from = from;
+      this.to = to;
+      this.line = line;
+      this.lineStart = lineStart;
+      this.first = first;
+    }
+
+    @Override
+    protected JSONArray compute() {
+      try {
+        return lines ? lines() : elements();
+      } catch (JSONParseException e) {
+        error = e;
+        return null;
+      } catch (IOException e) {
+        throw new AssertionError("IOException from byte[]", e);
+      } finally {
+        buf = null;
+      }
+    }
+
+    private JSONArray elements() throws IOException, JSONParseException {
+      ByteLexer lexer = new ByteLexer(buf, from, to - from, line, (int) lineStart);
+      JSONArray array = new JSONArray();
+      TokenType t = lexer.nextToken();
+      if (first && t == TokenType.RIGHT_BRACKET) {
+        return array;
+      }
+      for (;;) {
+        // Elements are inside the document's array
+        array.add(parser.getData(lexer, t, 1));
+        t = lexer.nextToken();
+        if (t != TokenType.COMMA) {
+          if (t != TokenType.RIGHT_BRACKET) {
+            throw lexer.tokenError("Expected " + TokenType.RIGHT_BRACKET + " instead of " + t);
+          }
+          return array;
+        } else if (lexer.atEnd()) {
+          return array;
+        }
+        t = lexer.nextToken();
+      }
+    }
+
+    private JSONArray lines() throws IOException, JSONParseException {
+      ByteLexer lexer = new ByteLexer();
+      JSONArray array = new JSONArray();
+      int line = this.line;
+      for (int start = from; start < to; line++) {
+        int end = start;
+        while (end < to && buf[end] != '\n') {
+          end++;
+        }
+        lexer.reset(buf, start, end - start, line, start);
+        if (!lexer.atEnd()) {
+          array.add(parser.getData(lexer, lexer.nextToken()));
+          if (!lexer.atEnd()) {
+            throw lexer.tokenError("Unexpected " + lexer.nextToken() + " token");
+          }
+        }
+        start = end + 1;
+      }
+      return array;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package com.mathnerd28.jsonj;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+// Immutable vector trie: 32-way nodes, with the last (up to) 32 elements in a separate tail so
+// appends usually copy only that. Updates copy the path to one leaf and share everything else.
+final class PersistentVector implements Serializable {
+
+  private static final long serialVersionUID = 6020497316226616423L;
+
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+
+  static final PersistentVector EMPTY = new PersistentVector(0, BITS, new Object[0], new Object[0]);
+
+  final int size;
+  private final int shift;
+  private final Object[] root;
+  private final Object[] tail;
+
+  private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+    this.size = size;
+    this.shift = shift;
+    this.root = root;
+    this.tail = tail;
+  }
+
+  // Builds the tree directly, rather than by appending one at a time
+  static PersistentVector of(Object[] items, int size) {
+    if (size == 0) {
+      return EMPTY;
+    }
+    int tailOffset = tailOffset(size);
+    Object[] tail = Arrays.copyOfRange(items, tailOffset, size);
+    Object[] level = new Object[tailOffset >>> BITS];
+    for (int i = 0; i < level.length; i++) {
+      level[i] = Arrays.copyOfRange(items, i << BITS, (i + 1) << BITS);
+    }
+    int shift = BITS;
+    while (level.length > WIDTH) {
+      Object[] parents = new Object[(level.length + MASK) >>> BITS];
+      for (int i = 0; i < parents.length; i++) {
+        parents[i] = Arrays.copyOfRange(level, i << BITS, Math.min((i + 1) << BITS, level.length));
+      }
+      level = parents;
+      shift += BITS;
+    }
+    return new PersistentVector(size, shift, level, tail);
+  }
+
+  // The index must be in range
+  Object get(int index) {
+    if (index >= tailOffset(size)) {
+      return tail[index & MASK];
+    }
+    Object[] node = root;
+    for (int level = shift; level > 0; level -= BITS) {
+      node = (Object[]) node[(index >>> level) & MASK];
+    }
+    return node[index & MASK];
+  }
+
+  // The index must be in range
+  PersistentVector set(int index, Object value) {
+    if (index >= tailOffset(size)) {
+      Object[] copy = tail.clone();
+      copy[index & MASK] = value;
+      return new PersistentVector(size, shift, root, copy);
+    }
+    return new PersistentVector(size, shift, set(root, shift, index, value), tail);
+  }
+
+  PersistentVector append(Object value) {
+    if (size - tailOffset(size) < WIDTH) {
+      Object[] copy = Arrays.copyOf(tail, tail.length + 1);
+      copy[tail.length] = value;
+      return new PersistentVector(size + 1, shift, root, copy);
+    }
+    // The tail is full, so it moves into the tree
+    Object[] newRoot;
+    int newShift = shift;
+    if ((size >>> BITS) > (1 << shift)) {
+      newRoot = new Object[] { root, path(shift, tail) };
+      newShift += BITS;
+    } else {
+      newRoot = push(shift, root, tail);
+    }
+    return new PersistentVector(size + 1, newShift, newRoot, new Object[] { value });
+  }
+
+  Object[] toArray() {
+    Object[] items = new Object[size];
+    int tailOffset = tailOffset(size);
+    for (int i = 0; i < tailOffset; i += WIDTH) {
+      Object[] leaf = root;
+      for (int level = shift; level > 0; level -= BITS) {
+        leaf = (Object[]) leaf[(i >>> level) & MASK];
+      }
+      System.arraycopy(leaf, 0, items, i, WIDTH);
+    }
+    System.arraycopy(tail, 0, items, tailOffset, size - tailOffset);
+    return items;
+  }
+
+  private static int tailOffset(int size) {
+    return (size < WIDTH) ? 0 : ((size - 1) >>> BITS) << BITS;
+  }
+
+  private static Object[] set(Object[] node, int level, int index, Object value) {
+    Object[] copy = node.clone();
+    if (level == 0) {
+      copy[index & MASK] = value;
+    } else {
+      int i = (index >>> level) & MASK;
+      copy[i] = set((Object[]) node[i], level - BITS, index, value);
+    }
+    return copy;
+  }
+
+  private Object[] push(int level, Object[] parent, Object[] leaf) {
+    int i = ((size - 1) >>> level) & MASK;
+    Object[] copy = Arrays.copyOf(parent, Math.max(parent.length, i + 1));
+    if (level == BITS) {
+      copy[i] = leaf;
+    } else if (i < parent.length) {
+      copy[i] = push(level - BITS, (Object[]) parent[i], leaf);
+    } else {
+      copy[i] = path(level - BITS, leaf);
+    }
+    return copy;
+  }
+
+  private static Object[] path(int level, Object[] leaf) {
+    return (level == 0) ? leaf : new Object[] { path(level - BITS, leaf) };
+  }
+}
@@ -0,0 +1,105 @@
+package com.mathnerd28.jsonj;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// A trie of paths, for JSONProjection.of(). A member or element that no path names explicitly
+// falls under the node's wildcard, if any; wildcard paths are merged into the named ones up front.
+final class ProjectionNode implements JSONProjection {
+
+  private final Map<String, JSONProjection> members = new HashMap<>();
+  private final Map<Integer, JSONProjection> elements = new HashMap<>();
+  private JSONProjection any;
+
+  private ProjectionNode() {}
+
+  static JSONProjection of(String... paths) {
+    JSONProjection root = null;
+    for (String path : paths) {
+      root = merge(root, chain(JSONPath.compile(path)));
+    }
+    if (root == null) {
+      throw new IllegalArgumentException("No paths");
+    }
+    return spread(root);
+  }
+
+  @Override
+  public JSONProjection member(String key) {
+    JSONProjection child = members.get(key);
+    return (child != null) ? child : any;
+  }
+
+  @Override
+  public JSONProjection element(int index) {
+    JSONProjection child = elements.get(index);
+    return (child != null) ? child : any;
+  }
+
+  // A node per step, leading to ALL
+  private static JSONProjection chain(JSONPath path) {
+    JSONPath.Step[] steps = path.steps();
+    JSONProjection child = ALL;
+    for (int i = steps.length - 1; i >= 0; i--) {
+      JSONPath.Step step = steps[i];
+      if (step.descendant) {
+        throw new IllegalArgumentException("Projections can't use '..': " + path);
+      }
+      ProjectionNode node = new ProjectionNode();
+      if (step.any) {
+        node.any = child;
+      } else {
+        if (step.name != null) {
+          node.members.put(new String(step.name), child);
+        }
+        if (step.index >= 0) {
+          node.elements.put(step.index, child);
+        }
+      }
+      child = node;
+    }
+    return child;
+  }
+
+  private static JSONProjection merge(JSONProjection a, JSONProjection b) {
+    if (a == null || b == ALL) {
+      return b;
+    } else if (b == null || a == ALL) {
+      return a;
+    }
+    ProjectionNode x = (ProjectionNode) a;
+    ProjectionNode y = (ProjectionNode) b;
+    ProjectionNode merged = new ProjectionNode();
+    Set<String> keys = new HashSet<>(x.members.keySet());
+    keys.addAll(y.members.keySet());
+    for (String key : keys) {
+      merged.members.put(key, merge(x.members.get(key), y.members.get(key)));
+    }
+    Set<Integer> indexes = new HashSet<>(x.elements.keySet());
+    indexes.addAll(y.elements.keySet());
+    for (Integer index : indexes) {
+      merged.elements.put(index, merge(x.elements.get(index), y.elements.get(index)));
+    }
+    merged.any = merge(x.any, y.any);
+    return merged;
+  }
+
+  // Merges each wildcard into the named members and elements beside it, all the way down
+  private static JSONProjection spread(JSONProjection projection) {
+    if (projection == ALL) {
+      return projection;
+    }
+    ProjectionNode node = (ProjectionNode) projection;
+    ProjectionNode spread = new ProjectionNode();
+    for (Map.Entry<String, JSONProjection> entry : node.members.entrySet()) {
+      spread.members.put(entry.getKey(), spread(merge(entry.getValue(), node.any)));
+    }
+    for (Map.Entry<Integer, JSONProjection> entry : node.elements.entrySet()) {
+      spread.elements.put(entry.getKey(), spread(merge(entry.getValue(), node.any)));
+    }
+    spread.any = (node.any == null) ? null : spread(node.any);
+    return spread;
+  }
+}
@@ -0,0 +1,34 @@
+package com.mathnerd28.jsonj;
+
+import java.io.Serializable;
+
+// The keys of a JSONCompactObject in order, shared by every object with the same layout. Never
+// modified; objects copy the keys before changing them.
+final class Shape implements Serializable {
+
+  private static final long serialVersionUID = -2151844658047315216L;
+
+  final String[] keys;
+
+  // Key positions for JSONCompactObject's lookups, when there are too many keys to scan
+  final int[] index;
+
+  Shape(String[] keys) {
+    this.keys = keys;
+    index = (keys.length > JSONCompactObject.LINEAR)
+      ? JSONCompactObject.buildIndex(keys, keys.length)
+      : null;
+  }
+
+  boolean matches(String[] other, int size) {
+    if (keys.length != size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (keys[i] != other[i] && !keys[i].equals(other[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
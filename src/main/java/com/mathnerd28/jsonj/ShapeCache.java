@@ -0,0 +1,36 @@
+package com.mathnerd28.jsonj;
+
+import java.util.Arrays;
+
+// Direct-mapped table of recently seen object layouts, so that records with the same keys share
+// one Shape. Shapes are immutable, so a lost update between threads only means an extra one.
+final class ShapeCache {
+
+  private final Shape[] table;
+  private final int mask;
+
+  ShapeCache(int capacity) {
+    int size = KeyCache.tableSize(capacity);
+    table = new Shape[size];
+    mask = size - 1;
+  }
+
+  int capacity() {
+    return table.length;
+  }
+
+  Shape intern(String[] keys, int size) {
+    int h = size;
+    for (int i = 0; i < size; i++) {
+      h = 31 * h + keys[i].hashCode();
+    }
+    int index = (h ^ (h >>> 16)) & mask;
+    Shape shape = table[index];
+    if (shape != null && shape.matches(keys, size)) {
+      return shape;
+    }
+    shape = new Shape(Arrays.copyOf(keys, size));
+    table[index] = shape;
+    return shape;
+  }
+}
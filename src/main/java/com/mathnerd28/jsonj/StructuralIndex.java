@@ -0,0 +1,263 @@
+package com.mathnerd28.jsonj;
+
+import com.mathnerd28.jsonj.JSONLexer.TokenType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Positions of the brackets, colons and commas of a document (outside of strings), from a single
+// pass that decodes nothing and mostly reads 8 bytes at a time. Values are only lexed when a
+// JSONView asks for them.
+final class StructuralIndex {
+
+  private static final long BIT_5 = Swar.broadcast(0x20);
+  private static final long LEFT_BRACES = Swar.broadcast('{');
+  private static final long RIGHT_BRACES = Swar.broadcast('}');
+  private static final long COLONS = Swar.broadcast(':');
+  private static final long COMMAS = Swar.broadcast(',');
+  private static final long QUOTES = Swar.broadcast('"');
+  private static final long BACKSLASHES = Swar.broadcast('\\');
+
+  final JSONParser parser;
+  final byte[] bytes;
+  final int offset;
+  final int limit;
+
+  // Byte offsets of the structural characters, in order
+  int[] positions;
+  // For an opening bracket, the index of the matching closing one
+  int[] partners;
+  int count;
+
+  StructuralIndex(JSONParser parser, byte[] bytes, int offset, int length)
+    throws JSONParseException {
+    this.parser = parser;
+    this.bytes = bytes;
+    this.offset = offset;
+    this.limit = offset + length;
+    positions = new int[Math.max(16, length >>> 3)];
+    partners = new int[positions.length];
+    scan();
+  }
+
+  private void scan() throws JSONParseException {
+    byte[] bytes = this.bytes;
+    ByteBuffer words = Swar.words(bytes);
+    int[] open = new int[16];
+    int depth = 0;
+    for (int i = offset; i < limit; i++) {
+      // Whole words at a time up to the next structural character or quote, then byte by byte
+      // for the last few
+      for (; i <= limit - 8; i += 8) {
+        long mask = structural(words.getLong(i));
+        if (mask != 0) {
+          i += Swar.first(mask);
+          break;
+        }
+      }
+      if (i >= limit) {
+        break;
+      }
+      switch (bytes[i]) {
+        case '"':
+          i = closingQuote(words, i + 1);
+          break;
+        case '{':
+        case '[':
+          if (depth >= parser.maxDepth) {
+            throw error(i, parser.tooDeep());
+          }
+          if (depth == open.length) {
+            open = Arrays.copyOf(open, depth << 1);
+          }
+          open[depth++] = count;
+          add(i);
+          break;
+        case '}':
+        case ']':
+          if (depth == 0) {
+            throw error(i, "Unexpected " + type(bytes[i]) + " token");
+          }
+          int match = open[--depth];
+          if (bytes[positions[match]] + 2 != bytes[i]) {
+            // '{' + 2 == '}' and '[' + 2 == ']'
+            TokenType expected = closing(bytes[positions[match]]);
+            throw error(i, "Expected " + expected + " instead of " + type(bytes[i]));
+          }
+          partners[match] = count;
+          add(i);
+          break;
+        case ':':
+        case ',':
+          add(i);
+          break;
+        default:
+      }
+    }
+    if (depth > 0) {
+      throw termination();
+    }
+    if (count > 0) {
+      // A container is the whole document, with only whitespace around it
+      int first = skipWhitespace(offset, limit);
+      if (first != positions[0]) {
+        throw error(positions[0], "Unexpected " + type(bytes[positions[0]]) + " token");
+      } else if (!isOpening(0)) {
+        throw error(first, "Unexpected " + type(bytes[first]) + " token");
+      } else if (partners[0] != count - 1) {
+        int next = partners[0] + 1;
+        throw error(positions[next], "Unexpected " + type(bytes[positions[next]]) + " token");
+      }
+      int rest = skipWhitespace(positions[count - 1] + 1, limit);
+      if (rest != limit) {
+        throw error(rest, "Unexpected content after the document");
+      }
+    }
+  }
+
+  // Flags the brackets, colons, commas and quotes in a word
+  private static long structural(long word) {
+    // Setting bit 5 turns '[' and ']' into '{' and '}', and no other byte into either
+    long folded = word | BIT_5;
+    return (
+      // prettier-ignore
+      Swar.eq(folded, LEFT_BRACES) |
+      Swar.eq(folded, RIGHT_BRACES) |
+      Swar.eq(word, COLONS) |
+      Swar.eq(word, COMMAS) |
+      Swar.eq(word, QUOTES)
+    );
+  }
+
+  // Index of the quote that ends a string whose contents start at i
+  private int closingQuote(ByteBuffer words, int i) throws JSONParseException {
+    for (;;) {
+      for (; i <= limit - 8; i += 8) {
+        long word = words.getLong(i);
+        long mask = Swar.eq(word, QUOTES) | Swar.eq(word, BACKSLASHES);
+        if (mask != 0) {
+          i += Swar.first(mask);
+          break;
+        }
+      }
+      if (i >= limit) {
+        throw termination();
+      }
+      byte b = bytes[i];
+      if (b == '"') {
+        return i;
+      }
+      // Past the escaped character, if it was a backslash
+      i += (b == '\\') ? 2 : 1;
+    }
+  }
+
+  private void add(int position) {
+    if (count == positions.length) {
+      positions = Arrays.copyOf(positions, count << 1);
+      partners = Arrays.copyOf(partners, count << 1);
+    }
+    positions[count++] = position;
+  }
+
+  byte at(int index) {
+    return bytes[positions[index]];
+  }
+
+  boolean isOpening(int index) {
+    byte b = bytes[positions[index]];
+    return b == '{' || b == '[';
+  }
+
+  // First non-whitespace offset in [from, to), or to
+  int skipWhitespace(int from, int to) {
+    while (from < to) {
+      byte b = bytes[from];
+      if (b != ' ' && b != '\n' && b != '\t' && b != '\r') {
+        break;
+      }
+      from++;
+    }
+    return from;
+  }
+
+  // Parses the single value in [from, to). The lexer may look past the value (but not past the
+  // document), so a bad keyword or number is reported the way JSONParser.parse() would.
+  JSONElement element(int from, int to) throws JSONParseException {
+    try {
+      return read(new ByteLexer(bytes, from, limit - from), to);
+    } catch (JSONParseException e) {
+      // Lines aren't counted up front, so read again to report the right position
+      throw locate(from, to);
+    }
+  }
+
+  private JSONParseException locate(int from, int to) {
+    try {
+      read(new ByteLexer(bytes, from, limit - from, line(from), lineStart(from)), to);
+    } catch (JSONParseException e) {
+      return e;
+    }
+    throw new AssertionError("Error not reproduced");
+  }
+
+  private JSONElement read(ByteLexer lexer, int to) throws JSONParseException {
+    try {
+      JSONElement element = parser.getData(lexer, lexer.nextToken());
+      if (!lexer.atEnd() && lexer.position() < to) {
+        throw lexer.tokenError("Unexpected " + lexer.nextToken() + " token");
+      }
+      return element;
+    } catch (IOException e) {
+      throw new AssertionError("IOException from byte[]", e);
+    }
+  }
+
+  JSONParseException error(int position, String msg) {
+    return new JSONParseException(msg, line(position), position - lineStart(position) + 1);
+  }
+
+  // Same position the lexers report, just past the last character
+  JSONParseException termination() {
+    return new JSONParseException("Unexpected termination", line(limit), limit - lineStart(limit));
+  }
+
+  private int line(int position) {
+    int line = 1;
+    for (int i = offset; i < position; i++) {
+      if (bytes[i] == '\n') {
+        line++;
+      }
+    }
+    return line;
+  }
+
+  private int lineStart(int position) {
+    int i = position;
+    while (i > offset && bytes[i - 1] != '\n') {
+      i--;
+    }
+    return i;
+  }
+
+  static TokenType type(byte b) {
+    switch (b) {
+      case '{':
+        return TokenType.LEFT_BRACE;
+      case '[':
+        return TokenType.LEFT_BRACKET;
+      case '}':
+        return TokenType.RIGHT_BRACE;
+      case ']':
+        return TokenType.RIGHT_BRACKET;
+      case ':':
+        return TokenType.COLON;
+      default:
+        return TokenType.COMMA;
+    }
+  }
+
+  private static TokenType closing(byte b) {
+    return (b == '{') ? TokenType.RIGHT_BRACE : TokenType.RIGHT_BRACKET;
+  }
+}
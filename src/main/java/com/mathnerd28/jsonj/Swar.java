@@ -0,0 +1,48 @@
+package com.mathnerd28.jsonj;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Tests on all 8 bytes of a long at once (SIMD within a register), so a scan can pass over runs
+// of uninteresting bytes without a branch per byte. Words are read little-endian, so the first
+// byte in memory is the lowest, and a mask's trailing zeros count the bytes before a match.
+final class Swar {
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+  private Swar() {}
+
+  // For getLong() at any offset of the array
+  static ByteBuffer words(byte[] bytes) {
+    return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  // The given byte in every position, for eq()
+  static long broadcast(int b) {
+    return ONES * (b & 0xFF);
+  }
+
+  // The high bit of each byte of word that equals the matching byte of pattern; exact, as the
+  // additions never carry from one byte into the next
+  static long eq(long word, long pattern) {
+    long x = word ^ pattern;
+    return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+  }
+
+  // The high bit of each byte of word below n (at most 0x80), except that only the first flagged
+  // byte is certain: a borrow may flag the byte after a match
+  static long below(long word, int n) {
+    return (word - broadcast(n)) & ~word & ~LOW_BITS;
+  }
+
+  // The high bit of each byte of word that isn't ASCII
+  static long nonAscii(long word) {
+    return word & ~LOW_BITS;
+  }
+
+  // Position in the word of the first byte flagged in mask
+  static int first(long mask) {
+    return Long.numberOfTrailingZeros(mask) >>> 3;
+  }
+}
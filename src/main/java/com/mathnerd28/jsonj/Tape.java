@@ -0,0 +1,411 @@
+package com.mathnerd28.jsonj;
+
+import com.mathnerd28.jsonj.JSONLexer.TokenType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// A document as a tape of 8-byte words in direct (off-heap) memory: a tag in the top byte and a
+// payload below it. Containers hold their size and the index of the word after their last value,
+// so any value can be skipped in one step. Strings are length-prefixed UTF-8, in a second buffer.
+final class Tape {
+
+  static final int NULL = 1;
+  static final int TRUE = 2;
+  static final int FALSE = 3;
+  // Integer in the 56-bit payload
+  static final int SMALL = 4;
+  // Integer or float in the next word
+  static final int INTEGER = 5;
+  static final int FLOAT = 6;
+  // Offset into the strings
+  static final int STRING = 7;
+  static final int OBJECT = 8;
+  static final int ARRAY = 9;
+  // The key of a member overwritten by a later duplicate
+  static final int REMOVED = 10;
+
+  // Containers with more values than this have to be counted
+  static final int MAX_COUNT = 0xFFFFFF;
+
+  final ByteBuffer words;
+  final ByteBuffer strings;
+
+  private Tape(ByteBuffer words, ByteBuffer strings) {
+    this.words = words;
+    this.strings = strings;
+  }
+
+  long word(int i) {
+    return words.getLong(i << 3);
+  }
+
+  static int tag(long word) {
+    return (int) (word >>> 56);
+  }
+
+  // Index of the value after the one at i
+  int next(int i) {
+    long word = word(i);
+    switch (tag(word)) {
+      case INTEGER:
+      case FLOAT:
+        return i + 2;
+      case OBJECT:
+      case ARRAY:
+        return (int) word;
+      default:
+        return i + 1;
+    }
+  }
+
+  long longValue(int i) {
+    long word = word(i);
+    return (tag(word) == SMALL) ? (word << 8) >> 8 : word(i + 1);
+  }
+
+  double doubleValue(int i) {
+    return Double.longBitsToDouble(word(i + 1));
+  }
+
+  String string(int i) {
+    int offset = (int) word(i);
+    byte[] bytes = new byte[strings.getInt(offset)];
+    ByteBuffer view = strings.duplicate();
+    view.position(offset + 4);
+    view.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  boolean stringEquals(int i, byte[] raw) {
+    int offset = (int) word(i);
+    if (strings.getInt(offset) != raw.length) {
+      return false;
+    }
+    for (int k = 0; k < raw.length; k++) {
+      if (strings.get(offset + 4 + k) != raw[k]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static Tape build(JSONParser parser, JSONLexer lexer, long sizeHint)
+    throws IOException, JSONParseException {
+    Builder builder = new Builder(parser, sizeHint);
+    builder.value(lexer, lexer.nextToken());
+    return builder.finish();
+  }
+
+  private static final class Builder {
+
+    // Objects with more keys than this look up duplicates in a hash table
+    private static final int WIDE = 8;
+
+    private final JSONParser parser;
+    private final boolean allowDuplicateKeys;
+
+    private ByteBuffer words;
+    private int count;
+    private ByteBuffer strings;
+
+    // Tape indexes and hashes of the (distinct) keys of the objects being built, innermost last
+    private int[] keys = new int[64];
+    private int[] hashes = new int[64];
+    private int keyCount;
+
+    // Containers open around the current value
+    private int depth;
+
+    Builder(JSONParser parser, long sizeHint) {
+      this.parser = parser;
+      allowDuplicateKeys = parser.allowDuplicateKeys;
+      int capacity = (int) Math.min(Math.max(sizeHint, 1024), 1 << 28);
+      // Whole words, so it fills up exactly
+      words = allocate(capacity & ~7);
+      strings = allocate(capacity);
+    }
+
+    void value(JSONLexer lexer, TokenType t) throws IOException, JSONParseException {
+      switch (t) {
+        case STRING:
+          emit(STRING, string(lexer));
+          break;
+        case INTEGER:
+          long l = lexer.longValue;
+          if ((l << 8) >> 8 == l) {
+            emit(SMALL, l & 0xFFFFFFFFFFFFFFL);
+          } else {
+            emit(INTEGER, 0);
+            emit(l);
+          }
+          break;
+        case FLOAT:
+          emit(FLOAT, 0);
+          emit(Double.doubleToRawLongBits(lexer.doubleValue));
+          break;
+        case TRUE:
+          emit(TRUE, 0);
+          break;
+        case FALSE:
+          emit(FALSE, 0);
+          break;
+        case NULL:
+          emit(NULL, 0);
+          break;
+        case LEFT_BRACE:
+          parser.checkDepth(lexer, depth++);
+          object(lexer);
+          depth--;
+          break;
+        case LEFT_BRACKET:
+          parser.checkDepth(lexer, depth++);
+          array(lexer);
+          depth--;
+          break;
+        default:
+          throw lexer.tokenError("Unexpected " + t + " token");
+      }
+    }
+
+    private void object(JSONLexer lexer) throws IOException, JSONParseException {
+      int start = count;
+      emit(OBJECT, 0);
+      int base = keyCount;
+      int[] table = null; // Once the object is wide
+      int size = 0;
+      TokenType t = lexer.nextToken();
+      if (t != TokenType.RIGHT_BRACE) {
+        for (;;) {
+          expect(lexer, t, TokenType.STRING);
+          int key = count;
+          int offset = string(lexer);
+          emit(STRING, offset);
+          int hash = hash(offset);
+          int k = find(table, base, offset, hash);
+          if (k >= 0) {
+            if (!allowDuplicateKeys) {
+              throw lexer.tokenError("Duplicate key '" + lexer.stringValue() + "'");
+            }
+            // Like JSONObject, the later value wins
+            long word = words.getLong(keys[k] << 3);
+            words.putLong(keys[k] << 3, ((long) REMOVED << 56) | (int) word);
+            keys[k] = key;
+            size--;
+          } else {
+            push(key, hash);
+            int n = keyCount - base;
+            if (table != null && n << 1 <= table.length) {
+              insert(table, n, hash);
+            } else if (n > WIDE) {
+              table = index(base);
+            }
+          }
+          expect(lexer, lexer.nextToken(), TokenType.COLON);
+          value(lexer, lexer.nextToken());
+          size++;
+
+          t = lexer.nextToken();
+          if (t != TokenType.COMMA) {
+            expect(lexer, t, TokenType.RIGHT_BRACE);
+            break;
+          }
+          t = lexer.nextToken();
+        }
+      }
+      keyCount = base;
+      close(start, OBJECT, size);
+    }
+
+    private void array(JSONLexer lexer) throws IOException, JSONParseException {
+      int start = count;
+      emit(ARRAY, 0);
+      int size = 0;
+      TokenType t = lexer.nextToken();
+      if (t != TokenType.RIGHT_BRACKET) {
+        for (;;) {
+          value(lexer, t);
+          size++;
+          t = lexer.nextToken();
+          if (t != TokenType.COMMA) {
+            expect(lexer, t, TokenType.RIGHT_BRACKET);
+            break;
+          }
+          t = lexer.nextToken();
+        }
+      }
+      close(start, ARRAY, size);
+    }
+
+    // Where in keys the object's earlier key equal to the one at offset is, or -1. Small objects
+    // are scanned; wide ones have a table of positions (from 1, past base) by hash.
+    private int find(int[] table, int base, int offset, int hash) {
+      if (table == null) {
+        for (int k = base; k < keyCount; k++) {
+          if (hashes[k] == hash && sameKey(k, offset)) {
+            return k;
+          }
+        }
+        return -1;
+      }
+      int mask = table.length - 1;
+      for (int i = spread(hash) & mask; table[i] != 0; i = (i + 1) & mask) {
+        int k = base + table[i] - 1;
+        if (hashes[k] == hash && sameKey(k, offset)) {
+          return k;
+        }
+      }
+      return -1;
+    }
+
+    private boolean sameKey(int k, int offset) {
+      return sameString((int) words.getLong(keys[k] << 3), offset);
+    }
+
+    // A table of the object's keys, at most half full
+    private int[] index(int base) {
+      int[] table = new int[Integer.highestOneBit(keyCount - base) << 2];
+      for (int k = base; k < keyCount; k++) {
+        insert(table, k - base + 1, hashes[k]);
+      }
+      return table;
+    }
+
+    private static void insert(int[] table, int position, int hash) {
+      int mask = table.length - 1;
+      int i = spread(hash) & mask;
+      while (table[i] != 0) {
+        i = (i + 1) & mask;
+      }
+      table[i] = position;
+    }
+
+    private static int spread(int hash) {
+      return hash ^ (hash >>> 16);
+    }
+
+    private void push(int key, int hash) {
+      if (keyCount == keys.length) {
+        keys = Arrays.copyOf(keys, keyCount << 1);
+        hashes = Arrays.copyOf(hashes, keyCount << 1);
+      }
+      keys[keyCount] = key;
+      hashes[keyCount] = hash;
+      keyCount++;
+    }
+
+    private void close(int start, int tag, int size) {
+      long payload = ((long) Math.min(size, MAX_COUNT) << 32) | count;
+      words.putLong(start << 3, ((long) tag << 56) | payload);
+    }
+
+    private void emit(int tag, long payload) {
+      emit(((long) tag << 56) | payload);
+    }
+
+    private void emit(long word) {
+      if (count << 3 == words.capacity()) {
+        words = grow(words, words.capacity());
+      }
+      words.putLong(count << 3, word);
+      count++;
+    }
+
+    // Appends the lexer's string as UTF-8, and returns its offset
+    private int string(JSONLexer lexer) {
+      char[] text = lexer.text;
+      int length = lexer.textLen;
+      // No char takes more than 3 bytes (a surrogate pair takes 4 for 2 chars)
+      if (strings.remaining() < 4 + 3 * length) {
+        strings = grow(strings, 4 + 3 * length);
+      }
+      int offset = strings.position();
+      strings.position(offset + 4);
+      for (int i = 0; i < length; i++) {
+        char c = text[i];
+        if (c < 0x80) {
+          strings.put((byte) c);
+        } else if (c < 0x800) {
+          strings.put((byte) (0xC0 | (c >> 6)));
+          strings.put((byte) (0x80 | (c & 0x3F)));
+        } else if (
+          Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text[i + 1])
+        ) {
+          int cp = Character.toCodePoint(c, text[++i]);
+          strings.put((byte) (0xF0 | (cp >> 18)));
+          strings.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+          strings.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+          strings.put((byte) (0x80 | (cp & 0x3F)));
+        } else if (Character.isSurrogate(c)) {
+          // Unpaired, which UTF-8 can't hold; same as String.getBytes()
+          strings.put((byte) '?');
+        } else {
+          strings.put((byte) (0xE0 | (c >> 12)));
+          strings.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+          strings.put((byte) (0x80 | (c & 0x3F)));
+        }
+      }
+      strings.putInt(offset, strings.position() - offset - 4);
+      return offset;
+    }
+
+    private int hash(int offset) {
+      int h = 0;
+      for (int i = offset + 4, end = i + strings.getInt(offset); i < end; i++) {
+        h = 31 * h + strings.get(i);
+      }
+      return h;
+    }
+
+    private boolean sameString(int a, int b) {
+      int length = strings.getInt(a);
+      if (strings.getInt(b) != length) {
+        return false;
+      }
+      for (int i = 4; i < length + 4; i++) {
+        if (strings.get(a + i) != strings.get(b + i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // Copies into buffers of exactly the size used
+    Tape finish() {
+      ByteBuffer tape = allocate(count << 3);
+      words.limit(count << 3);
+      tape.put(words);
+      strings.flip();
+      ByteBuffer text = allocate(strings.limit());
+      text.put(strings);
+      return new Tape(tape, text);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+      long capacity = Math.max((long) buffer.capacity() << 1, (long) buffer.position() + needed);
+      if (capacity > Integer.MAX_VALUE - 8) {
+        throw new OutOfMemoryError("Document is too large for a tape");
+      }
+      ByteBuffer copy = allocate((int) capacity);
+      int position = buffer.position();
+      buffer.position(0);
+      buffer.limit(buffer.capacity());
+      copy.put(buffer);
+      copy.position(position);
+      return copy;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+      return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    private static void expect(JSONLexer lexer, TokenType t, TokenType type)
+      throws JSONParseException {
+      if (t != type) {
+        throw lexer.tokenError("Expected " + type + " instead of " + t);
+      }
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package com.mathnerd28.jsonj;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Encodes straight into a reusable byte[] instead of going through an OutputStreamWriter
+final class UTF8Output implements Appendable, Flushable {
+
+  private final OutputStream stream;
+  private final byte[] buf;
+  private int pos;
+
+  // High surrogate from a previous append(char), if any
+  private char pending;
+
+  UTF8Output(OutputStream stream) {
+    this(stream, 8192);
+  }
+
+  UTF8Output(OutputStream stream, int capacity) {
+    this.stream = stream;
+    this.buf = new byte[Math.max(capacity, 16)];
+  }
+
+  @Override
+  public UTF8Output append(char c) throws IOException {
+    if (pending != 0) {
+      char high = pending;
+      pending = 0;
+      if (Character.isLowSurrogate(c)) {
+        codePoint(Character.toCodePoint(high, c));
+        return this;
+      }
+      ascii('?');
+    }
+    if (c < 0x80) {
+      ascii(c);
+    } else if (Character.isHighSurrogate(c)) {
+      pending = c;
+    } else {
+      encode(c);
+    }
+    return this;
+  }
+
+  @Override
+  public UTF8Output append(CharSequence csq) throws IOException {
+    return append(csq, 0, csq.length());
+  }
+
+  @Override
+  public UTF8Output append(CharSequence csq, int start, int end) throws IOException {
+    for (int i = start; i < end; i++) {
+      append(csq.charAt(i));
+    }
+    return this;
+  }
+
+  // Writes str as a quoted, escaped JSON string
+  void string(String str) throws IOException {
+    ascii('"');
+    byte[] buf = this.buf;
+    int i = 0;
+    int len = str.length();
+    while (i < len) {
+      // Copy a run of ASCII that needs no escaping, as far as the buffer allows
+      if (pos == buf.length) {
+        drain();
+      }
+      int pos = this.pos;
+      int end = Math.min(len, i + (buf.length - pos));
+      char c = 0;
+      while (i < end && (c = str.charAt(i)) < 0x80 && JSONWriter.ESCAPES[c] == null) {
+        buf[pos++] = (byte) c;
+        i++;
+      }
+      this.pos = pos;
+      if (i == end) {
+        continue;
+      }
+      i++;
+      if (c < 0x80) {
+        String escape = JSONWriter.ESCAPES[c];
+        for (int j = 0; j < escape.length(); j++) {
+          ascii(escape.charAt(j));
+        }
+      } else if (Character.isHighSurrogate(c) && i < len && Character.isLowSurrogate(str.charAt(i))) {
+        codePoint(Character.toCodePoint(c, str.charAt(i++)));
+      } else if (Character.isSurrogate(c)) {
+        ascii('?');
+      } else {
+        encode(c);
+      }
+    }
+    ascii('"');
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (pending != 0) {
+      pending = 0;
+      ascii('?');
+    }
+    drain();
+    stream.flush();
+  }
+
+  private void drain() throws IOException {
+    if (pos > 0) {
+      stream.write(buf, 0, pos);
+      pos = 0;
+    }
+  }
+
+  private void ascii(char c) throws IOException {
+    if (pos == buf.length) {
+      drain();
+    }
+    buf[pos++] = (byte) c;
+  }
+
+  // Two or three bytes for a BMP character that isn't ASCII or a surrogate
+  private void encode(char c) throws IOException {
+    if (pos + 3 > buf.length) {
+      drain();
+    }
+    if (c < 0x800) {
+      buf[pos++] = (byte) (0xC0 | (c >> 6));
+    } else if (Character.isSurrogate(c)) {
+      buf[pos++] = '?';
+      return;
+    } else {
+      buf[pos++] = (byte) (0xE0 | (c >> 12));
+      buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+    }
+    buf[pos++] = (byte) (0x80 | (c & 0x3F));
+  }
+
+  private void codePoint(int cp) throws IOException {
+    if (pos + 4 > buf.length) {
+      drain();
+    }
+    buf[pos++] = (byte) (0xF0 | (cp >> 18));
+    buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+    buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+    buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+  }
+}
@@ -0,0 +1,135 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class TestJSONBinary {
+
+  static final String JSON =
+    "{\"id\": 12, \"neg\": -17, \"big\": -9223372036854775808, \"max\": 9223372036854775807," +
+    " \"f\": -2.5e-3, \"z\": -0.0, \"s\": \"h\\u00e9llo \\ud83d\\ude00\", \"t\": true, \"n\": null," +
+    " \"list\": [1, [], {}, \"x\", false], \"rows\": [{\"id\": 1, \"s\": \"x\"}, {\"id\": 2}]}";
+
+  static byte[] binary(JSONElement element) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    element.writeBinary(out);
+    return out.toByteArray();
+  }
+
+  @Test
+  void testRoundTrip() throws IOException, JSONParseException {
+    JSONElement element = new JSONParser().parse(JSON);
+    byte[] bytes = binary(element);
+    assertEquals(element, JSONElement.readBinary(new ByteArrayInputStream(bytes)));
+    assertEquals(element, new JSONParser().parseBinary(bytes));
+    assertEquals(element, new JSONParser().parseBinary(TestJSONParser.trickle(bytes)));
+    assertTrue(bytes.length < JSON.getBytes(StandardCharsets.UTF_8).length);
+
+    JSONElement[] scalars = {
+      JSONElement.NULL,
+      JSONBoolean.TRUE,
+      new JSONString(""),
+      new JSONInteger(111),
+      new JSONInteger(112),
+      new JSONFloat(Double.MIN_VALUE),
+    };
+    for (JSONElement scalar : scalars) {
+      assertEquals(scalar, new JSONParser().parseBinary(binary(scalar)));
+    }
+  }
+
+  @Test
+  void testOtherRepresentations() throws IOException, JSONParseException {
+    // Written like any object or array, and read back as the parser's settings say
+    JSONParser compact = new JSONParser().compactingNumbers().compactingObjects();
+    JSONElement element = compact.parse("{\"a\": [1, 2], \"b\": [0.5, 1]}");
+    byte[] bytes = binary(element);
+    assertEquals(element, compact.parseBinary(bytes));
+    assertEquals(new JSONParser().parse(element.toJSON()), new JSONParser().parseBinary(bytes));
+    JSONElement frozen = JSONImmutableObject.copyOf((JSONObject) new JSONParser().parse(JSON));
+    assertEquals(new JSONParser().parse(JSON), new JSONParser().parseBinary(binary(frozen)));
+  }
+
+  @Test
+  void testRepeatedStrings() throws IOException, JSONParseException {
+    JSONArray rows = new JSONArray();
+    for (int i = 0; i < 1000; i++) {
+      JSONObject row = new JSONObject();
+      row.putString("category", "category-" + (i % 3));
+      row.putLong("value", i);
+      rows.add(row);
+    }
+    byte[] bytes = binary(rows);
+    // Each key and category is written out once, and referred to in 2 bytes after that
+    assertTrue(bytes.length < rows.toJSON(true).length() / 3, "" + bytes.length);
+    JSONArray copy = (JSONArray) new JSONParser().interningKeys().parseBinary(bytes);
+    assertEquals(rows, copy);
+    assertSame(copy.getObject(0).getString("category"), copy.getObject(3).getString("category"));
+  }
+
+  @Test
+  void testConsecutiveDocuments() throws IOException, JSONParseException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JSONElement element = new JSONParser().parse(JSON);
+    new JSONInteger(1).writeBinary(out);
+    element.writeBinary(out);
+    new JSONString("last").writeBinary(out);
+    byte[] bytes = out.toByteArray();
+    for (InputStream in : new InputStream[] {
+      new ByteArrayInputStream(bytes),
+      TestJSONParser.trickle(bytes),
+    }) {
+      assertEquals(new JSONInteger(1), JSONElement.readBinary(in));
+      assertEquals(element, JSONElement.readBinary(in));
+      assertEquals(new JSONString("last"), JSONElement.readBinary(in));
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  void testCorruptLength() {
+    // A string claiming to be nearly 2 GB long, with nothing after it
+    byte[] corrupt = { 'J', 'B', 1, BinaryWriter.STRING, (byte) 0xF0, -1, -1, -1, 0x07 };
+    JSONParseException e = assertThrows(
+      JSONParseException.class,
+      () -> JSONElement.readBinary(new ByteArrayInputStream(corrupt))
+    );
+    assertEquals("Unexpected termination at line 1, column 10", e.getMessage());
+    e = assertThrows(JSONParseException.class, () -> new JSONParser().parseBinary(corrupt));
+    assertEquals("Unexpected termination at line 1, column 10", e.getMessage());
+  }
+
+  @Test
+  void testErrors() throws IOException, JSONParseException {
+    byte[] valid = binary(new JSONParser().parse(JSON));
+    byte[] truncated = new byte[valid.length - 1];
+    System.arraycopy(valid, 0, truncated, 0, truncated.length);
+    JSONParseException e = assertThrows(
+      JSONParseException.class,
+      () -> new JSONParser().parseBinary(truncated)
+    );
+    assertEquals("Unexpected termination at line 1, column " + valid.length, e.getMessage());
+
+    e = assertThrows(JSONParseException.class, () -> new JSONParser().parseBinary(JSON.getBytes()));
+    assertEquals("Not binary JSON at line 1, column 1", e.getMessage());
+
+    byte[] badKey = { 'J', 'B', 1, BinaryWriter.OBJECT, 1, (byte) 0x91, BinaryWriter.NULL };
+    e = assertThrows(JSONParseException.class, () -> new JSONParser().parseBinary(badKey));
+    assertEquals("Expected STRING key at line 1, column 6", e.getMessage());
+
+    assertThrows(IllegalArgumentException.class, () -> binary(new JSONElement() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public String toJSON(boolean compact) {
+        return "0";
+      }
+    }));
+  }
+}
@@ -0,0 +1,141 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TestJSONCompactObject {
+
+  static final JSONParser parser = new JSONParser().compactingObjects();
+
+  static final String JSON =
+    "{\"id\": 7, \"name\": \"x\", \"tags\": [{\"k\": true}], \"inner\": {\"f\": 1.5}, \"n\": null}";
+
+  @Test
+  void testParse() throws JSONParseException {
+    JSONCompactObject obj = (JSONCompactObject) parser.parse(JSON);
+    assertEquals(7, obj.getInt("id"));
+    assertEquals("x", obj.getString("name"));
+    assertTrue(obj.getArray("tags").getCompactObject(0).getBoolean("k"));
+    assertEquals(1.5, obj.getObject("inner").getDouble("f"));
+    assertEquals(JSONElement.NULL, obj.get("n"));
+    assertNull(obj.get("missing"));
+    assertEquals(Arrays.asList("id", "name", "tags", "inner", "n"), Arrays.asList(obj.keySet().toArray()));
+    assertEquals(new JSONParser().parse(JSON).toJSON(), obj.toJSON());
+    assertEquals(obj, parser.parse(obj.toJSON(true)));
+  }
+
+  @Test
+  void testDuplicateKeys() throws JSONParseException {
+    String json = "{\"a\": 1, \"b\": 2, \"a\": 3}";
+    JSONParseException e = assertThrows(JSONParseException.class, () -> parser.parse(json));
+    assertEquals("Duplicate key 'a' at line 1, column 18", e.getMessage());
+    JSONElement obj = new JSONParser().compactingObjects().overwritingDuplicateKeys().parse(json);
+    assertEquals("{\"b\":2,\"a\":3}", obj.toJSON(true));
+  }
+
+  @Test
+  void testLargeObject() {
+    JSONCompactObject obj = new JSONCompactObject();
+    for (int i = 0; i < 100; i++) {
+      assertNull(obj.putInteger("k" + i, i));
+    }
+    assertEquals(100, obj.size());
+    assertEquals(new JSONInteger(5), obj.putInteger("k5", -5));
+    for (int i = 0; i < 100; i += 2) {
+      obj.remove("k" + i);
+    }
+    assertEquals(50, obj.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i % 2 == 1, obj.containsKey("k" + i), "k" + i);
+    }
+    assertEquals(99, obj.getLong("k99"));
+    assertEquals("k1", obj.keySet().iterator().next());
+  }
+
+  @Test
+  void testMap() {
+    JSONObject map = new JSONObject();
+    map.putString("a", "x");
+    map.putDouble("b", 2.5);
+    map.putBoolean("c", false);
+    JSONCompactObject obj = new JSONCompactObject(map);
+    assertEquals(map.hashCode(), obj.hashCode());
+    assertEquals(map.entrySet(), obj.entrySet());
+    assertNotEquals(map, obj);
+    assertEquals(new JSONCompactObject(map), obj);
+
+    Iterator<Map.Entry<String, JSONElement>> iterator = obj.entrySet().iterator();
+    iterator.next().setValue(new JSONString("y"));
+    iterator.next();
+    iterator.remove();
+    assertEquals("{\"a\":\"y\",\"c\":false}", obj.toJSON(true));
+    assertThrows(NullPointerException.class, () -> obj.put(null, JSONElement.NULL));
+    obj.clear();
+    assertTrue(obj.isEmpty());
+  }
+
+  @Test
+  void testSharedShapes() throws JSONParseException {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < 20; i++) {
+      json.append(i == 0 ? "" : ",");
+      json.append("{\"id\": ").append(i).append(", \"name\": \"n").append(i).append("\"");
+      // Past the linear scan, so the shared table is used too
+      for (int k = 0; k < 10; k++) {
+        json.append(", \"f").append(k).append("\": ").append(k);
+      }
+      json.append("}");
+    }
+    JSONArray records = (JSONArray) parser.parse(json.append("]").toString());
+    JSONCompactObject first = records.getCompactObject(0);
+    for (int i = 0; i < records.size(); i++) {
+      JSONCompactObject record = records.getCompactObject(i);
+      assertSame(first.shape(), record.shape());
+      assertEquals(i, record.getInt("id"));
+      assertEquals("n" + i, record.getString("name"));
+      assertEquals(9, record.getInt("f9"));
+    }
+
+    // Changing the keys of one leaves the others alone
+    JSONCompactObject second = records.getCompactObject(1);
+    second.putInteger("extra", 1);
+    second.remove("id");
+    assertNull(second.shape());
+    assertFalse(second.containsKey("id"));
+    assertEquals(0, first.getInt("id"));
+    assertFalse(first.containsKey("extra"));
+    assertEquals(12, first.size());
+    first.putInteger("id", 100);
+    assertSame(records.getCompactObject(2).shape(), first.shape());
+    first.clear();
+    assertEquals(12, records.getCompactObject(2).size());
+
+    JSONElement other = new JSONParser().compactingObjects().parse("{\"id\": 1}");
+    assertNotSame(records.getCompactObject(2).shape(), ((JSONCompactObject) other).shape());
+  }
+
+  @Test
+  void testSerialization() throws IOException, ClassNotFoundException, JSONParseException {
+    JSONArray records = (JSONArray) parser.parse("[{\"a\": 1, \"b\": 2}, {\"a\": 3, \"b\": 4}]");
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(records);
+    }
+    JSONArray copy;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (JSONArray) in.readObject();
+    }
+    assertEquals(records, copy);
+    copy.getCompactObject(0).putInteger("c", 5);
+    assertFalse(copy.getCompactObject(1).containsKey("c"));
+  }
+}
@@ -0,0 +1,89 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+class TestJSONDoubleArray {
+
+  static final JSONParser parser = new JSONParser().compactingNumbers();
+
+  @Test
+  void testParse() throws JSONParseException {
+    JSONArray coordinates = (JSONArray) parser.parse("[[-65.6, 43], [1, 2.5e1, 3]]");
+    assertArrayEquals(
+      new double[] { -65.6, 43 },
+      coordinates.getDoubleArray(0).toDoubleArray()
+    );
+    JSONDoubleArray second = coordinates.getDoubleArray(1);
+    assertEquals(new JSONFloat(25), second.get(1));
+    assertEquals(29, second.doubleStream().sum());
+    // Integers are still integers, the same as without compacting
+    assertEquals(new JSONInteger(1), second.get(0));
+    assertTrue(second.isInteger(2));
+    assertEquals("[1,25.0,3]", second.toJSON(true));
+  }
+
+  @Test
+  void testMixedRoundTrip() throws IOException, JSONParseException {
+    String json = "[1,-2.5,9007199254740992,0.0,-3]";
+    JSONDoubleArray array = (JSONDoubleArray) parser.parse(json);
+    JSONArray boxed = (JSONArray) new JSONParser().parse(json);
+    assertEquals(json, array.toJSON(true));
+    assertEquals(boxed, new JSONArray(array));
+    assertEquals(boxed.hashCode(), array.hashCode());
+    assertEquals(array, parser.parse(array.toJSON()));
+    assertEquals(boxed, new JSONParser().parseBinary(TestJSONBinary.binary(array)));
+    assertNotEquals(new JSONDoubleArray(1, -2.5, 9007199254740992.0, 0, -3), array);
+  }
+
+  @Test
+  void testFallback() throws JSONParseException {
+    // Integers keep their type when the array can't be compacted
+    String json = "[0.5, 1, 2.5, true]";
+    JSONElement element = parser.parse(json);
+    assertEquals(JSONArray.class, element.getClass());
+    assertEquals(new JSONParser().parse(json), element);
+    assertEquals(new JSONInteger(1), ((JSONArray) element).get(1));
+  }
+
+  @Test
+  void testMutation() {
+    JSONDoubleArray array = new JSONDoubleArray(0.5, 1.5);
+    array.add(new JSONFloat(2.5));
+    array.addDouble(0, -0.5);
+    assertEquals(new JSONFloat(0.5), array.remove(1));
+    assertEquals(3, array.size());
+    assertEquals(-0.5, array.getDouble(0));
+    array.add(1, new JSONInteger(7));
+    assertEquals("[-0.5,7,1.5,2.5]", array.toJSON(true));
+    assertEquals(new JSONInteger(7), array.remove(1));
+    assertEquals(new JSONFloat(1.5), array.set(1, new JSONInteger(3)));
+    assertEquals("[-0.5,3,2.5]", array.toJSON(true));
+    array.setDouble(1, 3);
+    assertEquals("[-0.5,3.0,2.5]", array.toJSON(true));
+    assertThrows(ClassCastException.class, () -> array.add(new JSONString("1")));
+    assertThrows(IllegalArgumentException.class, () -> array.add(new JSONInteger((1L << 53) + 1)));
+    assertThrows(IllegalArgumentException.class, () -> array.addDouble(Double.NaN));
+    assertThrows(IllegalArgumentException.class, () -> new JSONDoubleArray(Double.NEGATIVE_INFINITY));
+  }
+
+  @Test
+  void testList() {
+    JSONDoubleArray array = new JSONDoubleArray(0.5, -0.0);
+    JSONArray boxed = new JSONArray();
+    boxed.add(new JSONFloat(0.5));
+    boxed.add(new JSONFloat(-0.0));
+    assertEquals(boxed.hashCode(), array.hashCode());
+    assertEquals(new JSONDoubleArray(0.5, 0.0), array);
+    assertNotEquals(new JSONDoubleArray(0.5), array);
+  }
+
+  @Test
+  void testToJSON() {
+    JSONDoubleArray array = new JSONDoubleArray(0.5, -1.0);
+    assertEquals("[0.5,-1.0]", array.toJSON(true));
+    assertEquals("[\n  0.5,\n  -1.0\n]", array.toJSONFormatted());
+  }
+}
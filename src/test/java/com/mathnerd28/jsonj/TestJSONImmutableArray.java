@@ -0,0 +1,60 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TestJSONImmutableArray {
+
+  @Test
+  void testPlusAndWith() {
+    // Past several levels of the trie
+    List<JSONElement> expected = new ArrayList<>();
+    JSONImmutableArray array = JSONImmutableArray.empty();
+    List<JSONImmutableArray> versions = new ArrayList<>();
+    for (int i = 0; i < 40000; i++) {
+      array = array.plus(new JSONInteger(i));
+      expected.add(new JSONInteger(i));
+      if (i % 1000 == 0) {
+        versions.add(array);
+      }
+    }
+    assertEquals(expected, array);
+    assertEquals(expected, JSONImmutableArray.copyOf(expected));
+    assertEquals(expected.hashCode(), array.hashCode());
+
+    JSONImmutableArray changed = array.with(12345, new JSONString("x"));
+    assertEquals(new JSONInteger(12345), array.get(12345));
+    assertEquals("x", changed.getString(12345));
+    assertEquals(39999, changed.getLong(39999));
+    for (int v = 0; v < versions.size(); v++) {
+      assertEquals(v * 1000 + 1, versions.get(v).size());
+      assertEquals(v * 1000, versions.get(v).getInt(v * 1000));
+    }
+  }
+
+  @Test
+  void testWithout() {
+    JSONImmutableArray array = JSONImmutableArray.copyOf(new JSONLongArray(1, 2, 3));
+    assertEquals("[1,3]", array.without(1).toJSON(true));
+    assertEquals("[1,2,3]", array.toJSON(true));
+    assertTrue(array.without(0).without(0).without(0).isEmpty());
+    assertThrows(IndexOutOfBoundsException.class, () -> array.without(3));
+    assertThrows(IndexOutOfBoundsException.class, () -> array.get(-1));
+  }
+
+  @Test
+  void testCopyOf() throws JSONParseException {
+    JSONArray parsed = (JSONArray) new JSONParser().parse("[{\"a\": [1]}, 2.5, null]");
+    JSONImmutableArray frozen = JSONImmutableArray.copyOf(parsed);
+    assertEquals(parsed.toJSON(), frozen.toJSON());
+    assertEquals(1, frozen.getObject(0).getArray("a").getInt(0));
+    parsed.getObject(0).getArray("a").clear();
+    assertEquals(1, frozen.getObject(0).getArray("a").size());
+    assertNotEquals(parsed, frozen);
+    assertThrows(UnsupportedOperationException.class, () -> frozen.add(JSONElement.NULL));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.set(0, JSONElement.NULL));
+  }
+}
@@ -0,0 +1,112 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TestJSONImmutableObject {
+
+  @Test
+  void testCopyOf() throws JSONParseException {
+    JSONObject obj = (JSONObject) new JSONParser()
+      .parse("{\"a\": 1, \"b\": {\"c\": [true, {\"d\": \"x\"}]}, \"e\": 2.5}");
+    JSONImmutableObject frozen = JSONImmutableObject.copyOf(obj);
+    assertEquals(obj.toJSON(), frozen.toJSON());
+    assertEquals(1, frozen.getInt("a"));
+    assertEquals(2.5, frozen.getDouble("e"));
+    assertEquals("x", frozen.getObject("b").getArray("c").getObject(1).getString("d"));
+    assertEquals(Arrays.asList("a", "b", "e"), new ArrayList<>(frozen.keySet()));
+    assertEquals(obj.hashCode(), frozen.hashCode());
+    assertNotEquals(obj, frozen);
+
+    // The copy is deep
+    obj.getObject("b").getArray("c").addInt(3);
+    assertEquals(2, frozen.getObject("b").getArray("c").size());
+    assertSame(frozen, JSONImmutableObject.copyOf(frozen));
+  }
+
+  @Test
+  void testWithAndWithout() {
+    JSONImmutableObject empty = JSONImmutableObject.empty();
+    JSONImmutableObject one = empty.with("a", new JSONInteger(1));
+    JSONImmutableObject two = one.with("b", new JSONString("x"));
+    JSONImmutableObject replaced = two.with("a", new JSONInteger(3));
+    JSONImmutableObject removed = replaced.without("a");
+
+    assertTrue(empty.isEmpty());
+    assertEquals("{\"a\":1}", one.toJSON(true));
+    assertEquals("{\"a\":1,\"b\":\"x\"}", two.toJSON(true));
+    assertEquals("{\"a\":3,\"b\":\"x\"}", replaced.toJSON(true));
+    assertEquals("{\"b\":\"x\"}", removed.toJSON(true));
+    assertEquals("{\"b\":\"x\",\"a\":1}", removed.with("a", new JSONInteger(1)).toJSON(true));
+    assertSame(removed, removed.without("a"));
+    assertSame(empty, one.without("a"));
+    assertFalse(removed.containsKey("a"));
+    assertNull(removed.get(1));
+
+    // Mutable values are copied on the way in
+    JSONArray array = new JSONArray();
+    JSONImmutableObject holder = empty.with("list", array);
+    array.addInt(1);
+    assertTrue(holder.getArray("list").isEmpty());
+    assertThrows(NullPointerException.class, () -> empty.with("x", null));
+  }
+
+  @Test
+  void testRepeatedEdits() {
+    JSONImmutableObject obj = JSONImmutableObject.empty().with("kept", new JSONInteger(0));
+    for (int i = 0; i < 100000; i++) {
+      obj = obj.with("k", new JSONInteger(i)).without("k");
+      assertTrue(obj.slots() <= 2 * obj.size() + 33, "round " + i);
+    }
+    assertEquals("{\"kept\":0}", obj.toJSON(true));
+    obj = obj.with("a", new JSONInteger(1));
+    assertEquals("{\"kept\":0,\"a\":1}", obj.toJSON(true));
+    assertEquals(1, obj.getInt("a"));
+  }
+
+  @Test
+  void testUnsupported() {
+    JSONImmutableObject obj = JSONImmutableObject.empty().with("a", JSONElement.NULL);
+    assertThrows(UnsupportedOperationException.class, () -> obj.put("b", JSONElement.NULL));
+    assertThrows(UnsupportedOperationException.class, () -> obj.remove("a"));
+    assertThrows(UnsupportedOperationException.class, obj::clear);
+    assertThrows(UnsupportedOperationException.class, () -> obj.keySet().clear());
+  }
+
+  @Test
+  void testManyKeys() {
+    // Enough keys for several trie levels, some with colliding hashes ("Aa" and "BB")
+    Map<String, JSONElement> expected = new HashMap<>();
+    JSONImmutableObject obj = JSONImmutableObject.empty();
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      keys.add("k" + i);
+      keys.add("Aa" + i);
+    }
+    keys.add("AaAa");
+    keys.add("BBBB");
+    keys.add("AaBB");
+    keys.add("BBAa");
+    for (int i = 0; i < keys.size(); i++) {
+      obj = obj.with(keys.get(i), new JSONInteger(i));
+      expected.put(keys.get(i), new JSONInteger(i));
+    }
+    assertEquals(expected, new HashMap<>(obj));
+    for (int i = 0; i < keys.size(); i += 3) {
+      obj = obj.without(keys.get(i));
+      expected.remove(keys.get(i));
+    }
+    assertEquals(expected.size(), obj.size());
+    assertEquals(expected, new HashMap<>(obj));
+    for (String key : keys) {
+      assertEquals(expected.get(key), obj.get(key), key);
+    }
+    assertEquals(expected, new HashMap<>(obj.without("nothing")));
+  }
+}
@@ -0,0 +1,114 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+class TestJSONLines {
+
+  static final String LINES = "{\"a\": 1}\n[2, \"x\\ny\"]\r\n\n\"s\"\n  {}  \n3\n";
+
+  static List<JSONElement> expected() throws JSONParseException {
+    JSONParser parser = new JSONParser();
+    return Arrays.asList(
+      parser.parse("{\"a\": 1}"),
+      parser.parse("[2, \"x\\ny\"]"),
+      new JSONString("s"),
+      new JSONObject(),
+      new JSONInteger(3)
+    );
+  }
+
+  @Test
+  void testRead() throws IOException, JSONParseException {
+    byte[] bytes = LINES.getBytes(StandardCharsets.UTF_8);
+    JSONParser parser = new JSONParser();
+    JSONLinesReader[] readers = {
+      parser.linesReader(LINES),
+      parser.linesReader(new StringReader(LINES)),
+      parser.linesReader(bytes),
+      parser.linesReader(TestJSONParser.trickle(bytes)),
+    };
+    for (JSONLinesReader reader : readers) {
+      for (JSONElement element : expected()) {
+        assertTrue(reader.hasNext());
+        assertEquals(element, reader.next());
+      }
+      assertFalse(reader.hasNext());
+      assertThrows(NoSuchElementException.class, reader::next);
+    }
+  }
+
+  @Test
+  void testConcatenated() throws IOException, JSONParseException {
+    JSONLinesReader reader = new JSONParser().linesReader("{}[]1 2\"a\"");
+    assertEquals(5, reader.nextBatch(10).size());
+    assertTrue(reader.nextBatch(10).isEmpty());
+  }
+
+  @Test
+  void testBatchesAndBinding() throws IOException, JSONParseException {
+    JSONLinesReader reader = new JSONParser().linesReader(LINES);
+    JSONArray first = reader.nextBatch(2);
+    assertEquals(expected().subList(0, 2), first);
+    assertEquals("s", reader.next(String.class));
+    assertEquals(expected().subList(3, 5), reader.nextBatch(5));
+  }
+
+  @Test
+  void testStream() throws JSONParseException {
+    try (Stream<JSONElement> stream = new JSONParser().linesReader(LINES).stream()) {
+      assertEquals(expected(), stream.collect(Collectors.toList()));
+    }
+    Stream<JSONElement> stream = new JSONParser().linesReader("1\n{\"a\" 2}\n").stream();
+    IllegalArgumentException e = assertThrows(
+      IllegalArgumentException.class,
+      () -> stream.forEach(element -> {})
+    );
+    assertEquals("Expected COLON instead of INTEGER at line 2, column 6", e.getMessage());
+  }
+
+  @Test
+  void testWrite() throws IOException, JSONParseException {
+    StringBuilder out = new StringBuilder();
+    new JSONLinesWriter(out).writeAll(expected());
+    assertEquals("{\"a\":1}\n[2,\"x\\ny\"]\n\"s\"\n{}\n3\n", out.toString());
+    assertEquals(expected(), new JSONParser().linesReader(out.toString()).nextBatch(10));
+  }
+
+  @Test
+  void testWriteFlushesInBatches() throws IOException, JSONParseException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int[] flushes = { 0 };
+    OutputStream stream = new OutputStream() {
+      @Override
+      public void write(int b) {
+        bytes.write(b);
+      }
+
+      @Override
+      public void flush() {
+        flushes[0]++;
+      }
+    };
+    JSONLinesWriter writer = new JSONLinesWriter(stream).flushingEvery(2);
+    writer.writeAll(expected());
+    assertEquals(2, flushes[0]);
+    assertEquals(
+      expected().subList(0, 4),
+      new JSONParser().linesReader(bytes.toByteArray()).nextBatch(10)
+    );
+    writer.flush();
+    assertEquals(expected(), new JSONParser().linesReader(bytes.toByteArray()).nextBatch(10));
+  }
+}
@@ -0,0 +1,73 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class TestJSONLongArray {
+
+  static final JSONParser parser = new JSONParser().compactingNumbers();
+
+  @Test
+  void testParse() throws JSONParseException {
+    JSONObject obj = (JSONObject) parser.parse("{\"ids\": [1, -2, 9223372036854775807]}");
+    JSONLongArray ids = obj.getLongArray("ids");
+    assertArrayEquals(new long[] { 1, -2, Long.MAX_VALUE }, ids.toLongArray());
+    assertEquals(new JSONInteger(-2), ids.get(1));
+    assertEquals(Long.MAX_VALUE, ids.longStream().max().getAsLong());
+    assertEquals(new JSONLongArray(1, -2, Long.MAX_VALUE), parser.parse(ids.toJSON()));
+  }
+
+  @Test
+  void testFallback() throws JSONParseException {
+    // An integer too large for a double keeps the array generic
+    String[] mixed = { "[1, \"a\", 2]", "[1, 2, null]", "[9223372036854775807, 0.5]" };
+    for (String json : mixed) {
+      JSONElement element = parser.parse(json);
+      assertEquals(JSONArray.class, element.getClass(), json);
+      assertEquals(new JSONParser().parse(json), element, json);
+    }
+    JSONArray nested = (JSONArray) parser.parse("[1, [2]]");
+    assertEquals(new JSONLongArray(2), nested.getLongArray(1));
+    assertEquals(JSONArray.class, parser.parse("[]").getClass());
+    assertEquals(JSONArray.class, new JSONParser().parse("[1, 2]").getClass());
+  }
+
+  @Test
+  void testMutation() {
+    JSONLongArray array = new JSONLongArray();
+    for (int i = 0; i < 20; i++) {
+      array.addLong(i);
+    }
+    array.add(0, new JSONInteger(-1));
+    assertEquals(new JSONInteger(19), array.remove(20));
+    array.set(1, new JSONInteger(100));
+    assertEquals(20, array.size());
+    assertEquals(-1, array.getInt(0));
+    assertEquals(100, array.getLong(1));
+    assertThrows(ClassCastException.class, () -> array.add(new JSONFloat(1.5)));
+    assertThrows(IndexOutOfBoundsException.class, () -> array.getLong(20));
+  }
+
+  @Test
+  void testList() {
+    JSONLongArray array = new JSONLongArray(1, 2, 3);
+    JSONArray boxed = new JSONArray();
+    for (long l : array.toLongArray()) {
+      boxed.add(new JSONInteger(l));
+    }
+    assertEquals(boxed.hashCode(), array.hashCode());
+    assertNotEquals(boxed, array);
+    assertEquals(new JSONLongArray(1, 2, 3), array);
+    assertNotEquals(new JSONLongArray(1, 2), array);
+  }
+
+  @Test
+  void testToJSON() {
+    JSONLongArray array = new JSONLongArray(1, -2, 3);
+    assertEquals("[1,-2,3]", array.toJSON(true));
+    assertEquals("[1, -2, 3]", array.toJSON(false));
+    assertEquals("[\n  1,\n  -2,\n  3\n]", array.toJSONFormatted());
+    assertEquals("[]", new JSONLongArray().toJSON());
+  }
+}
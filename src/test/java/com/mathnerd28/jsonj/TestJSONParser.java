@@ -0,0 +1,674 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+class TestJSONParser {
+
+  static final String SAMPLE =
+    "{\"a\": [1, -2, 3.5, -4e-2, true, false, null], \"b\": {\"c\": \"d\\n\\u00e9\\\"\"}," +
+    " \"\u00fc\u4e00\ud83d\ude00\": \"\u00fc\u4e00\ud83d\ude00\", \"e\": []}";
+
+  // Returns at most one byte per read, to cross every buffer boundary
+  static InputStream trickle(byte[] bytes) {
+    return new ByteArrayInputStream(bytes) {
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        return super.read(b, off, Math.min(len, 1));
+      }
+    };
+  }
+
+  static JSONElement parseBytes(String json) throws JSONParseException {
+    return new JSONParser().parse(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testParseString() throws JSONParseException {
+    JSONObject obj = (JSONObject) new JSONParser().parse(SAMPLE);
+    JSONArray a = obj.getArray("a");
+    assertEquals(1, a.getLong(0));
+    assertEquals(-2, a.getLong(1));
+    assertEquals(3.5, a.getDouble(2));
+    assertEquals(-4e-2, a.getDouble(3));
+    assertTrue(a.getBoolean(4));
+    assertFalse(a.getBoolean(5));
+    assertEquals(JSONElement.NULL, a.get(6));
+    assertEquals("d\n\u00e9\"", obj.getObject("b").getString("c"));
+    assertEquals("\u00fc\u4e00\ud83d\ude00", obj.getString("\u00fc\u4e00\ud83d\ude00"));
+    assertTrue(obj.getArray("e").isEmpty());
+  }
+
+  @Test
+  void testAllInputsAgree() throws IOException, JSONParseException {
+    JSONParser parser = new JSONParser();
+    JSONElement expected = parser.parse(SAMPLE);
+    byte[] bytes = SAMPLE.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+    direct.put((byte) ' ').put(bytes).flip();
+
+    assertEquals(expected, parser.parse(new StringReader(SAMPLE)));
+    assertEquals(expected, parser.parse(bytes));
+    assertEquals(expected, parser.parse(new ByteArrayInputStream(bytes)));
+    assertEquals(expected, parser.parse(trickle(bytes)));
+    assertEquals(expected, parser.parse(ByteBuffer.wrap(bytes)));
+    assertEquals(expected, parser.parse(direct));
+    assertEquals(0, direct.position());
+  }
+
+  @Test
+  void testMappedFile() throws IOException, JSONParseException {
+    File file = File.createTempFile("jsonj", ".json");
+    try {
+      Files.write(file.toPath(), SAMPLE.getBytes(StandardCharsets.UTF_8));
+      JSONParser parser = new JSONParser();
+      JSONElement expected = parser.parse(SAMPLE);
+      assertEquals(expected, parser.parse(file));
+      assertEquals(expected, parser.mappingFiles().parse(file));
+      // Windows much smaller than the file, so tokens straddle mappings
+      try (MappedFile mapped = new MappedFile(file, 7)) {
+        assertEquals(expected, parser.parseRaw(new ByteLexer(mapped)));
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  void testMappedEmptyFile() throws IOException {
+    File file = File.createTempFile("jsonj", ".json");
+    try {
+      assertThrows(JSONParseException.class, () -> new JSONParser().mappingFiles().parse(file));
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  void testCacheSizes() {
+    assertEquals(1, KeyCache.tableSize(1));
+    assertEquals(1024, KeyCache.tableSize(1000));
+    assertEquals(1024, KeyCache.tableSize(1024));
+    assertEquals(1 << 30, KeyCache.tableSize((1 << 30) + 1));
+    assertEquals(1 << 30, KeyCache.tableSize(Integer.MAX_VALUE));
+    assertThrows(IllegalArgumentException.class, () -> KeyCache.tableSize(0));
+  }
+
+  @Test
+  void testDeepNesting() throws IOException, JSONParseException {
+    int depth = 100000;
+    StringBuilder arrays = new StringBuilder();
+    StringBuilder objects = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      arrays.append('[');
+      objects.append("{\"a\": ");
+    }
+    arrays.append("[1, 2.5]");
+    objects.append("[1, 2]");
+    for (int i = 0; i < depth; i++) {
+      arrays.append(']');
+      objects.append('}');
+    }
+
+    JSONParser parser = new JSONParser().allowingAnyDepth().compactingNumbers();
+    JSONElement element = parser.parse(arrays.toString().getBytes(StandardCharsets.UTF_8));
+    for (int i = 0; i < depth; i++) {
+      element = ((JSONArray) element).get(0);
+    }
+    assertEquals("[1,2.5]", ((JSONDoubleArray) element).toJSON(true));
+    element = parser.compactingObjects().parse(objects.toString());
+    for (int i = 0; i < depth; i++) {
+      element = ((JSONCompactObject) element).get("a");
+    }
+    assertEquals(new JSONLongArray(1, 2), element);
+    // Skipped values don't recurse either
+    String wrapped = "{\"x\": 1, \"y\": " + arrays + "}";
+    assertEquals("{\"x\":1}", parser.parse(wrapped, JSONProjection.of("/x")).toJSON(true));
+
+    parser = new JSONParser().limitingDepth(3);
+    String shallow = "[[{}], {\"a\": [1]}]";
+    assertEquals(new JSONParser().parse(shallow), parser.parse(shallow));
+    JSONParseException e = assertThrows(
+      JSONParseException.class,
+      () -> new JSONParser().limitingDepth(3).parse("[[{\"a\": []}]]")
+    );
+    assertEquals("Nesting deeper than 3 levels at line 1, column 9", e.getMessage());
+    JSONPushParser push = parser.pushParser();
+    byte[] bytes = "[[[[".getBytes(StandardCharsets.UTF_8);
+    e = assertThrows(JSONParseException.class, () -> push.feed(bytes));
+    assertEquals("Nesting deeper than 3 levels at line 1, column 4", e.getMessage());
+    assertEquals(new JSONInteger(1), new JSONParser().limitingDepth(0).parse("1"));
+    assertThrows(IllegalArgumentException.class, () -> new JSONParser().limitingDepth(-1));
+
+    // Limited by default, unless a parser opts out
+    String deep = nested("[", "]", 1001);
+    e = assertThrows(JSONParseException.class, () -> new JSONParser().parse(deep));
+    assertEquals("Nesting deeper than 1000 levels at line 1, column 1001", e.getMessage());
+    e = assertThrows(JSONParseException.class, () -> new JSONParser().parse(deep, List.class));
+    assertEquals("Nesting deeper than 1000 levels at line 1, column 1001", e.getMessage());
+    assertNotNull(new JSONParser().parse(nested("[", "]", 1000)));
+    assertNotNull(new JSONParser().allowingAnyDepth().parse(deep));
+  }
+
+  static String nested(String open, String close, int depth) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      builder.append(open);
+    }
+    for (int i = 0; i < depth; i++) {
+      builder.append(close);
+    }
+    return builder.toString();
+  }
+
+  @Test
+  void testDepthLimitEverywhere() throws IOException, JSONParseException {
+    String deep = nested("[", "]", 200000);
+    byte[] bytes = deep.getBytes(StandardCharsets.UTF_8);
+    JSONParser parser = new JSONParser().limitingDepth(100);
+    JSONProjection itself = new JSONProjection() {
+      @Override
+      public JSONProjection member(String key) {
+        return this;
+      }
+
+      @Override
+      public JSONProjection element(int index) {
+        return this;
+      }
+    };
+    Executable[] reads = {
+      () -> parser.parse(deep),
+      () -> parser.parse(bytes),
+      () -> parser.parseTape(deep),
+      () -> parser.parseLazy(bytes),
+      () -> parser.parseParallel(bytes),
+      () -> parser.select(deep, JSONPath.compile("$..zzz")),
+      () -> parser.select(deep, JSONPath.compile("$[0][0]")),
+      () -> parser.parse(deep, itself),
+      () -> parser.parse(deep, JSONProjection.of("/1")),
+      () -> parser.parse(deep, List.class),
+      () -> parser.linesReader(deep).next(),
+      () -> parser.pushParser().feed(bytes),
+      () -> {
+        JSONReader reader = parser.reader(deep);
+        reader.next();
+        reader.readElement();
+      },
+      () -> {
+        JSONReader reader = parser.reader(deep);
+        reader.next();
+        reader.skipValue();
+      },
+      () -> {
+        JSONReader reader = parser.reader(deep);
+        while (reader.next() != JSONReader.Event.END_DOCUMENT) {}
+      },
+    };
+    for (int i = 0; i < reads.length; i++) {
+      JSONParseException e = assertThrows(JSONParseException.class, reads[i], "read " + i);
+      assertEquals("Nesting deeper than 100 levels at line 1, column 101", e.getMessage());
+    }
+
+    // Counted from the root, not from where a projection starts keeping everything
+    String deep150 = nested("[", "]", 150);
+    JSONProjection path = JSONProjection.of("/0/0/0/0/0/0/0/0/0/0");
+    JSONParseException e = assertThrows(
+      JSONParseException.class,
+      () -> parser.parse(deep150, path)
+    );
+    assertEquals("Nesting deeper than 100 levels at line 1, column 101", e.getMessage());
+
+    // Bound classes count each object and list
+    String items = nested("{\"children\": [", "]}", 60);
+    e = assertThrows(JSONParseException.class, () -> parser.parse(items, Item.class));
+    assertEquals("Nesting deeper than 100 levels at line 1, column 701", e.getMessage());
+
+    // Exactly at the limit is fine
+    String deep100 = nested("[", "]", 100);
+    assertEquals(new JSONParser().parse(deep100), parser.parse(deep100));
+    assertEquals(1, parser.parseTape(deep100).size());
+    assertEquals(99, parser.select(deep100, JSONPath.compile("$..*")).size());
+    assertEquals(new JSONParser().parse(deep100), parser.parse(deep100, itself));
+    assertNotNull(parser.parse(deep100, List.class));
+    assertNotNull(parser.parse(nested("{\"children\": [", "]}", 50), Item.class));
+  }
+
+  @Test
+  void testNumbersFallback() throws JSONParseException {
+    JSONParser parser = new JSONParser().compactingNumbers();
+    JSONArray array = (JSONArray) parser.parse(
+      "[[1, 2], [1, 2.5], [1.5, \"a\"], [9007199254740993, 0.5], [0.5, 9007199254740993], [[1]]]"
+    );
+    assertEquals(new JSONLongArray(1, 2), array.get(0));
+    assertEquals("[1,2.5]", array.getDoubleArray(1).toJSON(true));
+    assertEquals("[1.5,\"a\"]", array.get(2).toJSON(true));
+    assertEquals("[9007199254740993,0.5]", array.get(3).toJSON(true));
+    assertEquals("[0.5,9007199254740993]", array.get(4).toJSON(true));
+    assertEquals(new JSONLongArray(1), ((JSONArray) array.get(5)).get(0));
+    assertTrue(array.get(3) instanceof JSONArray);
+    assertTrue(((JSONArray) array.get(3)).get(0) instanceof JSONInteger);
+  }
+
+  @Test
+  void testLongStrings() throws IOException, JSONParseException {
+    // Escapes, control characters and non-ASCII at every offset, and runs longer than the buffers
+    StringBuilder expected = new StringBuilder();
+    StringBuilder json = new StringBuilder("\"");
+    for (int i = 0; i < 10000; i++) {
+      char c = (char) ('a' + i % 26);
+      if (i % 37 == 0) {
+        expected.append('"');
+        json.append("\\\"");
+      } else if (i % 41 == 0) {
+        expected.append('\u00e9');
+        json.append('\u00e9');
+      } else if (i % 43 == 0) {
+        expected.append('\n');
+        json.append("\\n");
+      } else {
+        expected.append(c);
+        json.append(c);
+      }
+    }
+    String text = json.append('"').toString();
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    JSONParser parser = new JSONParser();
+    JSONString string = new JSONString(expected.toString());
+    assertEquals(string, parser.parse(text));
+    assertEquals(string, parser.parse(new StringReader(text)));
+    assertEquals(string, parser.parse(bytes));
+    assertEquals(string, parser.parse(new ByteArrayInputStream(bytes)));
+    assertEquals(string, parser.parse(trickle(bytes)));
+
+    String bad = text.substring(0, 5000) + "\t" + text.substring(5000);
+    JSONParseException e = assertThrows(JSONParseException.class, () -> parser.parse(bad));
+    assertEquals("Unescaped control character at line 1, column 5001", e.getMessage());
+    e = assertThrows(
+      JSONParseException.class,
+      () -> parser.parse(bad.getBytes(StandardCharsets.UTF_8))
+    );
+    assertTrue(e.getMessage().startsWith("Unescaped control character at line 1, column "));
+  }
+
+  @Test
+  void testMalformedUTF8IsReplaced() throws JSONParseException {
+    byte[] bytes = { '"', 'a', (byte) 0xC3, 'b', (byte) 0xFF, (byte) 0xE4, (byte) 0xB8, '"' };
+    assertEquals(new JSONString("a\uFFFDb\uFFFD\uFFFD"), new JSONParser().parse(bytes));
+  }
+
+  @Test
+  void testOverlongUTF8IsReplaced() throws JSONParseException {
+    byte[] bytes = { '"', (byte) 0xC0, (byte) 0xAF, '"' };
+    assertEquals(new JSONString("\uFFFD"), new JSONParser().parse(bytes));
+  }
+
+  @Test
+  void testNumberAtEndOfInput() throws IOException, JSONParseException {
+    assertEquals(new JSONInteger(-123), parseBytes("-123"));
+    assertEquals(new JSONInteger(-123), new JSONParser().parse(trickle("-123".getBytes())));
+    assertEquals(new JSONFloat(1.5e10), new JSONParser().parse("1.5e10"));
+  }
+
+  @Test
+  void testLargeIntegerBecomesFloat() throws JSONParseException {
+    assertEquals(new JSONFloat(1e19), parseBytes("10000000000000000000"));
+  }
+
+  @Test
+  void testLongBounds() throws JSONParseException {
+    assertEquals(new JSONInteger(Long.MAX_VALUE), parseBytes("9223372036854775807"));
+    assertEquals(new JSONInteger(Long.MIN_VALUE), parseBytes("-9223372036854775808"));
+    assertEquals(new JSONFloat(9223372036854775808.0), parseBytes("9223372036854775808"));
+    assertEquals(new JSONFloat(-9223372036854775809.0), parseBytes("-9223372036854775809"));
+  }
+
+  @Test
+  void testDoublesRoundCorrectly() throws JSONParseException {
+    String[] doubles = {
+      "0.1",
+      "-0.0",
+      "0.30000000000000004",
+      "1.7976931348623157e308",
+      "2.2250738585072011e-308",
+      "4.9e-324",
+      "9007199254740993.0",
+      "123456789012345678901234567890e-10",
+      "0.000000000000000000000000000001",
+      "1E+05",
+      "1e05",
+    };
+    for (String d : doubles) {
+      double expected = Double.parseDouble(d);
+      assertEquals(new JSONFloat(expected), parseBytes(d), d);
+      assertEquals(new JSONFloat(expected), new JSONParser().parse(d), d);
+    }
+  }
+
+  @Test
+  void testInvalidNumbers() {
+    for (String s : new String[] { "01", "-", "1.", ".5", "1e", "--1", "1e400" }) {
+      assertThrows(JSONParseException.class, () -> parseBytes(s), s);
+      assertThrows(JSONParseException.class, () -> new JSONParser().parse(s), s);
+    }
+  }
+
+  @Test
+  void testInvalidEscape() {
+    assertThrows(JSONParseException.class, () -> parseBytes("\"\\x\""));
+    assertThrows(JSONParseException.class, () -> new JSONParser().parse("\"\\u12G4\""));
+  }
+
+  @Test
+  void testUnescapedControlCharacter() {
+    assertThrows(JSONParseException.class, () -> parseBytes("\"a\nb\""));
+    assertThrows(JSONParseException.class, () -> new JSONParser().parse("\"a\tb\""));
+  }
+
+  @Test
+  void testUnexpectedTermination() {
+    assertThrows(JSONParseException.class, () -> parseBytes("{\"a\": [1, 2"));
+    assertThrows(JSONParseException.class, () -> new JSONParser().parse("\"abc"));
+  }
+
+  @Test
+  void testErrorPosition() {
+    JSONParseException e = assertThrows(
+      JSONParseException.class,
+      () -> parseBytes("{\n  \"a\": 1,\n  \"b\" 2\n}")
+    );
+    assertEquals("Expected COLON instead of INTEGER at line 3, column 7", e.getMessage());
+  }
+
+  @Test
+  void testInterningKeys() throws JSONParseException {
+    String json = "[{\"id\": 1, \"name\": \"id\"}, {\"id\": 2, \"name\": \"x\"}]";
+    JSONArray copied = (JSONArray) new JSONParser().parse(json);
+    JSONArray interned = (JSONArray) new JSONParser().interningKeys().parse(json.getBytes());
+    assertEquals(copied, interned);
+    assertNotSame(keyOf(copied, 0), keyOf(copied, 1));
+    assertSame(keyOf(interned, 0), keyOf(interned, 1));
+  }
+
+  @Test
+  void testInterningKeysAcrossCalls() throws JSONParseException {
+    JSONParser parser = new JSONParser().interningKeys(1);
+    JSONObject first = (JSONObject) parser.parse("{\"alpha\": 1}");
+    JSONObject second = (JSONObject) parser.parse("{\"alpha\": 2, \"beta\": 3}");
+    assertSame(first.keySet().iterator().next(), second.keySet().iterator().next());
+    assertEquals(3, second.getLong("beta"));
+  }
+
+  static String keyOf(JSONArray array, int index) {
+    return array.getObject(index).keySet().iterator().next();
+  }
+
+  @Test
+  void testDuplicateKeys() throws JSONParseException {
+    String json = "{\"a\": 1, \"a\": 2}";
+    assertThrows(JSONParseException.class, () -> new JSONParser().parse(json));
+    JSONObject obj = (JSONObject) new JSONParser().overwritingDuplicateKeys().parse(json);
+    assertEquals(2, obj.getLong("a"));
+  }
+
+  enum Color {
+    RED,
+    GREEN,
+  }
+
+  static class Base {
+
+    long id;
+  }
+
+  static class Item extends Base {
+
+    private int count;
+    short small;
+    double ratio;
+    float ratio32;
+    boolean active;
+    Boolean maybe = true;
+    String name;
+    Color color;
+    int[] counts;
+    List<Item> children;
+    Set<String> tags;
+    Map<String, Double> weights;
+    JSONElement extra;
+    JSONObject object;
+    transient String skipped = "kept";
+  }
+
+  @Test
+  void testBinding() throws IOException, JSONParseException {
+    String json =
+      "{\"id\": 7, \"count\": -3, \"small\": 300, \"ratio\": 2, \"ratio32\": 0.5," +
+      " \"active\": true, \"maybe\": null, \"name\": \"n\\u00e9\", \"color\": \"GREEN\"," +
+      " \"counts\": [1, 2], \"children\": [{\"id\": 8, \"children\": []}, null]," +
+      " \"tags\": [\"a\", \"b\", \"a\"], \"weights\": {\"x\": 1.5}, \"extra\": [null]," +
+      " \"object\": {\"k\": {}}, \"skipped\": 1, \"unknown\": {\"deep\": [1, {}]}}";
+    JSONParser parser = new JSONParser();
+    Item item = parser.parse(json, Item.class);
+    assertEquals(7, item.id);
+    assertEquals(-3, item.count);
+    assertEquals(300, item.small);
+    assertEquals(2.0, item.ratio);
+    assertEquals(0.5f, item.ratio32);
+    assertTrue(item.active);
+    assertNull(item.maybe);
+    assertEquals("n\u00e9", item.name);
+    assertEquals(Color.GREEN, item.color);
+    assertArrayEquals(new int[] { 1, 2 }, item.counts);
+    assertEquals(8, item.children.get(0).id);
+    assertTrue(item.children.get(0).children.isEmpty());
+    assertNull(item.children.get(1));
+    assertEquals(Arrays.asList("a", "b"), Arrays.asList(item.tags.toArray()));
+    assertEquals(Double.valueOf(1.5), item.weights.get("x"));
+    assertEquals(parser.parse("[null]"), item.extra);
+    assertEquals(parser.parse("{\"k\": {}}"), item.object);
+    assertEquals("kept", item.skipped);
+
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    assertEquals(-3, parser.parse(bytes, Item.class).count);
+    assertEquals(-3, parser.parse(trickle(bytes), Item.class).count);
+    assertEquals(-3, parser.parse(new StringReader(json), Item.class).count);
+    assertEquals(-3, parser.parse(ByteBuffer.wrap(bytes), Item.class).count);
+  }
+
+  @Test
+  void testBindingTopLevel() throws JSONParseException {
+    JSONParser parser = new JSONParser();
+    assertEquals(Long.valueOf(5), parser.parse("5", long.class));
+    assertEquals("s", parser.parse("\"s\"", String.class));
+    assertArrayEquals(new String[] { "a", null }, parser.parse("[\"a\", null]", String[].class));
+    assertArrayEquals(
+      new Object[] { new JSONInteger(1), new JSONString("x") },
+      parser.parse("[1, \"x\"]", Object[].class)
+    );
+    assertNull(parser.parse("null", Item.class));
+  }
+
+  @Test
+  void testBindingArrays() throws JSONParseException {
+    JSONParser parser = new JSONParser();
+    StringBuilder json = new StringBuilder("[0");
+    long[] longs = new long[100];
+    for (int i = 1; i < longs.length; i++) {
+      longs[i] = i * 3L;
+      json.append(", ").append(longs[i]);
+    }
+    json.append(']');
+    assertArrayEquals(longs, parser.parse(json.toString(), long[].class));
+    assertArrayEquals(new int[0], parser.parse("[]", int[].class));
+    assertEquals("[-1, 2]", Arrays.toString(parser.parse("[-1, 2]", short[].class)));
+    assertArrayEquals(new byte[] { 127 }, parser.parse("[127]", byte[].class));
+    assertArrayEquals(new double[] { 1, 0.5 }, parser.parse("[1, 0.5]", double[].class));
+    assertEquals("[0.25]", Arrays.toString(parser.parse("[0.25]", float[].class)));
+    assertEquals("[true, false]", Arrays.toString(parser.parse("[true, false]", boolean[].class)));
+    int[][] nested = parser.parse("[[1], null, []]", int[][].class);
+    assertArrayEquals(new int[] { 1 }, nested[0]);
+    assertNull(nested[1]);
+    assertEquals(0, nested[2].length);
+    assertEquals(String[].class, parser.parse("[\"a\"]", String[].class).getClass());
+    assertBindError("Null element in array of int at line 1, column 5", "[1, null]", int[].class);
+    assertBindError("Integer 128 out of range at line 1, column 2", "[128]", byte[].class);
+  }
+
+  @Test
+  void testBindingErrors() {
+    JSONParser parser = new JSONParser();
+    assertBindError(
+      "Integer 40000 out of range at line 1, column 11",
+      "{\"small\": 40000}",
+      Item.class
+    );
+    assertBindError(
+      "Expected INTEGER instead of NULL at line 1, column 11",
+      "{\"count\": null}",
+      Item.class
+    );
+    assertBindError(
+      "Expected INTEGER instead of FLOAT at line 1, column 8",
+      "{\"id\": 1.5}",
+      Item.class
+    );
+    assertBindError(
+      "Unknown constant 'BLUE' of " + Color.class.getName() + " at line 1, column 11",
+      "{\"color\": \"BLUE\"}",
+      Item.class
+    );
+    assertBindError(
+      "Duplicate key 'id' at line 1, column 11",
+      "{\"id\": 1, \"id\": 2}",
+      Item.class
+    );
+    assertBindError(
+      "Expected COLON instead of INTEGER at line 1, column 18",
+      "{\"unknown\": {\"a\" 1}}",
+      Item.class
+    );
+    assertThrows(IllegalArgumentException.class, () -> parser.parse("{}", Runnable.class));
+    assertThrows(IllegalArgumentException.class, () -> parser.parse("{}", Number.class));
+  }
+
+  static void assertBindError(String message, String json, Class<?> type) {
+    JSONParseException e = assertThrows(
+      JSONParseException.class,
+      () -> new JSONParser().parse(json, type)
+    );
+    assertEquals(message, e.getMessage());
+  }
+
+  // Elements with quotes, brackets, commas and newlines inside strings
+  static String bigArray(int n) {
+    StringBuilder json = new StringBuilder("[\n");
+    for (int i = 0; i < n; i++) {
+      json.append(i == 0 ? " " : ",\n ");
+      json.append("{\"id\": ").append(i).append(", \"s\": \"a,]\\\"[{\\n\", \"l\": [").append(-i);
+      json.append(", 1.5, [], {}]}");
+    }
+    return json.append("\n]").toString();
+  }
+
+  @Test
+  void testParseParallel() throws IOException, JSONParseException {
+    JSONParser parser = new JSONParser();
+    for (String json : new String[] { bigArray(5000), bigArray(3), "[]", " [ 1 ] x", "[[]]" }) {
+      JSONElement expected = parser.parse(json);
+      byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+      assertEquals(expected, parser.parseParallel(bytes));
+      assertEquals(expected, parser.parseParallel(new ByteArrayInputStream(bytes)));
+      // Elements straddle both batches and chunks
+      ParallelParser small = new ParallelParser(parser, ForkJoinPool.commonPool(), false, 7, 16);
+      assertEquals(expected, small.parse(new ByteArrayInputStream(bytes)));
+    }
+  }
+
+  @Test
+  void testParseParallelErrors() {
+    JSONParser parser = new JSONParser();
+    String[] invalid = { "[1 2]", "[1,]", "[1, 2", "[", "", "  ", "[{]}", "[1, {\"a\" 1}]", "[\"a]" };
+    for (String json : invalid) {
+      byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+      JSONParseException e = assertThrows(JSONParseException.class, () -> parser.parse(json), json);
+      for (int chunk : new int[] { 1, 3, 64 }) {
+        ParallelParser small = new ParallelParser(parser, ForkJoinPool.commonPool(), false, chunk, 1);
+        assertThrows(JSONParseException.class, () -> small.parse(trickle(bytes)), json);
+      }
+      assertEquals(
+        e.getMessage(),
+        assertThrows(JSONParseException.class, () -> parser.parseParallel(bytes)).getMessage(),
+        json
+      );
+    }
+    JSONParseException e = assertThrows(
+      JSONParseException.class,
+      () -> parser.parseParallel("\n {}".getBytes(StandardCharsets.UTF_8))
+    );
+    assertEquals("Expected LEFT_BRACKET instead of LEFT_BRACE at line 2, column 2", e.getMessage());
+  }
+
+  @Test
+  void testParseParallelElementLimit() throws IOException, JSONParseException {
+    JSONParser parser = new JSONParser();
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    String fits = "[1,\n \"" + nested("x", "", 10) + "\", 2]";
+    JSONElement expected = parser.parse(fits);
+    byte[] bytes = fits.getBytes(StandardCharsets.UTF_8);
+    assertEquals(expected, new ParallelParser(parser, pool, false, 4, 16, 1).parse(trickle(bytes)));
+    String big = "[1,\n \"" + nested("x", "", 20) + "\", 2]";
+    byte[] bigBytes = big.getBytes(StandardCharsets.UTF_8);
+    ParallelParser small = new ParallelParser(parser, pool, false, 4, 16, 1);
+    JSONParseException e = assertThrows(
+      JSONParseException.class,
+      () -> small.parse(new ByteArrayInputStream(bigBytes))
+    );
+    assertEquals("Element larger than 16 bytes at line 1, column 4", e.getMessage());
+  }
+
+  @Test
+  void testParseLinesParallel() throws IOException, JSONParseException {
+    StringBuilder ndjson = new StringBuilder();
+    JSONArray expected = new JSONArray();
+    for (int i = 0; i < 3000; i++) {
+      String line = "{\"id\": " + i + ", \"s\": \"[\\\"\"}";
+      ndjson.append(line).append(i % 7 == 0 ? "\r\n\n" : "\n");
+      expected.add(new JSONParser().parse(line));
+    }
+    ndjson.append("[1]");
+    expected.add(new JSONParser().parse("[1]"));
+    byte[] bytes = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+
+    ForkJoinPool pool = new ForkJoinPool(3);
+    JSONParser parser = new JSONParser().usingPool(pool);
+    assertEquals(expected, parser.parseLinesParallel(bytes));
+    pool.shutdown();
+    parser.usingPool(null);
+    assertEquals(expected, parser.parseLinesParallel(new ByteArrayInputStream(bytes)));
+    ParallelParser small = new ParallelParser(parser, ForkJoinPool.commonPool(), true, 5, 32);
+    assertEquals(expected, small.parse(new ByteArrayInputStream(bytes)));
+    assertTrue(parser.parseLinesParallel(new byte[0]).isEmpty());
+
+    JSONParseException e = assertThrows(
+      JSONParseException.class,
+      () -> parser.parseLinesParallel("1\n\n2 3\n".getBytes(StandardCharsets.UTF_8))
+    );
+    assertEquals("Unexpected INTEGER token at line 3, column 3", e.getMessage());
+  }
+}
@@ -0,0 +1,80 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class TestJSONParserFactory {
+
+  @Test
+  void testOneParserPerThread() throws InterruptedException {
+    JSONParserFactory factory = new JSONParserFactory();
+    JSONParser parser = factory.get();
+    assertSame(parser, factory.get());
+    assertNotSame(parser, factory.newParser());
+
+    AtomicReference<JSONParser> other = new AtomicReference<>();
+    Thread thread = new Thread(() -> other.set(factory.get()));
+    thread.start();
+    thread.join();
+    assertNotNull(other.get());
+    assertNotSame(parser, other.get());
+  }
+
+  @Test
+  void testSettingsAreFixed() throws JSONParseException {
+    JSONParser settings = new JSONParser().overwritingDuplicateKeys();
+    JSONParserFactory factory = new JSONParserFactory(settings);
+    settings.exceptingDuplicateKeys();
+
+    JSONParser parser = factory.get();
+    assertEquals(2, ((JSONObject) parser.parse("{\"a\": 1, \"a\": 2}")).getLong("a"));
+    assertThrows(UnsupportedOperationException.class, parser::exceptingDuplicateKeys);
+    assertThrows(UnsupportedOperationException.class, () -> parser.interningKeys(16));
+  }
+
+  @Test
+  void testReuseAcrossInputs() throws IOException, JSONParseException {
+    JSONParser parser = new JSONParserFactory().get();
+    String sample = TestJSONParser.SAMPLE;
+    byte[] bytes = sample.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+    direct.put(bytes).flip();
+    JSONElement expected = new JSONParser().parse(sample);
+
+    for (int i = 0; i < 2; i++) {
+      assertEquals(expected, parser.parse(sample));
+      assertEquals(expected, parser.parse(new StringReader(sample)));
+      assertEquals(expected, parser.parse(bytes));
+      assertEquals(expected, parser.parse(TestJSONParser.trickle(bytes)));
+      assertEquals(expected, parser.parse(new ByteArrayInputStream(bytes)));
+      assertEquals(expected, parser.parse(direct));
+      assertEquals(new JSONInteger(1), parser.parse("1"));
+    }
+    assertEquals(new JSONString("x"), parser.parse("\"x\"", JSONString.class));
+  }
+
+  @Test
+  void testPositionsStartOverAfterError() throws JSONParseException {
+    JSONParser parser = new JSONParserFactory().get();
+    assertThrows(JSONParseException.class, () -> parser.parse("[\n\n1,"));
+    JSONParseException e = assertThrows(JSONParseException.class, () -> parser.parse("[1 2]"));
+    assertEquals("Expected RIGHT_BRACKET instead of INTEGER at line 1, column 4", e.getMessage());
+    assertEquals(new JSONParser().parse("[1, 2]"), parser.parse("[1, 2]"));
+  }
+
+  @Test
+  void testReset() throws JSONParseException {
+    JSONParser parser = new JSONParserFactory(new JSONParser().interningKeys()).get();
+    JSONObject first = (JSONObject) parser.parse("{\"key\": 1}");
+    JSONObject second = (JSONObject) parser.reset().parse("{\"key\": 2}");
+    assertEquals(2, second.getLong("key"));
+    assertNotSame(first.keySet().iterator().next(), second.keySet().iterator().next());
+  }
+}
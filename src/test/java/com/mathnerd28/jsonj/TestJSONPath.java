@@ -0,0 +1,110 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TestJSONPath {
+
+  static final String JSON =
+    "{\"store\": {\"book\": [" +
+    "{\"title\": \"A\", \"price\": 8, \"tags\": [\"x\"]}," +
+    "{\"title\": \"B\", \"price\": 12.5, \"id\": {\"id\": 7}}]," +
+    " \"a/b\": 1, \"m~n\": 2, \"0\": \"zero\", \"*\": \"star\"}, \"id\": 3}";
+
+  // Runs the path over the tree and over the text, and checks they agree
+  static List<String> select(String path) throws Exception {
+    JSONParser parser = new JSONParser();
+    JSONPath compiled = JSONPath.compile(path);
+    List<JSONElement> fromTree = compiled.select(parser.parse(JSON));
+    byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+    assertEquals(fromTree, parser.select(JSON, compiled));
+    assertEquals(fromTree, parser.select(bytes, compiled));
+    assertEquals(fromTree, parser.select(new ByteArrayInputStream(bytes), compiled));
+    assertEquals(
+      fromTree.isEmpty() ? null : fromTree.get(0),
+      parser.selectFirst(JSON, compiled)
+    );
+    List<String> json = new ArrayList<>();
+    for (JSONElement element : fromTree) {
+      json.add(element.toJSON(true));
+    }
+    return json;
+  }
+
+  @Test
+  void testPointer() throws Exception {
+    assertEquals(Arrays.asList(new JSONParser().parse(JSON).toJSON(true)), select(""));
+    assertEquals(Arrays.asList("\"B\""), select("/store/book/1/title"));
+    assertEquals(Arrays.asList("1"), select("/store/a~1b"));
+    assertEquals(Arrays.asList("2"), select("/store/m~0n"));
+    assertEquals(Arrays.asList("\"zero\""), select("/store/0"));
+    assertEquals(Arrays.asList("8", "12.5"), select("/store/book/*/price"));
+    assertEquals(Arrays.asList("\"x\""), select("/store/book/0/tags/0"));
+    assertEquals(Arrays.asList(), select("/store/book/2"));
+    assertEquals(Arrays.asList(), select("/store/book/01"));
+    assertEquals(Arrays.asList(), select("/missing/x"));
+  }
+
+  @Test
+  void testJSONPath() throws Exception {
+    assertEquals(Arrays.asList("\"A\""), select("$.store.book[0].title"));
+    assertEquals(Arrays.asList("\"A\"", "\"B\""), select("$.store.book[*].title"));
+    assertEquals(Arrays.asList("1"), select("$.store['a/b']"));
+    assertEquals(Arrays.asList("\"star\""), select("$.store[\"*\"]"));
+    assertEquals(Arrays.asList("3"), select("$['id']"));
+    assertEquals(Arrays.asList(), select("$.store[0]"));
+    assertEquals(Arrays.asList("{\"id\":7}", "7", "3"), select("$..id"));
+    assertEquals(Arrays.asList("\"x\""), select("$..tags[0]"));
+    assertEquals(Arrays.asList("\"x\""), select("$..[0].tags.*"));
+    assertEquals(Arrays.asList("8", "12.5"), select("$.store..price"));
+    assertEquals(17, select("$..*").size());
+  }
+
+  @Test
+  void testOtherTypes() throws Exception {
+    JSONParser parser = new JSONParser().compactingObjects().compactingNumbers();
+    JSONElement root = parser.parse("{\"a\": [1, 2, 3], \"b\": {\"c\": [0.5]}}");
+    assertEquals(new JSONInteger(2), JSONPath.compile("/a/1").selectFirst(root));
+    assertEquals(new JSONFloat(0.5), JSONPath.compile("$.b.c[0]").selectFirst(root));
+    assertNull(JSONPath.compile("$.b.d").selectFirst(root));
+
+    // Matches are built with the parser's settings
+    JSONPath b = JSONPath.compile("$.b");
+    JSONElement match = parser.selectFirst("{\"a\": [1, 2, 3], \"b\": {\"c\": [0.5]}}", b);
+    assertTrue(match instanceof JSONCompactObject);
+    assertTrue(((JSONCompactObject) match).get("c") instanceof JSONDoubleArray);
+
+    JSONElement frozen = JSONImmutableObject.copyOf((JSONObject) new JSONParser().parse(JSON));
+    List<JSONElement> ids = JSONPath.compile("$..id").select(frozen);
+    assertEquals(3, ids.size());
+    assertTrue(ids.get(0) instanceof JSONImmutableObject);
+    assertEquals("{\"id\":7}", ids.get(0).toJSON(true));
+    assertEquals(new JSONInteger(3), ids.get(2));
+  }
+
+  @Test
+  void testSkipping() throws Exception {
+    JSONParser parser = new JSONParser();
+    JSONPath path = JSONPath.compile("/b");
+    // Non-matching values are still checked
+    assertThrows(JSONParseException.class, () -> parser.select("{\"a\": [1 2], \"b\": 1}", path));
+    assertThrows(JSONParseException.class, () -> parser.select("{\"a\": {1: 2}, \"b\": 1}", path));
+    assertThrows(JSONParseException.class, () -> parser.select("{\"b\": 1, \"a\": }", path));
+    // Unless reading stopped at the first match
+    assertEquals(new JSONInteger(1), parser.selectFirst("{\"b\": 1, \"a\": }", path));
+  }
+
+  @Test
+  void testInvalid() {
+    for (String path : new String[] { "a", "$.", "$a", "$[", "$[-1]", "$[1:2]", "$['a]", "/~2" }) {
+      assertThrows(IllegalArgumentException.class, () -> JSONPath.compile(path), path);
+    }
+    assertEquals("$.a[*]", JSONPath.compile("$.a[*]").toString());
+  }
+}
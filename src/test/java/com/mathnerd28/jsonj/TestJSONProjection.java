@@ -0,0 +1,88 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class TestJSONProjection {
+
+  static final String JSON =
+    "{\"id\": 1, \"user\": {\"name\": \"a\", \"email\": \"a@b\", \"tags\": [1, 2]}," +
+    " \"items\": [{\"id\": 10, \"price\": 2.5}, {\"id\": 11, \"price\": 3}, 7]," +
+    " \"extra\": {\"deep\": [[[\"x\"]]]}, \"n\": null}";
+
+  static String project(JSONProjection projection) throws Exception {
+    JSONParser parser = new JSONParser();
+    JSONElement result = parser.parse(JSON, projection);
+    byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+    assertEquals(result, parser.parse(bytes, projection));
+    assertEquals(result, parser.parse(new ByteArrayInputStream(bytes), projection));
+    assertEquals(result, parser.parse(new StringReader(JSON), projection));
+    return result.toJSON(true);
+  }
+
+  @Test
+  void testPaths() throws Exception {
+    assertEquals(
+      "{\"id\":1,\"user\":{\"name\":\"a\"}}",
+      project(JSONProjection.of("/id", "$.user.name"))
+    );
+    assertEquals(
+      "{\"items\":[{\"id\":10},{\"id\":11}]}",
+      project(JSONProjection.of("$.items[*].id"))
+    );
+    assertEquals(
+      "{\"items\":[{\"id\":10,\"price\":2.5},{\"id\":11}]}",
+      project(JSONProjection.of("/items/*/id", "/items/0"))
+    );
+    assertEquals("{\"user\":{\"tags\":[2]}}", project(JSONProjection.of("/user/tags/1")));
+    assertEquals("{\"user\":{}}", project(JSONProjection.of("/user/missing")));
+    // A prefix keeps everything below it
+    assertEquals(
+      "{\"user\":{\"name\":\"a\",\"email\":\"a@b\",\"tags\":[1,2]}}",
+      project(JSONProjection.of("/user/name", "/user"))
+    );
+    assertEquals(new JSONParser().parse(JSON).toJSON(true), project(JSONProjection.of("")));
+    assertEquals("{\"n\":null}", project(JSONProjection.of("/n", "/id/x")));
+  }
+
+  @Test
+  void testPredicate() throws Exception {
+    Set<String> wanted = new HashSet<>(Arrays.asList("id", "extra"));
+    assertEquals(
+      "{\"id\":1,\"extra\":{\"deep\":[[[\"x\"]]]}}",
+      project(JSONProjection.members(wanted::contains))
+    );
+    JSONProjection all = JSONProjection.members(key -> true);
+    assertEquals("[]", new JSONParser().parse("[1, 2]", all).toJSON());
+  }
+
+  @Test
+  void testSettings() throws Exception {
+    JSONParser parser = new JSONParser().compactingObjects().compactingNumbers();
+    JSONElement result = parser.parse(JSON, JSONProjection.of("/user/name", "/user/tags"));
+    assertTrue(result instanceof JSONCompactObject);
+    JSONCompactObject user = ((JSONCompactObject) result).getObject("user");
+    assertTrue(user.get("tags") instanceof JSONLongArray);
+  }
+
+  @Test
+  void testErrors() {
+    JSONParser parser = new JSONParser();
+    JSONProjection id = JSONProjection.of("/id");
+    // Skipped values are still checked
+    assertThrows(JSONParseException.class, () -> parser.parse("{\"id\": 1, \"a\": [1 2]}", id));
+    assertThrows(JSONParseException.class, () -> parser.parse("{\"id\": 1, \"a\": tru}", id));
+    assertThrows(JSONParseException.class, () -> parser.parse("{\"id\": 1, \"id\": 2}", id));
+    assertDoesNotThrow(() -> parser.parse("{\"id\": 1, \"a\": 1, \"a\": 2}", id));
+
+    assertThrows(IllegalArgumentException.class, () -> JSONProjection.of("$..id"));
+    assertThrows(IllegalArgumentException.class, () -> JSONProjection.of());
+  }
+}
@@ -0,0 +1,130 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TestJSONPushParser {
+
+  // Feeds the bytes in pieces of the given size, collecting documents as they complete
+  static List<JSONElement> feed(JSONParser parser, byte[] bytes, int piece)
+    throws JSONParseException {
+    JSONPushParser push = parser.pushParser();
+    List<JSONElement> documents = new ArrayList<>();
+    for (int i = 0; i < bytes.length; i += piece) {
+      int n = Math.min(piece, bytes.length - i);
+      push.feed(ByteBuffer.wrap(bytes, i, n));
+      for (JSONElement document; (document = push.poll()) != null;) {
+        documents.add(document);
+      }
+    }
+    push.end();
+    for (JSONElement document; (document = push.poll()) != null;) {
+      documents.add(document);
+    }
+    return documents;
+  }
+
+  @Test
+  void testPieces() throws JSONParseException {
+    JSONParser parser = new JSONParser();
+    JSONElement expected = parser.parse(TestJSONParser.SAMPLE);
+    byte[] bytes = TestJSONParser.SAMPLE.getBytes(StandardCharsets.UTF_8);
+    for (int piece : new int[] { 1, 2, 3, 7, 64, bytes.length }) {
+      List<JSONElement> documents = feed(parser, bytes, piece);
+      assertEquals(1, documents.size(), "piece " + piece);
+      assertEquals(expected, documents.get(0), "piece " + piece);
+    }
+  }
+
+  @Test
+  void testDocuments() throws JSONParseException {
+    String json = "{\"a\": \"\\u00e9\\\"\"} [1, 2.5, true]\n\"s\"12 null -3.5e2[]{}";
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    JSONParser parser = new JSONParser();
+    for (int piece = 1; piece <= bytes.length; piece++) {
+      List<JSONElement> documents = feed(parser, bytes, piece);
+      assertEquals(8, documents.size());
+      assertEquals(new JSONString("\u00e9\""), ((JSONObject) documents.get(0)).get("a"));
+      assertEquals(new JSONString("s"), documents.get(2));
+      assertEquals(new JSONInteger(12), documents.get(3));
+      assertEquals(JSONElement.NULL, documents.get(4));
+      assertEquals(new JSONFloat(-350), documents.get(5));
+    }
+  }
+
+  @Test
+  void testReadyAsSoonAsComplete() throws JSONParseException {
+    JSONPushParser push = new JSONParser().pushParser();
+    assertTrue(push.isIdle());
+    push.feed("{\"a\": [1, {".getBytes(StandardCharsets.UTF_8));
+    assertNull(push.poll());
+    assertFalse(push.isIdle());
+    push.feed("}]}  4".getBytes(StandardCharsets.UTF_8));
+    assertEquals("{\"a\":[1,{}]}", push.poll().toJSON(true));
+    // A number may go on in the next piece
+    assertNull(push.poll());
+    push.feed("2 ".getBytes(StandardCharsets.UTF_8));
+    assertEquals(new JSONInteger(42), push.poll());
+    assertTrue(push.isIdle());
+    push.end();
+    assertThrows(IllegalStateException.class, () -> push.feed(new byte[1]));
+  }
+
+  @Test
+  void testSettings() throws JSONParseException {
+    JSONParser parser = new JSONParser()
+      .compactingObjects()
+      .compactingNumbers()
+      .interningKeys()
+      .overwritingDuplicateKeys();
+    String json = "[{\"k\": [1, 2], \"k\": [0.5, 1]}, {\"k\": []}]";
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    JSONArray array = (JSONArray) feed(parser, bytes, 3).get(0);
+    JSONCompactObject first = array.getCompactObject(0);
+    assertEquals(1, first.size());
+    assertEquals("[0.5,1]", first.getDoubleArray("k").toJSON(true));
+    JSONCompactObject second = array.getCompactObject(1);
+    assertSame(first.keySet().iterator().next(), second.keySet().iterator().next());
+  }
+
+  @Test
+  void testErrors() throws JSONParseException {
+    JSONParser parser = new JSONParser();
+    String[][] cases = {
+      { "[1, 2", "Unexpected termination at line 1, column 5" },
+      { "{\"a\" 1}", "Expected COLON instead of INTEGER at line 1, column 6" },
+      { "[1}", "Expected RIGHT_BRACKET instead of RIGHT_BRACE at line 1, column 3" },
+      { "{\"a\": 1, \"a\": 2}", "Duplicate key 'a' at line 1, column 10" },
+      { "[tru]", "Expected keyword 'true' at line 1, column 5" },
+      { "\n  \"abc", "Unexpected termination at line 2, column 6" },
+      { "]", "Unexpected RIGHT_BRACKET token at line 1, column 1" },
+    };
+    for (String[] c : cases) {
+      byte[] bytes = c[0].getBytes(StandardCharsets.UTF_8);
+      for (int piece : new int[] { 1, bytes.length }) {
+        JSONParseException e = assertThrows(
+          JSONParseException.class,
+          () -> feed(parser, bytes, piece),
+          c[0]
+        );
+        assertEquals(c[1], e.getMessage(), c[0]);
+        // The same as a blocking parse
+        if (!c[0].equals("]")) {
+          assertEquals(
+            c[1],
+            assertThrows(JSONParseException.class, () -> parser.parse(bytes)).getMessage()
+          );
+        }
+      }
+    }
+
+    JSONPushParser push = parser.pushParser();
+    assertThrows(JSONParseException.class, () -> push.feed(new byte[] { ',' }));
+    assertThrows(IllegalStateException.class, () -> push.feed(new byte[] { '1' }));
+  }
+}
@@ -0,0 +1,176 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mathnerd28.jsonj.JSONReader.Event;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class TestJSONReader {
+
+  @Test
+  void testEvents() throws IOException, JSONParseException {
+    JSONReader reader = new JSONParser()
+      .reader("{\"a\": [1, 2.5, \"s\", true, false, null], \"b\": {}, \"c\": []}");
+    assertEquals(Event.START_OBJECT, reader.next());
+    assertEquals(Event.KEY, reader.next());
+    assertEquals("a", reader.getString());
+    assertEquals(Event.START_ARRAY, reader.next());
+    assertEquals(2, reader.getDepth());
+    assertEquals(Event.VALUE_INTEGER, reader.next());
+    assertEquals(1, reader.getLong());
+    assertEquals(Event.VALUE_FLOAT, reader.next());
+    assertEquals(2.5, reader.getDouble());
+    assertEquals(Event.VALUE_STRING, reader.next());
+    assertEquals("s", reader.getString());
+    assertEquals(Event.VALUE_TRUE, reader.next());
+    assertTrue(reader.getBoolean());
+    assertEquals(Event.VALUE_FALSE, reader.next());
+    assertEquals(Event.VALUE_NULL, reader.next());
+    assertEquals(Event.END_ARRAY, reader.next());
+    assertEquals(Event.KEY, reader.next());
+    assertEquals(Event.START_OBJECT, reader.next());
+    assertEquals(Event.END_OBJECT, reader.next());
+    assertEquals(Event.KEY, reader.next());
+    assertEquals(Event.START_ARRAY, reader.next());
+    assertEquals(Event.END_ARRAY, reader.next());
+    assertEquals(Event.END_OBJECT, reader.next());
+    assertEquals(0, reader.getDepth());
+    assertEquals(Event.END_DOCUMENT, reader.next());
+    assertEquals(Event.END_DOCUMENT, reader.next());
+  }
+
+  @Test
+  void testScalarDocument() throws IOException, JSONParseException {
+    JSONReader reader = new JSONParser().reader("42".getBytes(StandardCharsets.UTF_8));
+    assertEquals(Event.VALUE_INTEGER, reader.next());
+    assertEquals(42, reader.getInt());
+    assertEquals(Event.END_DOCUMENT, reader.next());
+  }
+
+  @Test
+  void testIntRange() throws IOException, JSONParseException {
+    JSONReader reader = new JSONParser().reader("[-2147483648, 2147483648]");
+    reader.next();
+    reader.next();
+    assertEquals(Integer.MIN_VALUE, reader.getInt());
+    reader.next();
+    assertEquals(2147483648L, reader.getLong());
+    JSONParseException e = assertThrows(JSONParseException.class, reader::getInt);
+    assertEquals("Integer 2147483648 out of range at line 1, column 15", e.getMessage());
+  }
+
+  @Test
+  void testReadElementPerRecord() throws IOException, JSONParseException {
+    String json = "[{\"id\": 1, \"tags\": [\"x\"]}, {\"id\": 2, \"tags\": []}, 3]";
+    JSONReader reader = new JSONParser()
+      .reader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    assertEquals(Event.START_ARRAY, reader.next());
+    assertEquals(Event.START_OBJECT, reader.next());
+    JSONObject first = (JSONObject) reader.readElement();
+    assertEquals(Event.END_OBJECT, reader.getEvent());
+    assertEquals(1, first.getLong("id"));
+    assertEquals("x", first.getArray("tags").getString(0));
+    assertEquals(Event.START_OBJECT, reader.next());
+    assertEquals(2, ((JSONObject) reader.readElement()).getLong("id"));
+    assertEquals(Event.VALUE_INTEGER, reader.next());
+    assertEquals(new JSONInteger(3), reader.readElement());
+    assertEquals(Event.END_ARRAY, reader.next());
+    assertEquals(Event.END_DOCUMENT, reader.next());
+  }
+
+  @Test
+  void testReadElementAfterKey() throws IOException, JSONParseException {
+    JSONReader reader = new JSONParser().reader("{\"a\": {\"b\": [1]}, \"c\": 2}");
+    reader.next();
+    assertEquals(Event.KEY, reader.next());
+    assertEquals(new JSONParser().parse("{\"b\": [1]}"), reader.readElement());
+    assertEquals(Event.KEY, reader.next());
+    assertEquals("c", reader.getString());
+    assertEquals(Event.VALUE_INTEGER, reader.next());
+    assertEquals(Event.END_OBJECT, reader.next());
+  }
+
+  @Test
+  void testReadValue() throws IOException, JSONParseException {
+    JSONReader reader = new JSONParser().reader("[{\"id\": 1, \"name\": \"x\"}, {\"id\": 2}]");
+    assertEquals(Event.START_ARRAY, reader.next());
+    assertEquals(Event.START_OBJECT, reader.next());
+    TestJSONParser.Item first = reader.readValue(TestJSONParser.Item.class);
+    assertEquals(Event.END_OBJECT, reader.getEvent());
+    assertEquals(1, first.id);
+    assertEquals("x", first.name);
+    assertEquals(Event.START_OBJECT, reader.next());
+    assertEquals(2, reader.readValue(TestJSONParser.Item.class).id);
+    assertEquals(Event.END_ARRAY, reader.next());
+  }
+
+  @Test
+  void testSkipValue()throws IOException, JSONParseException {
+    JSONReader reader = new JSONParser().reader("{\"a\": {\"b\": [1, {}]}, \"c\": [[]], \"d\": 4}");
+    reader.next();
+    reader.next();
+    reader.skipValue();
+    assertEquals(Event.KEY, reader.next());
+    assertEquals(Event.START_ARRAY, reader.next());
+    reader.skipValue();
+    assertEquals(Event.END_ARRAY, reader.getEvent());
+    assertEquals(1, reader.getDepth());
+    assertEquals(Event.KEY, reader.next());
+    assertEquals("d", reader.getString());
+    assertEquals(Event.VALUE_INTEGER, reader.next());
+    assertEquals(4, reader.getLong());
+  }
+
+  @Test
+  void testSkipValueChecksSyntax() {
+    String[] cases = { "[1 2}", "{\"a\" 1 ]", "[:::]", "[[1, 2], {\"a\": tru}]", "{\"a\": [}]}" };
+    for (String json : cases) {
+      assertThrows(
+        JSONParseException.class,
+        () -> {
+          JSONReader reader = new JSONParser().reader(json);
+          reader.next();
+          reader.skipValue();
+          reader.next();
+        },
+        json
+      );
+    }
+    assertThrows(
+      JSONParseException.class,
+      () -> {
+        JSONReader reader = new JSONParser().reader("{\"a\": [1 2], \"b\": 3}");
+        reader.next();
+        reader.next();
+        reader.skipValue();
+      }
+    );
+  }
+
+  @Test
+  void testWrongGetter() throws IOException, JSONParseException {
+    JSONReader reader = new JSONParser().reader("[\"a\"]");
+    reader.next();
+    assertThrows(IllegalStateException.class, reader::getString);
+    reader.next();
+    assertThrows(IllegalStateException.class, reader::getLong);
+    assertThrows(IllegalStateException.class, reader::getDouble);
+  }
+
+  @Test
+  void testSyntaxErrors() {
+    for (String json : new String[] { "[1 2]", "{\"a\" 1}", "{1: 2}", "[1,]", "{\"a\": 1]", "[" }) {
+      assertThrows(
+        JSONParseException.class,
+        () -> {
+          JSONReader reader = new JSONParser().reader(json);
+          while (reader.next() != Event.END_DOCUMENT) {}
+        },
+        json
+      );
+    }
+  }
+}
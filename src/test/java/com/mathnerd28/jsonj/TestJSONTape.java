@@ -0,0 +1,130 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class TestJSONTape {
+
+  static final String JSON =
+    "{\"id\": 12, \"big\": -9223372036854775808, \"f\": -2.5e-3, \"s\": \"h\\u00e9llo \\ud83d\\ude00\"," +
+    " \"t\": true, \"n\": null, \"list\": [1, [], {}, \"x\", false], \"inner\": {\"a\": {\"b\": 3}}}";
+
+  @Test
+  void testNavigate() throws JSONParseException {
+    JSONTape root = new JSONParser().parseTape(JSON);
+    assertTrue(root.isObject());
+    assertEquals(8, root.size());
+    assertEquals(12, root.getInt("id"));
+    assertEquals(Long.MIN_VALUE, root.getLong("big"));
+    assertEquals(-2.5e-3, root.getDouble("f"));
+    assertEquals(12.0, root.getDouble("id"));
+    assertEquals("h\u00e9llo \ud83d\ude00", root.getString("s"));
+    assertTrue(root.getBoolean("t"));
+    assertTrue(root.get("n").isNull());
+    assertNull(root.get("missing"));
+    assertEquals(Arrays.asList("id", "big", "f", "s", "t", "n", "list", "inner"), root.keys());
+    assertEquals(3, root.getObject("inner").getObject("a").getLong("b"));
+
+    JSONTape list = root.getArray("list");
+    assertEquals(5, list.size());
+    assertEquals(0, list.getArray(1).size());
+    assertTrue(list.getObject(2).keys().isEmpty());
+    assertEquals("x", list.getString(3));
+    assertFalse(list.getBoolean(4));
+    assertEquals(5, list.elements().size());
+
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(5));
+    assertThrows(ClassCastException.class, () -> root.getString("id"));
+    assertThrows(ClassCastException.class, () -> root.getArray("inner"));
+    assertThrows(NullPointerException.class, () -> root.getLong("missing"));
+  }
+
+  @Test
+  void testMaterialize() throws Exception {
+    JSONParser parser = new JSONParser();
+    JSONElement expected = parser.parse(JSON);
+    byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+    assertEquals(expected, parser.parseTape(JSON).materialize());
+    assertEquals(expected, parser.parseTape(bytes).materialize());
+    assertEquals(expected, parser.parseTape(new ByteArrayInputStream(bytes)).materialize());
+    assertEquals(expected.toJSON(true), parser.parseTape(bytes).toString());
+    assertEquals(new JSONString("x"), parser.parseTape("\"x\"").materialize());
+  }
+
+  @Test
+  void testLarge() throws JSONParseException {
+    // Grows both buffers, and has more elements than fit in a container's count
+    StringBuilder json = new StringBuilder("[");
+    int n = (1 << 24) + 5;
+    for (int i = 0; i < n; i++) {
+      json.append(i == 0 ? "" : ",").append(i % 10);
+    }
+    JSONTape tape = new JSONParser().parseTape(json.append("]").toString());
+    assertEquals(n, tape.size());
+    assertEquals((n - 1) % 10, tape.getInt(n - 1));
+  }
+
+  @Test
+  void testDuplicateKeys() throws JSONParseException {
+    String json = "{\"a\": 1, \"b\": [2], \"a\": 3}";
+    JSONParseException e = assertThrows(
+      JSONParseException.class,
+      () -> new JSONParser().parseTape(json)
+    );
+    assertEquals("Duplicate key 'a' at line 1, column 20", e.getMessage());
+    JSONTape tape = new JSONParser().overwritingDuplicateKeys().parseTape(json);
+    assertEquals(2, tape.size());
+    assertEquals(Arrays.asList("b", "a"), tape.keys());
+    assertEquals(3, tape.getInt("a"));
+    assertEquals(new JSONParser().overwritingDuplicateKeys().parse(json), tape.materialize());
+  }
+
+  @Test
+  void testWideObjects() throws JSONParseException {
+    StringBuilder inner = new StringBuilder("{");
+    for (int i = 0; i < 12; i++) {
+      inner.append(i == 0 ? "" : ", ").append("\"k").append(i).append("\": ").append(i);
+    }
+    inner.append("}");
+    StringBuilder json = new StringBuilder("{");
+    for (int i = 0; i < 200000; i++) {
+      json.append(i == 0 ? "" : ", ").append("\"k").append(i % 150000).append("\": ");
+      // Nested objects keep their own keys while the outer one is wide
+      json.append(i % 1000 == 0 ? inner.toString() : String.valueOf(i));
+    }
+    String wide = json.append("}").toString();
+    JSONParser parser = new JSONParser().overwritingDuplicateKeys();
+    JSONTape tape = parser.parseTape(wide);
+    assertEquals(150000, tape.size());
+    assertEquals(149999, tape.getInt("k149999"));
+    assertEquals(150001, tape.getInt("k1"));
+    assertEquals(parser.parse(wide), tape.materialize());
+
+    JSONParseException e = assertThrows(
+      JSONParseException.class,
+      () -> new JSONParser().parseTape(wide)
+    );
+    assertTrue(e.getMessage().startsWith("Duplicate key 'k0' "), e.getMessage());
+  }
+
+  @Test
+  void testErrors() {
+    String[] invalid = { "", "{", "[1,]", "{\"a\" 1}", "{1: 2}", "[1 2]", "}" };
+    for (String json : invalid) {
+      JSONParseException expected = assertThrows(
+        JSONParseException.class,
+        () -> new JSONParser().parse(json)
+      );
+      JSONParseException e = assertThrows(
+        JSONParseException.class,
+        () -> new JSONParser().parseTape(json),
+        json
+      );
+      assertEquals(expected.getMessage(), e.getMessage(), json);
+    }
+  }
+}
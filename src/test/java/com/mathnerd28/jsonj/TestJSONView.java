@@ -0,0 +1,159 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+class TestJSONView {
+
+  @Test
+  void testNavigation() throws JSONParseException {
+    JSONView root = new JSONParser().parseLazy(TestJSONParser.SAMPLE);
+    assertTrue(root.isObject());
+    JSONObject obj = (JSONObject) new JSONParser().parse(TestJSONParser.SAMPLE);
+    assertEquals(obj.size(), root.size());
+    for (String key : root.keys()) {
+      assertNotNull(root.get(key));
+    }
+    assertNull(root.get("missing"));
+    assertFalse(root.has("missing"));
+  }
+
+  @Test
+  void testValues() throws JSONParseException {
+    String json =
+      "{\"id\": 12, \"name\": \"caf\\u00e9\", \"ratio\": 0.5, \"ok\": true, \"none\": null,\n" +
+      " \"tags\": [\"a\", [1, 2], {\"b\": -3}], \"caf\u00e9\": {\"x\": 1e2}, \"esc\\u0061pe\": 1}";
+    JSONView root = new JSONParser().parseLazy(json);
+    assertEquals(12, root.getLong("id"));
+    assertEquals(12, root.getInt("id"));
+    assertEquals(12.0, root.getDouble("id"));
+    assertEquals("caf\u00e9", root.getString("name"));
+    assertEquals(0.5, root.getDouble("ratio"));
+    assertTrue(root.getBoolean("ok"));
+    assertTrue(root.get("none").isNull());
+    assertEquals(100.0, root.getObject("caf\u00e9").getDouble("x"));
+    assertEquals(1, root.getLong("escape"));
+
+    JSONView tags = root.getArray("tags");
+    assertEquals(3, tags.size());
+    assertEquals("a", tags.getString(0));
+    assertEquals(2, tags.getArray(1).getLong(1));
+    assertEquals(-3, tags.getObject(2).getLong("b"));
+    assertEquals("[1, 2]", tags.get(1).toString());
+    assertEquals(3, tags.elements().size());
+    assertThrows(IndexOutOfBoundsException.class, () -> tags.get(3));
+
+    assertEquals(
+      Arrays.asList("id", "name", "ratio", "ok", "none", "tags", "caf\u00e9", "escape"),
+      root.keys()
+    );
+    assertThrows(ClassCastException.class, () -> root.getString("id"));
+    assertThrows(ClassCastException.class, () -> root.getObject("tags"));
+    assertThrows(ClassCastException.class, () -> root.getLong("tags"));
+    assertThrows(NullPointerException.class, () -> root.getLong("missing"));
+  }
+
+  @Test
+  void testIndexedLoop() throws JSONParseException {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < 100000; i++) {
+      json.append(i == 0 ? "" : ", ").append(i);
+    }
+    JSONView array = new JSONParser().parseLazy(json.append(']').toString());
+    // Each get() picks up where the last one stopped, instead of walking from the start
+    for (int i = 0; i < array.size(); i++) {
+      assertEquals(i, array.getLong(i));
+    }
+    assertEquals(99999, array.getLong(99999));
+    assertEquals(5, array.getLong(5));
+    assertThrows(IndexOutOfBoundsException.class, () -> array.get(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> array.get(100000));
+
+    // Members past the one asked for are only checked once they are reached
+    JSONView partial = new JSONParser().parseLazy("[1, 2,]");
+    assertEquals(2, partial.getLong(1));
+    assertError("Unexpected RIGHT_BRACKET token at line 1, column 7", partial::size);
+    assertError("Unexpected RIGHT_BRACKET token at line 1, column 7", () -> partial.get(3));
+    assertEquals(1, partial.getLong(0));
+    assertEquals(0, new JSONParser().parseLazy("[ ]").size());
+  }
+
+  @Test
+  void testMaterialize() throws JSONParseException {
+    JSONParser parser = new JSONParser();
+    String sample = TestJSONParser.SAMPLE;
+    assertEquals(parser.parse(sample), parser.parseLazy(sample).materialize());
+    for (String json : new String[] { "[]", "{}", " [ ] ", "\"s\"", " 42 ", "null", "[[],{}]" }) {
+      assertEquals(parser.parse(json), parser.parseLazy(json).materialize());
+    }
+    assertEquals(0, parser.parseLazy(" { } ").size());
+    assertEquals(0, parser.parseLazy("[\n]").size());
+  }
+
+  @Test
+  void testWordBoundaries() throws JSONParseException {
+    // Puts every structural character, quote and escape at each position within an 8-byte word
+    JSONParser parser = new JSONParser();
+    String body = "{\"k\\\"ey\":[1,{\"a\":\"x\\\\\"},[]],\"[,]\":\"{:}\\\\\"}";
+    JSONElement expected = parser.parse(body);
+    for (int pad = 0; pad < 16; pad++) {
+      char[] spaces = new char[pad];
+      Arrays.fill(spaces, ' ');
+      String json = new String(spaces) + body + new String(spaces);
+      assertEquals(expected, parser.parseLazy(json).materialize(), json);
+      assertEquals(2, parser.parseLazy(json).size());
+      assertError(
+        "Unexpected termination at line 1, column " + (pad + 7),
+        () -> parser.parseLazy(new String(spaces) + "[\"abc\\\"")
+      );
+    }
+  }
+
+  @Test
+  void testErrors() throws JSONParseException {
+    JSONParser parser = new JSONParser();
+    // Structure is checked up front
+    assertError("Unexpected termination at line 1, column 5", () -> parser.parseLazy("[1, 2"));
+    assertError(
+      "Expected RIGHT_BRACKET instead of RIGHT_BRACE at line 1, column 3",
+      () -> parser.parseLazy("[1}")
+    );
+    assertError(
+      "Unexpected LEFT_BRACKET token at line 1, column 4",
+      () -> parser.parseLazy("{} []")
+    );
+    assertError("Unexpected termination at line 1, column 4", () -> parser.parseLazy("\"abc"));
+    assertError("Unexpected termination at line 1, column 1", () -> parser.parseLazy(" "));
+
+    // Everything else when it is read, at its position in the document
+    JSONView root = parser.parseLazy(
+      "{\"a\": 1,\n \"b\": tru, \"c\": [1 2], \"d\": [1,], \"a\": 2}"
+    );
+    assertError("Expected keyword 'true' at line 2, column 10", () -> root.getBoolean("b"));
+    assertEquals("1 2", root.getArray("c").get(0).toString());
+    assertError(
+      "Unexpected INTEGER token at line 2, column 20",
+      () -> root.getArray("c").getLong(0)
+    );
+    assertError(
+      "Unexpected RIGHT_BRACKET token at line 2, column 32",
+      () -> root.getArray("d").size()
+    );
+    assertError("Duplicate key 'a' at line 2, column 35", () -> root.get("a"));
+    assertEquals(
+      2,
+      new JSONParser().overwritingDuplicateKeys().parseLazy(root.toString()).getLong("a")
+    );
+    assertError(
+      "Unexpected INTEGER token at line 1, column 6",
+      () -> parser.parseLazy("{\"a\" 1}").get("a")
+    );
+  }
+
+  static void assertError(String message, Executable executable) {
+    assertEquals(message, assertThrows(JSONParseException.class, executable).getMessage());
+  }
+}
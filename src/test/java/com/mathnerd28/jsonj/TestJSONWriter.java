@@ -0,0 +1,114 @@
+package com.mathnerd28.jsonj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class TestJSONWriter {
+
+  static JSONObject sample() throws JSONParseException {
+    return (JSONObject) new JSONParser()
+      .parse("{\"a\": [1, 2.5, {\"b\": []}], \"c\": {}, \"d\": \"\u00e9\\n\", \"e\": null}");
+  }
+
+  @Test
+  void testCompact() throws IOException, JSONParseException {
+    StringWriter out = new StringWriter();
+    new JSONWriter(out).write(sample());
+    assertEquals("{\"a\":[1,2.5,{\"b\":[]}],\"c\":{},\"d\":\"\u00e9\\n\",\"e\":null}", out.toString());
+  }
+
+  @Test
+  void testSpaced() throws IOException, JSONParseException {
+    StringBuilder out = new StringBuilder();
+    new JSONWriter(out).spaced().write(sample());
+    assertEquals(
+      "{\"a\": [1, 2.5, {\"b\": []}], \"c\": {}, \"d\": \"\u00e9\\n\", \"e\": null}",
+      out.toString()
+    );
+    assertEquals(out.toString(), sample().toJSON());
+  }
+
+  @Test
+  void testFormatted() throws IOException, JSONParseException {
+    StringBuilder out = new StringBuilder();
+    new JSONWriter(out).formatted("\t").write(sample());
+    assertEquals(
+      "{\n\t\"a\": [\n\t\t1,\n\t\t2.5,\n\t\t{\n\t\t\t\"b\": []\n\t\t}\n\t],\n" +
+      "\t\"c\": {},\n\t\"d\": \"\u00e9\\n\",\n\t\"e\": null\n}",
+      out.toString()
+    );
+    assertEquals(out.toString().replace("\t", "  "), sample().toJSONFormatted());
+  }
+
+  @Test
+  void testOutputStreamIsUTF8() throws IOException, JSONParseException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    sample().writeUtf8To(out, true);
+    assertEquals(sample().toJSON(true), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    assertEquals(sample(), new JSONParser().parse(out.toByteArray()));
+  }
+
+  @Test
+  void testOutputStreamDefault() throws IOException, JSONParseException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    sample().writeUtf8To(out);
+    String spaced = sample().toJSON();
+    assertEquals(spaced, new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+    // A PrintStream takes either method, with the same default
+    out.reset();
+    PrintStream stream = new PrintStream(out, true, "UTF-8");
+    sample().writeTo(stream);
+    sample().writeUtf8To(stream);
+    stream.flush();
+    assertEquals(spaced + spaced, new String(out.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testOutputStreamEncoding() throws IOException {
+    String str = "a\u0001\"\\\t\u00e9\u4e00\ud83d\ude00\ud83d";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new JSONString(str).writeUtf8To(out, true);
+    assertArrayEquals(
+      new JSONString(str).toJSON().getBytes(StandardCharsets.UTF_8),
+      out.toByteArray()
+    );
+  }
+
+  @Test
+  void testOutputStreamLongString() throws IOException, JSONParseException {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      builder.append((char) ('a' + i % 26)).append(i % 100 == 0 ? "\n\u00e9" : "");
+    }
+    JSONString str = new JSONString(builder.toString());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    str.writeUtf8To(out, true);
+    assertEquals(str, new JSONParser().parse(out.toByteArray()));
+  }
+
+  @Test
+  void testSelfReference() {
+    JSONObject obj = new JSONObject();
+    obj.put("self", obj);
+    assertEquals("{\"self\": (this object)}", obj.toJSON());
+    JSONArray array = new JSONArray();
+    array.add(array);
+    assertEquals("[(this array)]", array.toJSON());
+  }
+
+  @Test
+  void testScalars() throws IOException {
+    StringBuilder out = new StringBuilder();
+    JSONWriter writer = new JSONWriter(out);
+    writer.write(new JSONInteger(-7)).write(JSONBoolean.TRUE).write(JSONElement.NULL);
+    writer.write(new JSONString("\u0000\u001f\"\\"));
+    assertEquals("-7truenull\"\\u0000\\u001f\\\"\\\\\"", out.toString());
+  }
+}